@@ -0,0 +1,82 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Carga y guardado de archivos de configuración de 10 a 100000 claves.
+ * Los archivos se escriben en un directorio temporal; el guardado incluye la
+ * sincronización con el disco, igual que en la aplicación.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConfigurationLoaderBenchmark {
+    @Param({"10", "1000", "100000"})
+    public int keys;
+
+    private Path directory;
+    private Object loader;
+    private Map<String, Object> configuration;
+
+    @Setup
+    public void setUp() throws Throwable {
+        directory = Files.createTempDirectory("config-bench");
+        // Sin copia binaria: aquí se mide la interpretación del JSON (ver ConfigurationStartupBenchmark)
+        loader = (Object) Targets.NEW_LOADER.invokeExact(directory.resolve("config.json"), false);
+        configuration = generate(keys);
+        long ignored = (long) Targets.SAVE_CONFIGURATION.invokeExact(loader, (Map) configuration);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    /**
+     * Genera una configuración con la mezcla de tipos de un config.json real
+     */
+    static Map<String, Object> generate(int keys) {
+        Map<String, Object> configuration = new HashMap<>();
+        for (int i = 0; i < keys; i++) {
+            String key = String.format("key%06d", i);
+            switch (i % 4) {
+                case 0:
+                    configuration.put(key, "value-" + i);
+                    break;
+                case 1:
+                    configuration.put(key, (long) i);
+                    break;
+                case 2:
+                    configuration.put(key, i % 3 == 0);
+                    break;
+                default:
+                    configuration.put(key, i / 7.0);
+                    break;
+            }
+        }
+        return configuration;
+    }
+
+    @Benchmark
+    public Map<?, ?> loadConfiguration() throws Throwable {
+        return (Map<?, ?>) Targets.LOAD_CONFIGURATION.invokeExact(loader);
+    }
+
+    @Benchmark
+    public long saveConfiguration() throws Throwable {
+        return (long) Targets.SAVE_CONFIGURATION.invokeExact(loader, (Map) configuration);
+    }
+}
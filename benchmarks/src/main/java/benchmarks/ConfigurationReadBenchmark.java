@@ -0,0 +1,56 @@
+package benchmarks;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Lecturas de ConfigurationManager con 1, 4 y 16 hilos lectores.
+ * Cada subclase fija el número de hilos; los métodos medidos son los mismos.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public abstract class ConfigurationReadBenchmark {
+    private Object manager;
+
+    @Setup
+    public void setUp() throws Throwable {
+        manager = (Object) Targets.GET_INSTANCE.invokeExact();
+    }
+
+    @Benchmark
+    public int getMaxConnections() throws Throwable {
+        return (int) Targets.GET_MAX_CONNECTIONS.invokeExact(manager);
+    }
+
+    @Benchmark
+    public String getTheme() throws Throwable {
+        return (String) Targets.GET_THEME.invokeExact(manager);
+    }
+
+    @Benchmark
+    public Object getConfiguration() throws Throwable {
+        return (Object) Targets.GET_CONFIGURATION.invokeExact(manager, "region");
+    }
+
+    @Benchmark
+    public Map<?, ?> getAllConfiguration() throws Throwable {
+        return (Map<?, ?>) Targets.GET_ALL_CONFIGURATION.invokeExact(manager);
+    }
+
+    @Threads(1)
+    public static class OneThread extends ConfigurationReadBenchmark {
+    }
+
+    @Threads(4)
+    public static class FourThreads extends ConfigurationReadBenchmark {
+    }
+
+    @Threads(16)
+    public static class SixteenThreads extends ConfigurationReadBenchmark {
+    }
+}
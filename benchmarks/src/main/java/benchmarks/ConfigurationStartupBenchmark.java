@@ -0,0 +1,60 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Primera carga de la configuración en una JVM recién iniciada, interpretando el JSON
+ * o usando la copia binaria. Cada medición se hace en un proceso nuevo (una sola
+ * invocación por fork, sin calentamiento), que es lo que paga cada arranque real.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(20)
+@State(Scope.Benchmark)
+public class ConfigurationStartupBenchmark {
+    @Param({"10", "1000", "100000"})
+    public int keys;
+
+    @Param({"json", "binary"})
+    public String source;
+
+    private Path directory;
+    private Object loader;
+
+    @Setup
+    public void setUp() throws Throwable {
+        directory = Files.createTempDirectory("config-startup");
+        Path file = directory.resolve("config.json");
+        boolean binary = "binary".equals(source);
+        Object writer = (Object) Targets.NEW_LOADER.invokeExact(file, false);
+        long ignored = (long) Targets.SAVE_CONFIGURATION.invokeExact(writer,
+            (Map) ConfigurationLoaderBenchmark.generate(keys));
+        if (binary) {
+            // Generar la copia binaria con otro cargador, como lo haría un arranque anterior
+            Map<?, ?> primed = (Map<?, ?>) Targets.LOAD_CONFIGURATION.invokeExact(
+                (Object) Targets.NEW_LOADER.invokeExact(file, true));
+        }
+        loader = (Object) Targets.NEW_LOADER.invokeExact(file, binary);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public Map<?, ?> firstLoad() throws Throwable {
+        return (Map<?, ?>) Targets.LOAD_CONFIGURATION.invokeExact(loader);
+    }
+}
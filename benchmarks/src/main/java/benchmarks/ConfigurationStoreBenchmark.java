@@ -0,0 +1,78 @@
+package benchmarks;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Almacén de la configuración con 10 a 1M claves: la copia completa de HashMap que se
+ * hacía antes en cada escritura y en getAllConfiguration, frente a PersistentConfigurationMap,
+ * que copia solo el camino de la clave y se entrega sin copiar.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class ConfigurationStoreBenchmark {
+    @Param({"10", "1000", "100000", "1000000"})
+    public int keys;
+
+    private String[] names;
+    private Map<String, Object> hashMap;
+    private Map<String, Object> trie;
+    private int next;
+
+    @Setup
+    public void setUp() throws Throwable {
+        names = new String[keys];
+        hashMap = new HashMap<>();
+        for (int i = 0; i < keys; i++) {
+            names[i] = "key" + i;
+            hashMap.put(names[i], i);
+        }
+        @SuppressWarnings("unchecked")
+        Map<String, Object> copy = (Map<String, Object>) Targets.PERSISTENT_COPY_OF.invokeExact((Map) hashMap);
+        trie = copy;
+    }
+
+    private String nextKey() {
+        int index = next;
+        next = index + 1 == keys ? 0 : index + 1;
+        return names[index];
+    }
+
+    @Benchmark
+    public Map<String, Object> writeHashMapCopy() {
+        Map<String, Object> copy = new HashMap<>(hashMap);
+        copy.put(nextKey(), next);
+        return copy;
+    }
+
+    @Benchmark
+    public Map<?, ?> writePersistent() throws Throwable {
+        return (Map<?, ?>) Targets.PERSISTENT_WITH.invokeExact((Map) trie, nextKey(), (Object) next);
+    }
+
+    @Benchmark
+    public Map<String, Object> snapshotHashMapCopy() {
+        return new HashMap<>(hashMap);
+    }
+
+    @Benchmark
+    public Map<String, Object> snapshotPersistent() {
+        return trie;
+    }
+
+    @Benchmark
+    public Object getHashMap() {
+        return hashMap.get(nextKey());
+    }
+
+    @Benchmark
+    public Object getPersistent() {
+        return trie.get(nextKey());
+    }
+}
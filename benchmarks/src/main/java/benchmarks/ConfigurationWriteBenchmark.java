@@ -0,0 +1,53 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Escrituras con setConfiguration. Con varios hilos todos publican sobre la misma
+ * referencia atómica, por lo que el resultado incluye los reintentos por contención.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public abstract class ConfigurationWriteBenchmark {
+    private Object manager;
+
+    /**
+     * Contador propio de cada hilo para que cada escritura publique un valor distinto
+     */
+    @State(Scope.Thread)
+    public static class Counter {
+        long next;
+    }
+
+    @Setup
+    public void setUp() throws Throwable {
+        manager = (Object) Targets.GET_INSTANCE.invokeExact();
+    }
+
+    @Benchmark
+    public void setSameKey(Counter counter) throws Throwable {
+        Targets.SET_CONFIGURATION.invokeExact(manager, "maxConnections", (Object) (counter.next++ & 1023));
+    }
+
+    @Benchmark
+    public void setTheme(Counter counter) throws Throwable {
+        Targets.SET_CONFIGURATION.invokeExact(manager, "theme", (Object) ((counter.next++ & 1) == 0 ? "light" : "dark"));
+    }
+
+    @Threads(1)
+    public static class OneThread extends ConfigurationWriteBenchmark {
+    }
+
+    @Threads(4)
+    public static class FourThreads extends ConfigurationWriteBenchmark {
+    }
+
+    @Threads(16)
+    public static class SixteenThreads extends ConfigurationWriteBenchmark {
+    }
+}
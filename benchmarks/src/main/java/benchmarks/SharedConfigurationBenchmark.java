@@ -0,0 +1,82 @@
+package benchmarks;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Configuración compartida entre procesos: lectura directa de una clave en la región
+ * mapeada (SharedConfigurationRegion.get) frente a la instantánea del propio heap, copia
+ * completa consistente de la región, y coste de publicar una versión nueva.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SharedConfigurationBenchmark {
+    @Param({"16", "1000"})
+    public int keys;
+
+    private Path file;
+    private String[] names;
+    private Object snapshot;
+    private AutoCloseable publisher;
+    private Object region;
+    private int next;
+
+    @Setup
+    public void setUp() throws Throwable {
+        file = Files.createTempFile("shared-benchmark", ".region");
+        names = new String[keys];
+        Map<String, Object> values = new HashMap<>();
+        for (int i = 0; i < keys; i++) {
+            names[i] = "key" + i;
+            values.put(names[i], (long) i);
+        }
+        snapshot = (Object) Targets.SNAPSHOT_OF.invokeExact((Map) values);
+        snapshot = (Object) Targets.SNAPSHOT_WITH.invokeExact(snapshot, names[0], (Object) 0L);
+        publisher = (AutoCloseable) Targets.PUBLISHER_CREATE.invokeExact(file, 1 << 20);
+        if (!(boolean) Targets.PUBLISH.invokeExact(publisher, snapshot)) {
+            throw new IllegalStateException("No se publicó la configuración inicial");
+        }
+        region = (Object) Targets.REGION_OPEN.invokeExact(file);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        publisher.close();
+        Files.deleteIfExists(file);
+    }
+
+    private String nextKey() {
+        int index = next;
+        next = index + 1 == keys ? 0 : index + 1;
+        return names[index];
+    }
+
+    @Benchmark
+    public Object getShared() throws Throwable {
+        return (Object) Targets.REGION_GET.invokeExact(region, nextKey());
+    }
+
+    @Benchmark
+    public Object getSnapshot() throws Throwable {
+        return (Object) Targets.SNAPSHOT_GET.invokeExact(snapshot, nextKey());
+    }
+
+    @Benchmark
+    public Map<?, ?> readShared() throws Throwable {
+        return (Map<?, ?>) Targets.REGION_READ.invokeExact(region);
+    }
+
+    @Benchmark
+    public boolean publish() throws Throwable {
+        snapshot = (Object) Targets.SNAPSHOT_WITH.invokeExact(snapshot, nextKey(), (Object) (long) next);
+        return (boolean) Targets.PUBLISH.invokeExact(publisher, snapshot);
+    }
+}
@@ -0,0 +1,109 @@
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * Accesos a las clases del proyecto principal.
+ *
+ * JMH no admite benchmarks en el paquete por defecto y Java no permite importar clases
+ * de ese paquete, por lo que los métodos se resuelven una vez como MethodHandle. Al ser
+ * constantes estáticas finales, el JIT los enlaza directamente y no añaden coste de
+ * reflexión a la medición.
+ */
+final class Targets {
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.publicLookup();
+    private static final Class<?> MANAGER = find("ConfigurationManager");
+    private static final Class<?> LOADER = find("ConfigurationLoader");
+    private static final Class<?> PERSISTENT_MAP = find("PersistentConfigurationMap");
+    private static final Class<?> SNAPSHOT = find("ConfigurationSnapshot");
+    private static final Class<?> PUBLISHER = find("SharedConfigurationPublisher");
+    private static final Class<?> REGION = find("SharedConfigurationRegion");
+
+    static final MethodHandle GET_INSTANCE = handle(MANAGER, "getInstance", true,
+        MethodType.methodType(MANAGER), MethodType.methodType(Object.class));
+    static final MethodHandle GET_MAX_CONNECTIONS = handle(MANAGER, "getMaxConnections", false,
+        MethodType.methodType(int.class), MethodType.methodType(int.class, Object.class));
+    static final MethodHandle GET_THEME = handle(MANAGER, "getTheme", false,
+        MethodType.methodType(String.class), MethodType.methodType(String.class, Object.class));
+    static final MethodHandle GET_CONFIGURATION = handle(MANAGER, "getConfiguration", false,
+        MethodType.methodType(Object.class, String.class),
+        MethodType.methodType(Object.class, Object.class, String.class));
+    static final MethodHandle SET_CONFIGURATION = handle(MANAGER, "setConfiguration", false,
+        MethodType.methodType(void.class, String.class, Object.class),
+        MethodType.methodType(void.class, Object.class, String.class, Object.class));
+    static final MethodHandle GET_ALL_CONFIGURATION = handle(MANAGER, "getAllConfiguration", false,
+        MethodType.methodType(Map.class), MethodType.methodType(Map.class, Object.class));
+
+    static final MethodHandle NEW_LOADER = constructor(LOADER,
+        MethodType.methodType(void.class, Path.class, boolean.class),
+        MethodType.methodType(Object.class, Path.class, boolean.class));
+    static final MethodHandle LOAD_CONFIGURATION = handle(LOADER, "loadConfiguration", false,
+        MethodType.methodType(Map.class), MethodType.methodType(Map.class, Object.class));
+    static final MethodHandle SAVE_CONFIGURATION = handle(LOADER, "saveConfiguration", false,
+        MethodType.methodType(long.class, Map.class), MethodType.methodType(long.class, Object.class, Map.class));
+
+    static final MethodHandle PERSISTENT_COPY_OF = handle(PERSISTENT_MAP, "copyOf", true,
+        MethodType.methodType(PERSISTENT_MAP, Map.class), MethodType.methodType(Map.class, Map.class));
+    static final MethodHandle PERSISTENT_WITH = handle(PERSISTENT_MAP, "with", false,
+        MethodType.methodType(PERSISTENT_MAP, String.class, Object.class),
+        MethodType.methodType(Map.class, Map.class, String.class, Object.class));
+
+    static final MethodHandle SNAPSHOT_OF = handle(SNAPSHOT, "of", true,
+        MethodType.methodType(SNAPSHOT, Map.class), MethodType.methodType(Object.class, Map.class));
+    static final MethodHandle SNAPSHOT_WITH = handle(SNAPSHOT, "with", false,
+        MethodType.methodType(SNAPSHOT, String.class, Object.class),
+        MethodType.methodType(Object.class, Object.class, String.class, Object.class));
+    static final MethodHandle SNAPSHOT_GET = handle(SNAPSHOT, "get", false,
+        MethodType.methodType(Object.class, String.class),
+        MethodType.methodType(Object.class, Object.class, String.class));
+
+    static final MethodHandle PUBLISHER_CREATE = handle(PUBLISHER, "create", true,
+        MethodType.methodType(PUBLISHER, Path.class, int.class),
+        MethodType.methodType(AutoCloseable.class, Path.class, int.class));
+    static final MethodHandle PUBLISH = handle(PUBLISHER, "publish", false,
+        MethodType.methodType(boolean.class, SNAPSHOT),
+        MethodType.methodType(boolean.class, AutoCloseable.class, Object.class));
+    static final MethodHandle REGION_OPEN = handle(REGION, "open", true,
+        MethodType.methodType(REGION, Path.class), MethodType.methodType(Object.class, Path.class));
+    static final MethodHandle REGION_GET = handle(REGION, "get", false,
+        MethodType.methodType(Object.class, String.class),
+        MethodType.methodType(Object.class, Object.class, String.class));
+    static final MethodHandle REGION_READ = handle(REGION, "read", false,
+        MethodType.methodType(Map.class), MethodType.methodType(Map.class, Object.class));
+
+    private Targets() {
+    }
+
+    private static Class<?> find(String name) {
+        try {
+            return Class.forName(name);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("Clase del proyecto no encontrada: " + name
+                + " (ejecutar mvn install en el directorio raíz)", e);
+        }
+    }
+
+    private static MethodHandle handle(Class<?> owner, String name, boolean isStatic,
+                                       MethodType type, MethodType erased) {
+        try {
+            MethodHandle handle = isStatic
+                ? LOOKUP.findStatic(owner, name, type)
+                : LOOKUP.findVirtual(owner, name, type);
+            return handle.asType(erased);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Método no encontrado: " + owner.getName() + "." + name, e);
+        }
+    }
+
+    private static MethodHandle constructor(Class<?> owner, MethodType type, MethodType erased) {
+        try {
+            return LOOKUP.findConstructor(owner, type).asType(erased);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Constructor no encontrado: " + owner.getName(), e);
+        }
+    }
+}
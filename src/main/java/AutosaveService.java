@@ -0,0 +1,129 @@
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Servicio de autoguardado basado en el parámetro autoSaveInterval (minutos).
+ *
+ * Se ejecuta en el {@link BackgroundScheduler} compartido y solo escribe a disco si la
+ * configuración cambió desde el último guardado; si no hay cambios no realiza ninguna
+ * operación de E/S. Se reprograma en vivo cuando cambia autoSaveInterval y guarda los
+ * cambios pendientes al cerrar la JVM.
+ */
+public class AutosaveService {
+    private final ConfigurationManager configManager;
+    private final ConfigurationSaveQueue saveQueue;
+    private final boolean flushOnExit;
+    private final ConfigurationChangeListener intervalListener = this::onConfigurationChanged;
+    private ScheduledFuture<?> task;
+    private Thread shutdownHook;
+    private int intervalMinutes;
+    private boolean started;
+
+    public AutosaveService(ConfigurationManager configManager, ConfigurationSaveQueue saveQueue) {
+        this(configManager, saveQueue, true);
+    }
+
+    /**
+     * @param flushOnExit Registrar el guardado al cerrar la JVM; false si otro componente
+     *                    ya lo hace (por ejemplo {@link ConfigurationRegistry} con sus inquilinos)
+     */
+    public AutosaveService(ConfigurationManager configManager, ConfigurationSaveQueue saveQueue, boolean flushOnExit) {
+        this.configManager = configManager;
+        this.saveQueue = saveQueue;
+        this.flushOnExit = flushOnExit;
+    }
+
+    /**
+     * Inicia el autoguardado con el intervalo configurado y, si se pidió, registra el guardado al cerrar la JVM
+     */
+    public synchronized void start() {
+        if (started) {
+            return;
+        }
+        started = true;
+        configManager.addChangeListener(intervalListener);
+        if (flushOnExit && shutdownHook == null) {
+            shutdownHook = new Thread(this::flush, "config-autosave-shutdown");
+            Runtime.getRuntime().addShutdownHook(shutdownHook);
+        }
+        schedule(configManager.getAutoSaveInterval());
+    }
+
+    /**
+     * Programa la tarea periódica; un intervalo menor o igual a cero desactiva el autoguardado
+     */
+    private synchronized void schedule(int minutes) {
+        if (task != null) {
+            task.cancel(false);
+            task = null;
+        }
+        intervalMinutes = minutes;
+        if (minutes > 0) {
+            task = BackgroundScheduler.get().scheduleWithFixedDelay(this::flush, minutes, minutes, TimeUnit.MINUTES);
+        }
+    }
+
+    private void onConfigurationChanged(ConfigurationChangeEvent event) {
+        if (event.hasChanged(ConfigKey.AUTO_SAVE_INTERVAL)) {
+            int minutes = event.getCurrent().getInt(ConfigKey.AUTO_SAVE_INTERVAL);
+            synchronized (this) {
+                if (started && minutes != intervalMinutes) {
+                    schedule(minutes);
+                }
+            }
+        }
+    }
+
+    /**
+     * Detiene el autoguardado periódico y quita el guardado al cerrar la JVM
+     */
+    public synchronized void stop() {
+        if (!started) {
+            return;
+        }
+        started = false;
+        configManager.removeChangeListener(intervalListener);
+        if (task != null) {
+            task.cancel(false);
+            task = null;
+        }
+        removeShutdownHook();
+    }
+
+    /**
+     * Quita el guardado al cerrar la JVM; si la JVM ya se está cerrando, el gancho se ejecuta de todos modos
+     */
+    private void removeShutdownHook() {
+        if (flushOnExit && shutdownHook == null) {
+            return;
+        }
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException e) {
+            // La JVM ya se está cerrando
+        }
+        shutdownHook = null;
+    }
+
+    /**
+     * Guarda los cambios pendientes, si los hay
+     */
+    private void flush() {
+        try {
+            if (saveQueue.flushIfDirty()) {
+                System.out.printf("Autoguardado completado (%.2f ms).%n",
+                    saveQueue.getLastSaveLatencyNanos() / 1_000_000.0);
+            }
+        } catch (Exception e) {
+            System.err.println("Error en el autoguardado: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Obtiene el intervalo de autoguardado vigente
+     * @return Minutos entre guardados (0 si está desactivado)
+     */
+    public synchronized int getIntervalMinutes() {
+        return intervalMinutes;
+    }
+}
@@ -0,0 +1,30 @@
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Planificador compartido (un único hilo daemon) para las tareas de fondo de la
+ * configuración: guardados agrupados, autoguardado y respaldos. Las tareas deben
+ * ser breves para no retrasarse entre sí.
+ */
+public final class BackgroundScheduler {
+
+    private BackgroundScheduler() {
+    }
+
+    // Creación perezosa del hilo la primera vez que se usa
+    private static final class Holder {
+        private static final ScheduledExecutorService INSTANCE = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "config-background");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Obtiene el planificador compartido
+     * @return Executor programado de un hilo daemon
+     */
+    public static ScheduledExecutorService get() {
+        return Holder.INSTANCE;
+    }
+}
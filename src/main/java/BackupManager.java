@@ -0,0 +1,254 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.JSONValue;
+import org.json.simple.parser.JSONParser;
+
+/**
+ * Respaldos versionados y rotativos de la configuración en backupDirectory.
+ *
+ * Cada guardado confirmado genera una nueva versión de respaldo: normalmente un delta
+ * comprimido con las claves que cambiaron respecto a la versión anterior y, cada
+ * {@link #FULL_SNAPSHOT_EVERY} versiones, una copia completa. Una copia completa junto
+ * con sus deltas forma una cadena; solo se conservan las {@link #MAX_CHAINS} cadenas
+ * más recientes. La restauración parte de la copia completa más cercana y aplica los
+ * deltas hasta la versión pedida.
+ */
+public class BackupManager {
+    static final int FULL_SNAPSHOT_EVERY = 10;
+    static final int MAX_CHAINS = 5;
+
+    private static final Pattern FILE_PATTERN = Pattern.compile("config-(\\d{8})\\.(full|delta)\\.json\\.gz");
+
+    private final Supplier<ConfigurationSnapshot> source;
+    private final String subdirectory;
+    private Path directory;
+    private long lastVersion = -1;
+    private long lastFullVersion = -1;
+    private PersistentConfigurationMap lastValues;
+
+    /**
+     * @param source Versión vigente de la configuración
+     * @param subdirectory Subdirectorio dentro de backupDirectory (por ejemplo, el de un
+     *                     inquilino), o null para usar backupDirectory directamente
+     */
+    public BackupManager(Supplier<ConfigurationSnapshot> source, String subdirectory) {
+        this.source = source;
+        this.subdirectory = subdirectory;
+    }
+
+    /**
+     * Registra una versión guardada. Se ejecuta en el {@link BackgroundScheduler}
+     * para no añadir latencia al guardado.
+     * @param snapshot Versión que se acaba de escribir en config.json
+     */
+    public void onSaved(ConfigurationSnapshot snapshot) {
+        if (!snapshot.getBoolean(ConfigKey.BACKUP_ENABLED)) {
+            return;
+        }
+        BackgroundScheduler.get().execute(() -> {
+            try {
+                record(snapshot);
+            } catch (IOException e) {
+                System.err.println("Error al crear el respaldo: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Escribe el respaldo de una versión (delta o copia completa) y aplica la retención
+     * @param snapshot Versión a respaldar
+     * @throws IOException Si hay error al escribir el respaldo
+     */
+    synchronized void record(ConfigurationSnapshot snapshot) throws IOException {
+        Path target = resolveDirectory(snapshot);
+        PersistentConfigurationMap values = snapshot.asMap();
+        long version = lastVersion + 1;
+        boolean full = lastValues == null || version - lastFullVersion >= FULL_SNAPSHOT_EVERY;
+
+        Map<String, Object> content = new HashMap<>();
+        if (full) {
+            content.putAll(values);
+        } else {
+            Map<String, Object> set = new HashMap<>();
+            List<Object> removed = new ArrayList<>();
+            // Solo se comparan las claves de los subárboles que no comparten las dos versiones
+            Set<String> candidates = new HashSet<>();
+            PersistentConfigurationMap.collectChangedKeys(lastValues, values, candidates);
+            for (String key : candidates) {
+                if (!values.containsKey(key)) {
+                    if (lastValues.containsKey(key)) {
+                        removed.add(key);
+                    }
+                } else if (!lastValues.containsKey(key)
+                        || !ConfigurationChangeEvent.sameValue(lastValues.get(key), values.get(key))) {
+                    set.put(key, values.get(key));
+                }
+            }
+            if (set.isEmpty() && removed.isEmpty()) {
+                return; // Nada que respaldar
+            }
+            content.put("set", set);
+            content.put("removed", removed);
+        }
+
+        write(target.resolve(fileName(version, full)), JSONValue.toJSONString(content));
+        lastVersion = version;
+        lastValues = values;
+        if (full) {
+            lastFullVersion = version;
+            evictOldChains(target);
+        }
+    }
+
+    /**
+     * Determina el directorio de respaldo y, si cambió, continúa la numeración existente
+     */
+    private Path resolveDirectory(ConfigurationSnapshot snapshot) throws IOException {
+        String configured = snapshot.getString(ConfigKey.BACKUP_DIRECTORY);
+        Path target = Paths.get(configured != null ? configured : "./backup");
+        if (subdirectory != null) {
+            target = target.resolve(subdirectory);
+        }
+        target = target.toAbsolutePath();
+        if (!target.equals(directory)) {
+            Files.createDirectories(target);
+            directory = target;
+            SortedSet<Long> existing = listVersions();
+            lastVersion = existing.isEmpty() ? -1 : existing.last();
+            lastFullVersion = -1;
+            lastValues = null; // La primera versión en un directorio nuevo es siempre completa
+        }
+        return target;
+    }
+
+    /**
+     * Restaura la configuración de una versión de respaldo
+     * @param version Versión a restaurar
+     * @return Valores de la configuración en esa versión
+     * @throws IOException Si la versión no existe o no se puede leer
+     */
+    public synchronized Map<String, Object> restore(long version) throws IOException {
+        SortedMap<Long, Boolean> backups = listBackups();
+        if (!backups.containsKey(version)) {
+            throw new FileNotFoundException("No existe la versión de respaldo " + version);
+        }
+        long fullVersion = -1;
+        for (Map.Entry<Long, Boolean> backup : backups.headMap(version + 1).entrySet()) {
+            if (backup.getValue()) {
+                fullVersion = backup.getKey();
+            }
+        }
+        if (fullVersion < 0) {
+            throw new FileNotFoundException("No hay copia completa para la versión " + version);
+        }
+
+        Map<String, Object> values = new HashMap<>();
+        putAll(values, read(directory.resolve(fileName(fullVersion, true))));
+        for (long v = fullVersion + 1; v <= version; v++) {
+            if (!Boolean.FALSE.equals(backups.get(v))) {
+                throw new FileNotFoundException("Falta el delta de la versión " + v);
+            }
+            JSONObject content = read(directory.resolve(fileName(v, false)));
+            putAll(values, (JSONObject) content.get("set"));
+            for (Object key : (JSONArray) content.get("removed")) {
+                values.remove(key);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Lista las versiones disponibles en el directorio de respaldo actual
+     * @return Versiones ordenadas de menor a mayor
+     * @throws IOException Si hay error al leer el directorio
+     */
+    public synchronized SortedSet<Long> listVersions() throws IOException {
+        return new TreeSet<>(listBackups().keySet());
+    }
+
+    /**
+     * Lista los archivos de respaldo del directorio actual con una sola lectura del directorio
+     * @return Para cada versión, true si es una copia completa y false si es un delta
+     */
+    private SortedMap<Long, Boolean> listBackups() throws IOException {
+        if (directory == null) {
+            resolveDirectory(source.get());
+        }
+        SortedMap<Long, Boolean> backups = new TreeMap<>();
+        if (!Files.isDirectory(directory)) {
+            return backups;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> {
+                Matcher matcher = FILE_PATTERN.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    // Si hay ambos archivos para una versión prevalece la copia completa
+                    backups.merge(Long.parseLong(matcher.group(1)), "full".equals(matcher.group(2)), Boolean::logicalOr);
+                }
+            });
+        }
+        return backups;
+    }
+
+    /**
+     * Elimina las cadenas (copia completa y sus deltas) que exceden MAX_CHAINS
+     */
+    private void evictOldChains(Path target) throws IOException {
+        List<Long> fulls = new ArrayList<>();
+        for (Map.Entry<Long, Boolean> backup : listBackups().entrySet()) {
+            if (backup.getValue()) {
+                fulls.add(backup.getKey());
+            }
+        }
+        if (fulls.size() <= MAX_CHAINS) {
+            return;
+        }
+        long oldestKept = fulls.get(fulls.size() - MAX_CHAINS);
+        for (long version : listVersions()) {
+            if (version < oldestKept) {
+                Files.deleteIfExists(target.resolve(fileName(version, true)));
+                Files.deleteIfExists(target.resolve(fileName(version, false)));
+            }
+        }
+    }
+
+    private static String fileName(long version, boolean full) {
+        return String.format("config-%08d.%s.json.gz", version, full ? "full" : "delta");
+    }
+
+    private static void write(Path file, String json) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(temp))) {
+            out.write(json.getBytes(StandardCharsets.UTF_8));
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Copia los pares de un objeto JSON leído (de tipo crudo) en un mapa tipado
+     */
+    private static void putAll(Map<String, Object> target, Map<?, ?> json) {
+        for (Map.Entry<?, ?> entry : json.entrySet()) {
+            target.put((String) entry.getKey(), entry.getValue());
+        }
+    }
+
+    private static JSONObject read(Path file) throws IOException {
+        try (Reader reader = new InputStreamReader(new GZIPInputStream(Files.newInputStream(file)),
+                StandardCharsets.UTF_8)) {
+            return (JSONObject) new JSONParser().parse(reader);
+        } catch (org.json.simple.parser.ParseException e) {
+            throw new IOException("Respaldo corrupto " + file.getFileName() + ": " + e);
+        }
+    }
+}
@@ -0,0 +1,206 @@
+import java.awt.Component;
+import java.awt.event.HierarchyEvent;
+import java.awt.event.HierarchyListener;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import javax.swing.SwingUtilities;
+
+/**
+ * Reloj compartido por todas las vistas que muestran la hora.
+ *
+ * En lugar de un hilo por ventana, un único latido por segundo (alineado al cambio de
+ * segundo) se programa en un hilo propio del reloj y se reparte a los suscriptores en el
+ * hilo de eventos de Swing. No usa el {@link BackgroundScheduler}: allí los guardados y
+ * respaldos escriben en disco y retrasarían el latido. Los suscriptores cuyo componente
+ * no se está mostrando, o que están en pausa, no reciben latidos; si no queda ninguno
+ * activo, el latido se deja de programar.
+ *
+ * También guarda los formateadores de hora (inmutables) por formato e idioma para no
+ * crearlos en cada actualización.
+ */
+public final class ClockTicker {
+    // Margen tras el cambio de segundo para no despertar justo antes de él
+    private static final long TICK_OFFSET_MILLIS = 5;
+
+    private static final Map<String, Map<String, DateTimeFormatter>> FORMATTERS = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "clock-ticker");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private int active;
+    private ScheduledFuture<?> nextTick;
+
+    private ClockTicker() {
+    }
+
+    // Inicialización perezosa y segura entre hilos (idiom del holder)
+    private static final class Holder {
+        private static final ClockTicker INSTANCE = new ClockTicker();
+    }
+
+    /**
+     * Obtiene el reloj compartido
+     * @return Reloj único
+     */
+    public static ClockTicker get() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Suscribe una vista al latido. Recibe la hora en el hilo de eventos de Swing cada
+     * segundo mientras su componente se muestra, y una vez al volver a mostrarse.
+     * @param owner Componente que muestra la hora
+     * @param listener Receptor de la hora actual
+     * @return Suscripción, que debe cancelarse al desechar la vista
+     */
+    public Subscription subscribe(Component owner, Consumer<LocalDateTime> listener) {
+        Subscription subscription = new Subscription(owner, listener);
+        subscriptions.add(subscription);
+        owner.addHierarchyListener(subscription);
+        subscription.updateActive();
+        return subscription;
+    }
+
+    /**
+     * Obtiene el formateador de hora para un formato de la configuración y un idioma
+     * @param timeFormat "24H" o "AM/PM"
+     * @param language Código de idioma de la configuración (por ejemplo "ES")
+     * @return Formateador compartido
+     */
+    public static DateTimeFormatter formatter(String timeFormat, String language) {
+        Map<String, DateTimeFormatter> byLanguage = FORMATTERS.get(timeFormat);
+        if (byLanguage == null) {
+            byLanguage = FORMATTERS.computeIfAbsent(timeFormat, format -> new ConcurrentHashMap<>());
+        }
+        DateTimeFormatter formatter = byLanguage.get(language);
+        if (formatter == null) {
+            String pattern = "24H".equals(timeFormat) ? "HH:mm:ss" : "hh:mm:ss a";
+            formatter = DateTimeFormatter.ofPattern(pattern, Locale.forLanguageTag(language.toLowerCase(Locale.ROOT)));
+            byLanguage.putIfAbsent(language, formatter);
+        }
+        return formatter;
+    }
+
+    /**
+     * @return Número de suscripciones que reciben latidos en este momento
+     */
+    public synchronized int getActiveCount() {
+        return active;
+    }
+
+    private synchronized void setActive(Subscription subscription, boolean nowActive) {
+        if (subscription.counted == nowActive) {
+            return;
+        }
+        subscription.counted = nowActive;
+        active += nowActive ? 1 : -1;
+        if (active > 0 && nextTick == null) {
+            scheduleNextTick();
+        } else if (active == 0 && nextTick != null) {
+            nextTick.cancel(false);
+            nextTick = null;
+        }
+    }
+
+    private void scheduleNextTick() {
+        long delay = 1000 - System.currentTimeMillis() % 1000 + TICK_OFFSET_MILLIS;
+        nextTick = scheduler.schedule(this::tick, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void tick() {
+        synchronized (this) {
+            if (nextTick == null) {
+                return; // Se cancelaron todas las suscripciones activas
+            }
+            // Se reprograma en cada latido para seguir alineado al segundo del reloj
+            scheduleNextTick();
+        }
+        SwingUtilities.invokeLater(this::dispatch);
+    }
+
+    private void dispatch() {
+        LocalDateTime now = LocalDateTime.now();
+        for (Subscription subscription : subscriptions) {
+            if (subscription.counted) {
+                subscription.deliver(now);
+            }
+        }
+    }
+
+    /**
+     * Suscripción de una vista al reloj
+     */
+    public final class Subscription implements HierarchyListener {
+        private final Component owner;
+        private final Consumer<LocalDateTime> listener;
+        private volatile boolean paused;
+        private volatile boolean cancelled;
+        // Si cuenta como activa; protegido por el lock del reloj
+        private volatile boolean counted;
+
+        private Subscription(Component owner, Consumer<LocalDateTime> listener) {
+            this.owner = owner;
+            this.listener = listener;
+        }
+
+        /**
+         * Pausa o reanuda los latidos (por ejemplo, al minimizar la ventana)
+         * @param paused true para dejar de recibirlos
+         */
+        public void setPaused(boolean paused) {
+            this.paused = paused;
+            updateActive();
+        }
+
+        /**
+         * Deja de recibir latidos definitivamente
+         */
+        public void cancel() {
+            cancelled = true;
+            owner.removeHierarchyListener(this);
+            subscriptions.remove(this);
+            updateActive();
+        }
+
+        public boolean isActive() {
+            return counted;
+        }
+
+        @Override
+        public void hierarchyChanged(HierarchyEvent e) {
+            if ((e.getChangeFlags() & HierarchyEvent.SHOWING_CHANGED) != 0) {
+                updateActive();
+            }
+        }
+
+        private void updateActive() {
+            boolean wasActive = counted;
+            setActive(this, !cancelled && !paused && owner.isShowing());
+            if (counted && !wasActive) {
+                // Al volver a mostrarse se actualiza sin esperar al siguiente latido
+                SwingUtilities.invokeLater(() -> deliver(LocalDateTime.now()));
+            }
+        }
+
+        private void deliver(LocalDateTime now) {
+            try {
+                listener.accept(now);
+            } catch (RuntimeException e) {
+                System.err.println("Error al actualizar la hora: " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,236 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Clave de configuración tipada.
+ * Cada clave se resuelve una única vez, al cargar la clase, a una posición
+ * (slot) dentro del arreglo primitivo de su tipo en {@link ConfigurationSnapshot}.
+ * Así las lecturas tipadas son un acceso a arreglo, sin hashing, boxing ni casts.
+ *
+ * Las declaraciones de abajo son también el esquema de la configuración: tipo, valor
+ * por defecto, rango (enteros) y valores permitidos o formato (cadenas). {@link ConfigurationSchema}
+ * las compila en validadores por clave.
+ *
+ * @param <T> Tipo del valor asociado a la clave
+ */
+public final class ConfigKey<T> {
+
+    /**
+     * Tipo de almacenamiento de la clave dentro de la instantánea
+     */
+    public enum Kind {
+        INT, BOOLEAN, STRING
+    }
+
+    // Contadores de slots por tipo; deben declararse antes que las claves
+    private static int intSlots;
+    private static int booleanSlots;
+    private static int stringSlots;
+    private static final List<ConfigKey<?>> KEYS = new ArrayList<>();
+    private static final Map<String, ConfigKey<?>> BY_NAME = new HashMap<>();
+
+    public static final ConfigKey<String> DEFAULT_CURRENCY = string("defaultCurrency", "USD");
+    public static final ConfigKey<String> TIME_FORMAT = string("timeFormat", "24H", "24H", "AM/PM");
+    public static final ConfigKey<Integer> MAX_CONNECTIONS = integer("maxConnections", 10, 1, 100_000);
+    public static final ConfigKey<String> LANGUAGE = string("language", "EN", "ES", "EN", "FR", "DE");
+    public static final ConfigKey<Integer> AUTO_SAVE_INTERVAL = integer("autoSaveInterval", 5, 0, 1440);
+    public static final ConfigKey<Boolean> ENABLE_LOGS = bool("enableLogs", true);
+    public static final ConfigKey<String> THEME = string("theme", "light", "light", "dark");
+    public static final ConfigKey<String> REGION = string("region", "GLOBAL");
+    public static final ConfigKey<Boolean> BACKUP_ENABLED = bool("backupEnabled", true);
+    public static final ConfigKey<String> BACKUP_DIRECTORY = string("backupDirectory", "./backup");
+    public static final ConfigKey<Integer> CONNECTION_TIMEOUT = integer("connectionTimeout", 1000, 0, 600_000);
+    public static final ConfigKey<Integer> IDLE_TIMEOUT = integer("idleTimeout", 60, 1, 86_400);
+
+    // Modelo de carga del simulador (ver WorkloadProfile)
+    public static final ConfigKey<String> LATENCY_DISTRIBUTION =
+        string("latencyDistribution", "uniform", "uniform", "lognormal", "pareto");
+    public static final ConfigKey<Integer> LATENCY_MIN_MS = integer("latencyMinMs", 200, 0, 600_000);
+    public static final ConfigKey<Integer> LATENCY_MEDIAN_MS = integer("latencyMedianMs", 450, 0, 600_000);
+    public static final ConfigKey<Integer> LATENCY_MAX_MS = integer("latencyMaxMs", 700, 0, 600_000);
+    public static final ConfigKey<Integer> SUCCESS_RATE = integer("successRate", 70, 0, 100);
+    public static final ConfigKey<Integer> ARRIVAL_RATE = integer("arrivalRate", 0, 0, 1_000_000);
+    public static final ConfigKey<String> ARRIVAL_PROCESS = string("arrivalProcess", "poisson", "poisson", "constant");
+    public static final ConfigKey<String> BURST_PATTERN = formatted("burstPattern", "",
+        "\\d+:\\d+:\\d+", "'intervalo_ms:duración_ms:multiplicador' (por ejemplo 10000:2000:5) o vacío",
+        WorkloadProfile::parseBurstPattern);
+    public static final ConfigKey<String> FAILURE_WINDOWS = formatted("failureWindows", "",
+        "\\d+-\\d+:\\d+(,\\d+-\\d+:\\d+)*", "'inicio_ms-fin_ms:porcentaje,...' (por ejemplo 2000-4000:100) o vacío",
+        WorkloadProfile::parseFailureWindows);
+    public static final ConfigKey<Integer> SIMULATION_SEED = integer("simulationSeed", 0, Integer.MIN_VALUE,
+        Integer.MAX_VALUE);
+
+    private final String name;
+    private final Kind kind;
+    private final int slot;
+    private final T defaultValue;
+    private final int min;
+    private final int max;
+    private final List<String> allowedValues;
+    private final Pattern format;
+    private final String formatDescription;
+    private final Consumer<String> formatCheck;
+
+    private ConfigKey(String name, Kind kind, int slot, T defaultValue, int min, int max, List<String> allowedValues,
+                      Pattern format, String formatDescription, Consumer<String> formatCheck) {
+        this.name = name;
+        this.kind = kind;
+        this.slot = slot;
+        this.defaultValue = defaultValue;
+        this.min = min;
+        this.max = max;
+        this.allowedValues = allowedValues;
+        this.format = format;
+        this.formatDescription = formatDescription;
+        this.formatCheck = formatCheck;
+    }
+
+    private static ConfigKey<Integer> integer(String name, int defaultValue, int min, int max) {
+        return register(new ConfigKey<>(name, Kind.INT, intSlots++, defaultValue, min, max, null, null, null, null));
+    }
+
+    private static ConfigKey<Boolean> bool(String name, boolean defaultValue) {
+        return register(new ConfigKey<>(name, Kind.BOOLEAN, booleanSlots++, defaultValue, 0, 0, null, null, null,
+            null));
+    }
+
+    /**
+     * @param allowedValues Valores permitidos; si se omite, se acepta cualquier cadena
+     */
+    private static ConfigKey<String> string(String name, String defaultValue, String... allowedValues) {
+        return register(new ConfigKey<>(name, Kind.STRING, stringSlots++, defaultValue, 0, 0,
+            allowedValues.length == 0 ? null : Collections.unmodifiableList(Arrays.asList(allowedValues)),
+            null, null, null));
+    }
+
+    /**
+     * Clave de texto que debe estar vacía o cumplir una expresión regular
+     * @param regex Formato de los valores no vacíos
+     * @param description Formato esperado, para los mensajes de error
+     * @param check Comprobación de lo que la expresión no puede expresar (por ejemplo,
+     *              que un valor no supere a otro); lanza IllegalArgumentException si falla
+     */
+    private static ConfigKey<String> formatted(String name, String defaultValue, String regex, String description,
+                                               Consumer<String> check) {
+        return register(new ConfigKey<>(name, Kind.STRING, stringSlots++, defaultValue, 0, 0, null,
+            Pattern.compile(regex), description, check));
+    }
+
+    private static <T> ConfigKey<T> register(ConfigKey<T> key) {
+        KEYS.add(key);
+        BY_NAME.put(key.name, key);
+        return key;
+    }
+
+    /**
+     * Busca la clave tipada asociada a un nombre
+     * @param name Nombre de la clave en config.json
+     * @return La clave tipada, o null si el nombre no es una clave conocida
+     */
+    public static ConfigKey<?> forName(String name) {
+        return BY_NAME.get(name);
+    }
+
+    /**
+     * Obtiene todas las claves tipadas conocidas
+     * @return Lista inmutable de claves, en orden de declaración
+     */
+    public static List<ConfigKey<?>> values() {
+        return Collections.unmodifiableList(KEYS);
+    }
+
+    /**
+     * Obtiene los valores por defecto de todas las claves conocidas
+     * @return Mapa nuevo con un valor por clave
+     */
+    public static Map<String, Object> defaults() {
+        Map<String, Object> defaults = new HashMap<>();
+        for (ConfigKey<?> key : KEYS) {
+            defaults.put(key.name, key.defaultValue);
+        }
+        return defaults;
+    }
+
+    static int slotCount(Kind kind) {
+        switch (kind) {
+            case INT:
+                return intSlots;
+            case BOOLEAN:
+                return booleanSlots;
+            default:
+                return stringSlots;
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public T getDefaultValue() {
+        return defaultValue;
+    }
+
+    /**
+     * Valor mínimo permitido (solo claves enteras)
+     */
+    public int getMin() {
+        return min;
+    }
+
+    /**
+     * Valor máximo permitido (solo claves enteras)
+     */
+    public int getMax() {
+        return max;
+    }
+
+    /**
+     * Valores permitidos (solo claves de texto)
+     * @return Lista inmutable, o null si se acepta cualquier cadena
+     */
+    public List<String> getAllowedValues() {
+        return allowedValues;
+    }
+
+    /**
+     * Formato de los valores no vacíos (solo claves de texto)
+     * @return Expresión compilada, o null si no se exige un formato
+     */
+    public Pattern getFormat() {
+        return format;
+    }
+
+    /**
+     * Descripción del formato exigido, para los mensajes de error
+     */
+    public String getFormatDescription() {
+        return formatDescription;
+    }
+
+    /**
+     * Comprobación adicional de los valores que cumplen el formato (solo claves de texto)
+     * @return Comprobación que lanza IllegalArgumentException, o null si basta el formato
+     */
+    public Consumer<String> getFormatCheck() {
+        return formatCheck;
+    }
+
+    int getSlot() {
+        return slot;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
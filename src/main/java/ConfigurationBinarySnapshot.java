@@ -0,0 +1,262 @@
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+
+/**
+ * Copia binaria de la configuración que se guarda junto a config.json (config.json.bin)
+ * para evitar interpretar el JSON en cada arranque.
+ *
+ * Formato (big-endian):
+ * <pre>
+ *   int     magia "CFGB"
+ *   int     versión del formato
+ *   byte[32] SHA-256 del config.json del que se generó
+ *   int     longitud del contenido
+ *   int     CRC32 del contenido
+ *   ...     contenido: número de entradas y pares clave-valor etiquetados
+ * </pre>
+ * La copia solo se usa si el hash coincide con el config.json actual; si falta, es de
+ * otra versión del formato o está dañada, se ignora y se vuelve a interpretar el JSON.
+ * Los valores se reconstruyen con los mismos tipos que produce {@link ConfigurationParser}.
+ */
+public final class ConfigurationBinarySnapshot {
+    static final int MAGIC = 0x43464742;
+    static final int FORMAT_VERSION = 1;
+    static final int HASH_SIZE = 32;
+    static final int HEADER_SIZE = 4 + 4 + HASH_SIZE + 4 + 4;
+
+    static final byte NULL = 0;
+    static final byte TRUE = 1;
+    static final byte FALSE = 2;
+    static final byte LONG = 3;
+    static final byte DOUBLE = 4;
+    static final byte STRING = 5;
+    static final byte OBJECT = 6;
+    static final byte ARRAY = 7;
+
+    private ConfigurationBinarySnapshot() {
+    }
+
+    /**
+     * Ruta de la copia binaria de un archivo de configuración
+     * @param configFile Ruta del archivo JSON
+     * @return Ruta hermana con la extensión .bin añadida
+     */
+    public static Path pathFor(Path configFile) {
+        return configFile.resolveSibling(configFile.getFileName() + ".bin");
+    }
+
+    /**
+     * Lee la copia binaria si corresponde al contenido JSON indicado
+     * @param file Ruta de la copia binaria
+     * @param sourceHash SHA-256 del config.json actual
+     * @return Configuración, o null si la copia no existe, no coincide o no es válida
+     */
+    public static Map<String, Object> read(Path file, byte[] sourceHash) {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+                return null;
+            }
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+                return null;
+            }
+            byte[] hash = new byte[HASH_SIZE];
+            buffer.get(hash);
+            if (!Arrays.equals(hash, sourceHash)) {
+                return null;
+            }
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (length != size - HEADER_SIZE) {
+                return null;
+            }
+            CRC32 crc = new CRC32();
+            crc.update(buffer.duplicate());
+            if ((int) crc.getValue() != checksum) {
+                return null;
+            }
+            return new Reader(buffer).readConfiguration();
+        } catch (IOException | RuntimeException e) {
+            // Copia ilegible o truncada: se vuelve a usar el JSON
+            return null;
+        }
+    }
+
+    /**
+     * Escribe la copia binaria de forma atómica (archivo temporal y renombrado).
+     * No se sincroniza con el disco: si se pierde o queda dañada, el CRC la invalida y
+     * simplemente se vuelve a interpretar el JSON.
+     * @param file Ruta de la copia binaria
+     * @param sourceHash SHA-256 del config.json del que proviene la configuración
+     * @param configuration Configuración tal como la devolvió {@link ConfigurationParser}
+     * @throws IOException Si hay error al escribir
+     */
+    public static void write(Path file, byte[] sourceHash, Map<String, Object> configuration) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(HEADER_SIZE + configuration.size() * 32);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.write(new byte[HEADER_SIZE]);
+        out.writeInt(configuration.size());
+        for (Map.Entry<String, Object> entry : configuration.entrySet()) {
+            writeString(out, entry.getKey());
+            writeValue(out, entry.getValue());
+        }
+        out.flush();
+
+        ByteBuffer content = ByteBuffer.wrap(bytes.toByteArray());
+        CRC32 crc = new CRC32();
+        crc.update(content.array(), HEADER_SIZE, content.capacity() - HEADER_SIZE);
+        content.putInt(MAGIC).putInt(FORMAT_VERSION).put(sourceHash)
+            .putInt(content.capacity() - HEADER_SIZE).putInt((int) crc.getValue());
+        content.rewind();
+
+        Path temp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                while (content.hasRemaining()) {
+                    channel.write(content);
+                }
+            }
+            ConfigurationLoader.moveAtomically(temp, file);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Escribe un valor etiquetado con el formato de la copia binaria (también lo usa
+     * {@link SharedConfigurationPublisher}). Los Integer se guardan como Long.
+     */
+    static void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof Boolean) {
+            out.writeByte((Boolean) value ? TRUE : FALSE);
+        } else if (value instanceof Long || value instanceof Integer) {
+            out.writeByte(LONG);
+            out.writeLong(((Number) value).longValue());
+        } else if (value instanceof Double) {
+            out.writeByte(DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof String) {
+            out.writeByte(STRING);
+            writeString(out, (String) value);
+        } else if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            out.writeByte(OBJECT);
+            out.writeInt(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                writeString(out, (String) entry.getKey());
+                writeValue(out, entry.getValue());
+            }
+        } else if (value instanceof List) {
+            List<?> list = (List<?>) value;
+            out.writeByte(ARRAY);
+            out.writeInt(list.size());
+            for (Object element : list) {
+                writeValue(out, element);
+            }
+        } else {
+            throw new IOException("Tipo no admitido en la copia binaria: " + value.getClass().getName());
+        }
+    }
+
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(encoded.length);
+        out.write(encoded);
+    }
+
+    /**
+     * Decodifica el contenido de una copia ya validada, o de la región compartida
+     * ({@link SharedConfigurationRegion}) a partir de la posición del búfer
+     */
+    static final class Reader {
+        private final ByteBuffer buffer;
+        private byte[] scratch = new byte[64];
+
+        Reader(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        Map<String, Object> readConfiguration() {
+            int count = buffer.getInt();
+            Map<String, Object> configuration = new HashMap<>(capacityFor(count));
+            for (int i = 0; i < count; i++) {
+                configuration.put(ConfigurationParser.internKey(readString()), readValue());
+            }
+            if (buffer.hasRemaining()) {
+                throw new IllegalStateException("Contenido sobrante en la copia binaria");
+            }
+            return configuration;
+        }
+
+        @SuppressWarnings("unchecked")
+        Object readValue() {
+            byte tag = buffer.get();
+            switch (tag) {
+                case NULL:
+                    return null;
+                case TRUE:
+                    return Boolean.TRUE;
+                case FALSE:
+                    return Boolean.FALSE;
+                case LONG:
+                    return buffer.getLong();
+                case DOUBLE:
+                    return buffer.getDouble();
+                case STRING:
+                    return readString();
+                case OBJECT:
+                    int entries = buffer.getInt();
+                    JSONObject object = new JSONObject();
+                    for (int i = 0; i < entries; i++) {
+                        object.put(ConfigurationParser.internKey(readString()), readValue());
+                    }
+                    return object;
+                case ARRAY:
+                    int elements = buffer.getInt();
+                    JSONArray array = new JSONArray();
+                    for (int i = 0; i < elements; i++) {
+                        array.add(readValue());
+                    }
+                    return array;
+                default:
+                    throw new IllegalStateException("Etiqueta desconocida en la copia binaria: " + tag);
+            }
+        }
+
+        String readString() {
+            int length = buffer.getInt();
+            if (length < 0 || length > buffer.remaining()) {
+                throw new IllegalStateException("Longitud de cadena inválida en la copia binaria");
+            }
+            if (length > scratch.length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            buffer.get(scratch, 0, length);
+            return new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+
+        private static int capacityFor(int entries) {
+            return entries < 0 ? 16 : (int) Math.min(Integer.MAX_VALUE, entries * 4L / 3 + 1);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Describe el paso de una versión de la configuración a la siguiente,
+ * incluyendo el conjunto de claves cuyo valor cambió.
+ */
+public final class ConfigurationChangeEvent {
+    private final ConfigurationSnapshot previous;
+    private final ConfigurationSnapshot current;
+    private final Set<String> changedKeys;
+
+    private ConfigurationChangeEvent(ConfigurationSnapshot previous, ConfigurationSnapshot current,
+                                     Set<String> changedKeys) {
+        this.previous = previous;
+        this.current = current;
+        this.changedKeys = changedKeys;
+    }
+
+    /**
+     * Calcula la diferencia entre dos versiones
+     * @param previous Versión anterior
+     * @param current Versión nueva
+     * @return Evento con las claves añadidas, eliminadas o modificadas
+     */
+    public static ConfigurationChangeEvent between(ConfigurationSnapshot previous, ConfigurationSnapshot current) {
+        PersistentConfigurationMap before = previous.asMap();
+        PersistentConfigurationMap after = current.asMap();
+        // Solo se comparan las claves de los subárboles que no comparten ambas versiones
+        List<String> candidates = new ArrayList<>();
+        PersistentConfigurationMap.collectChangedKeys(before, after, candidates);
+        Set<String> changed = new HashSet<>();
+        for (String key : candidates) {
+            if (before.containsKey(key) != after.containsKey(key) || !sameValue(before.get(key), after.get(key))) {
+                changed.add(key);
+            }
+        }
+        return new ConfigurationChangeEvent(previous, current, Collections.unmodifiableSet(changed));
+    }
+
+    /**
+     * Compara dos valores tratando como iguales los enteros de distinto tipo
+     * (json-simple produce Long y los setters guardan Integer)
+     */
+    static boolean sameValue(Object a, Object b) {
+        if (a instanceof Number && b instanceof Number
+                && !(a instanceof Double || a instanceof Float)
+                && !(b instanceof Double || b instanceof Float)) {
+            return ((Number) a).longValue() == ((Number) b).longValue();
+        }
+        return Objects.equals(a, b);
+    }
+
+    public ConfigurationSnapshot getPrevious() {
+        return previous;
+    }
+
+    public ConfigurationSnapshot getCurrent() {
+        return current;
+    }
+
+    public Set<String> getChangedKeys() {
+        return changedKeys;
+    }
+
+    public boolean isEmpty() {
+        return changedKeys.isEmpty();
+    }
+
+    public boolean hasChanged(String key) {
+        return changedKeys.contains(key);
+    }
+
+    public boolean hasChanged(ConfigKey<?> key) {
+        return changedKeys.contains(key.getName());
+    }
+}
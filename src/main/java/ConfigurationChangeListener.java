@@ -0,0 +1,13 @@
+/**
+ * Recibe notificaciones cuando se publica una nueva versión de la configuración,
+ * ya sea por un cambio en memoria o por la recarga en caliente de config.json.
+ */
+public interface ConfigurationChangeListener {
+
+    /**
+     * Se invoca en el hilo que publicó el cambio; las interfaces Swing deben
+     * reenviar el trabajo al hilo de eventos con SwingUtilities.invokeLater
+     * @param event Diferencia entre la versión anterior y la nueva
+     */
+    void configurationChanged(ConfigurationChangeEvent event);
+}
@@ -0,0 +1,20 @@
+/**
+ * Origen de un valor de configuración, de menor a mayor precedencia.
+ * Cuando una clave está definida en varias capas, gana la de mayor precedencia.
+ */
+public enum ConfigurationLayer {
+    /** Valores por defecto de {@link ConfigKey} */
+    DEFAULTS,
+    /** Archivo base (config.json) */
+    BASE_FILE,
+    /** Archivo de la región actual (config.region.&lt;región&gt;.json) */
+    REGION_FILE,
+    /** Archivo del entorno (config.env.&lt;entorno&gt;.json) */
+    ENVIRONMENT_FILE,
+    /** Variables de entorno CONFIG_&lt;CLAVE&gt; (por ejemplo CONFIG_MAX_CONNECTIONS) */
+    ENVIRONMENT_VARIABLES,
+    /** Propiedades del sistema -Dconfig.&lt;clave&gt; */
+    SYSTEM_PROPERTIES,
+    /** Valor modificado en tiempo de ejecución y aún no recargado desde las capas */
+    RUNTIME
+}
@@ -1,50 +1,123 @@
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
 import org.json.simple.JSONObject;
-import org.json.simple.parser.JSONParser;
 
 /**
  * Clase responsable de cargar y guardar la configuración desde/hacia archivos JSON
  */
-public class ConfigurationLoader {
+public class ConfigurationLoader implements ConfigurationStore {
     private static final String CONFIG_FILE = "config.json";
     
+    // Métricas compartidas por todos los cargadores (ver Metrics)
+    private static final String METRICS_GROUP = "ConfigurationLoader";
+    private static final Metrics.Timer LOAD_TIME = Metrics.get().timer(METRICS_GROUP, "load");
+    private static final Metrics.Timer PARSE_TIME = Metrics.get().timer(METRICS_GROUP, "parse");
+    private static final Metrics.Timer SAVE_TIME = Metrics.get().timer(METRICS_GROUP, "save");
+    private static final Metrics.Counter SNAPSHOT_HITS = Metrics.get().counter(METRICS_GROUP, "binarySnapshotHits");
+    private static final Metrics.Counter BYTES_READ = Metrics.get().counter(METRICS_GROUP, "bytesRead");
+    private static final Metrics.Counter BYTES_WRITTEN = Metrics.get().counter(METRICS_GROUP, "bytesWritten");
+    private static final Metrics.Counter ERRORS = Metrics.get().counter(METRICS_GROUP, "errors");
+    
+    private final Path configFile;
+    private final boolean binarySnapshot;
+    
+    // Hash del último contenido leído o escrito por este cargador
+    private volatile byte[] lastContentHash;
+    
+    /**
+     * Crea un cargador para config.json en el directorio de trabajo
+     */
+    public ConfigurationLoader() {
+        this(Paths.get(CONFIG_FILE));
+    }
+    
+    /**
+     * Crea un cargador para un archivo de configuración concreto
+     * @param configFile Ruta del archivo JSON
+     */
+    public ConfigurationLoader(Path configFile) {
+        this(configFile, true);
+    }
+    
+    /**
+     * Crea un cargador para un archivo de configuración concreto
+     * @param configFile Ruta del archivo JSON
+     * @param binarySnapshot true para usar y mantener la copia binaria junto al archivo
+     */
+    public ConfigurationLoader(Path configFile, boolean binarySnapshot) {
+        this.configFile = configFile.toAbsolutePath();
+        this.binarySnapshot = binarySnapshot;
+    }
+    
     /**
-     * Carga la configuración desde el archivo config.json
+     * Carga la configuración desde el archivo config.json.
+     * Si existe una copia binaria ({@link ConfigurationBinarySnapshot}) generada a partir
+     * de este mismo contenido, se usa en su lugar; si no, el archivo se interpreta en un
+     * solo paso con {@link ConfigurationParser} y se genera la copia para el próximo arranque.
      * @return Mapa con la configuración cargada
      * @throws Exception Si hay error al leer el archivo
      */
     public Map<String, Object> loadConfiguration() throws Exception {
-        Map<String, Object> config = new HashMap<>();
-        
-        if (!Files.exists(Paths.get(CONFIG_FILE))) {
-            throw new FileNotFoundException("Archivo de configuración no encontrado: " + CONFIG_FILE);
+        if (!Files.exists(configFile)) {
+            throw new FileNotFoundException("Archivo de configuración no encontrado: " + configFile.getFileName());
         }
         
-        try (Reader reader = new FileReader(CONFIG_FILE)) {
-            JSONParser parser = new JSONParser();
-            JSONObject jsonObject = (JSONObject) parser.parse(reader);
-            
-            // Convertir JSONObject a Map
-            for (Object key : jsonObject.keySet()) {
-                String keyStr = (String) key;
-                Object value = jsonObject.get(keyStr);
-                config.put(keyStr, value);
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(configFile, StandardOpenOption.READ)) {
+            ByteBuffer content = ConfigurationParser.read(channel);
+            BYTES_READ.add(content.remaining());
+            byte[] hash = contentHash(content);
+            Map<String, Object> config = binarySnapshot
+                ? ConfigurationBinarySnapshot.read(getSnapshotPath(), hash)
+                : null;
+            if (config == null) {
+                long parseStart = System.nanoTime();
+                config = ConfigurationParser.parse(content);
+                PARSE_TIME.record(System.nanoTime() - parseStart);
+                if (binarySnapshot) {
+                    writeSnapshot(hash, config);
+                }
+            } else {
+                SNAPSHOT_HITS.increment();
             }
+            lastContentHash = hash;
+            LOAD_TIME.record(System.nanoTime() - start);
+            return config;
         } catch (Exception e) {
+            ERRORS.increment();
             throw new Exception("Error al parsear el archivo de configuración: " + e.getMessage());
         }
-        
-        return config;
     }
     
     /**
-     * Guarda la configuración en el archivo config.json
+     * Escribe la copia binaria; es solo una caché, así que un fallo no impide la carga
+     */
+    private void writeSnapshot(byte[] hash, Map<String, Object> config) {
+        try {
+            ConfigurationBinarySnapshot.write(getSnapshotPath(), hash, config);
+        } catch (IOException e) {
+            System.err.println("No se pudo escribir la copia binaria de la configuración: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Guarda la configuración en el archivo config.json.
+     * El contenido se escribe en un archivo temporal del mismo directorio, se sincroniza
+     * con el disco y luego se renombra atómicamente sobre config.json, de modo que una
+     * caída a mitad de la escritura nunca deja un archivo corrupto.
      * @param configuration Mapa con la configuración a guardar
+     * @return Duración de la escritura en nanosegundos
      * @throws Exception Si hay error al escribir el archivo
      */
-    public void saveConfiguration(Map<String, Object> configuration) throws Exception {
+    @Override
+    public long saveConfiguration(Map<String, Object> configuration) throws Exception {
+        long start = System.nanoTime();
         JSONObject jsonObject = new JSONObject();
         
         // Convertir Map a JSONObject
@@ -52,39 +125,110 @@ public class ConfigurationLoader {
             jsonObject.put(entry.getKey(), entry.getValue());
         }
         
-        try (FileWriter writer = new FileWriter(CONFIG_FILE)) {
-            writer.write(jsonObject.toJSONString());
-            writer.flush();
+        byte[] content = jsonObject.toJSONString().getBytes(StandardCharsets.UTF_8);
+        Path target = getConfigPath();
+        Path temp = null;
+        try {
+            Files.createDirectories(target.getParent());
+            temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.wrap(content);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            moveAtomically(temp, target);
+            lastContentHash = contentHash(content);
+            syncDirectory(target.getParent());
         } catch (Exception e) {
+            ERRORS.increment();
+            if (temp != null) {
+                Files.deleteIfExists(temp);
+            }
             throw new Exception("Error al escribir el archivo de configuración: " + e.getMessage());
         }
+        long elapsed = System.nanoTime() - start;
+        SAVE_TIME.record(elapsed);
+        BYTES_WRITTEN.add(content.length);
+        return elapsed;
     }
     
     /**
-     * Verifica si existe el archivo de configuración
-     * @return true si existe, false en caso contrario
+     * Reemplaza el destino con el origen mediante un renombrado atómico cuando el
+     * sistema de archivos lo permite
      */
-    public boolean configFileExists() {
-        return Files.exists(Paths.get(CONFIG_FILE));
+    static void moveAtomically(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
     }
     
     /**
-     * Crea un archivo de configuración por defecto
-     * @throws Exception Si hay error al crear el archivo
+     * Sincroniza el directorio para que el renombrado sobreviva a una caída.
+     * No todos los sistemas permiten abrir un directorio; en ese caso se ignora.
      */
-    public void createDefaultConfig() throws Exception {
-        Map<String, Object> defaultConfig = new HashMap<>();
-        defaultConfig.put("defaultCurrency", "USD");
-        defaultConfig.put("timeFormat", "24H");
-        defaultConfig.put("maxConnections", 10);
-        defaultConfig.put("language", "EN");
-        defaultConfig.put("autoSaveInterval", 5);
-        defaultConfig.put("enableLogs", true);
-        defaultConfig.put("theme", "light");
-        defaultConfig.put("region", "GLOBAL");
-        defaultConfig.put("backupEnabled", true);
-        defaultConfig.put("backupDirectory", "./backup");
-        
-        saveConfiguration(defaultConfig);
+    private static void syncDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // No soportado en esta plataforma (por ejemplo, Windows)
+        }
+    }
+    
+    /**
+     * Obtiene la ruta absoluta del archivo de configuración
+     * @return Ruta de config.json
+     */
+    public Path getConfigPath() {
+        return configFile;
+    }
+    
+    /**
+     * Obtiene la ruta de la copia binaria de la configuración
+     * @return Ruta de config.json.bin
+     */
+    public Path getSnapshotPath() {
+        return ConfigurationBinarySnapshot.pathFor(configFile);
+    }
+    
+    /**
+     * Indica si un contenido es distinto del último leído o escrito por este cargador
+     * @param content Bytes actuales del archivo
+     * @return true si el hash del contenido no coincide con el último conocido
+     */
+    public boolean hasContentChanged(byte[] content) {
+        return !Arrays.equals(lastContentHash, contentHash(content));
+    }
+    
+    /**
+     * Calcula el hash SHA-256 de un contenido
+     */
+    static byte[] contentHash(byte[] content) {
+        return contentHash(ByteBuffer.wrap(content));
+    }
+    
+    /**
+     * Calcula el hash SHA-256 del contenido entre la posición y el límite de un búfer,
+     * sin modificar el búfer
+     */
+    static byte[] contentHash(ByteBuffer content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(content.duplicate());
+            return digest.digest();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+    
+    /**
+     * Verifica si existe el archivo de configuración
+     * @return true si existe, false en caso contrario
+     */
+    public boolean configFileExists() {
+        return Files.exists(configFile);
     }
-} 
\ No newline at end of file
+}
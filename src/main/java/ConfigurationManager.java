@@ -1,178 +1,517 @@
-import java.util.HashMap;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 
 /**
  * Clase que implementa el patrón Singleton para gestionar la configuración global
- * de la aplicación.
+ * de la aplicación. La instancia única es el inquilino por defecto; las de los demás
+ * inquilinos se obtienen de {@link ConfigurationRegistry}.
+ *
+ * La configuración se publica como una {@link ConfigurationSnapshot} inmutable a
+ * través de una referencia atómica: los lectores no toman locks ni reservan memoria,
+ * y los escritores publican una nueva versión mediante compare-and-set.
+ *
+ * Las lecturas, escrituras y recargas se cuentan en el grupo de métricas
+ * "ConfigurationManager" (sumando todos los inquilinos; ver {@link Metrics}). Contar una
+ * lectura cuesta un incremento de {@link java.util.concurrent.atomic.LongAdder}; los
+ * bucles muy calientes pueden leer de {@link #getSnapshot()}, que no se cuenta.
  */
 public class ConfigurationManager {
-    private static ConfigurationManager instance;
-    private Map<String, Object> configuration;
-    private ConfigurationLoader loader;
+    private static final String METRICS_GROUP = "ConfigurationManager";
+    private static final Metrics.Counter GETS = Metrics.get().counter(METRICS_GROUP, "gets");
+    private static final Metrics.Counter SETS = Metrics.get().counter(METRICS_GROUP, "sets");
+    private static final Metrics.Counter CAS_RETRIES = Metrics.get().counter(METRICS_GROUP, "casRetries");
+    private static final Metrics.Counter RELOADS = Metrics.get().counter(METRICS_GROUP, "reloads");
+    private static final Metrics.Counter LISTENER_ERRORS = Metrics.get().counter(METRICS_GROUP, "listenerErrors");
+    
+    private final AtomicReference<ConfigurationSnapshot> snapshot;
+    private final LayeredConfiguration layers;
+    private final ConfigurationSaveQueue saveQueue;
+    private final BackupManager backups;
+    private final DerivedValueCache derivedValues;
+    private final List<ConfigurationChangeListener> listeners = new CopyOnWriteArrayList<>();
+    private ConfigurationWatcher watcher;
+    private AutosaveService autosave;
+    private SharedConfigurationPublisher sharedPublisher;
     
     // Constructor privado para implementar Singleton
     private ConfigurationManager() {
-        this.loader = new ConfigurationLoader();
-        this.configuration = new HashMap<>();
-        loadConfiguration();
+        this(new LayeredConfiguration(), null);
+    }
+    
+    /**
+     * Crea el gestor de un inquilino (ver {@link ConfigurationRegistry})
+     * @param layers Capas de las que se resuelve la configuración
+     * @param backupSubdirectory Subdirectorio de respaldos dentro de backupDirectory, o null
+     */
+    ConfigurationManager(LayeredConfiguration layers, String backupSubdirectory) {
+        this.layers = layers;
+        this.snapshot = new AtomicReference<>(ConfigurationSnapshot.of(layers.resolve()));
+        this.saveQueue = new ConfigurationSaveQueue(layers, snapshot::get);
+        this.backups = new BackupManager(snapshot::get, backupSubdirectory);
+        this.saveQueue.setOnSaved(backups::onSaved);
+        this.derivedValues = new DerivedValueCache(snapshot::get,
+            Integer.getInteger("derived.maxEntries", DerivedValueCache.DEFAULT_MAX_ENTRIES));
+    }
+    
+    // Inicialización perezosa y segura entre hilos (idiom del holder)
+    private static final class Holder {
+        private static final ConfigurationManager INSTANCE = create();
+        
+        private static ConfigurationManager create() {
+            ConfigurationManager manager = new ConfigurationManager();
+            Metrics.get().gauge(METRICS_GROUP, "snapshotVersion", () -> manager.snapshot.get().getVersion());
+            Metrics.get().gauge(METRICS_GROUP, "listeners", manager.listeners::size);
+            return manager;
+        }
     }
     
     /**
-     * Obtiene la única instancia de ConfigurationManager (Singleton)
+     * Obtiene la única instancia de ConfigurationManager (Singleton), que corresponde
+     * al inquilino por defecto
      * @return La instancia única de ConfigurationManager
      */
     public static ConfigurationManager getInstance() {
-        if (instance == null) {
-            instance = new ConfigurationManager();
+        return Holder.INSTANCE;
+    }
+    
+    /**
+     * Publica una nueva versión de la configuración con un valor modificado.
+     * El valor se convierte y valida con el esquema antes de publicarse.
+     * Si otro escritor publica antes, se reintenta sobre la versión más reciente.
+     * @throws IllegalArgumentException Si el valor no es válido para la clave
+     */
+    private void update(String key, Object value) {
+        Object converted = ConfigurationSchema.get().convert(key, value);
+        ConfigurationSnapshot current;
+        ConfigurationSnapshot next;
+        while (true) {
+            current = snapshot.get();
+            next = current.with(key, converted);
+            if (snapshot.compareAndSet(current, next)) {
+                break;
+            }
+            CAS_RETRIES.increment();
+        }
+        SETS.increment();
+        fireChange(ConfigurationChangeEvent.between(current, next));
+    }
+    
+    /**
+     * Publica los valores recién leídos del disco (usado por la recarga en caliente). Los
+     * cambios hechos en tiempo de ejecución que aún no se guardaron se vuelven a aplicar
+     * sobre ellos, de modo que el autoguardado los escriba después.
+     * @param values Valores ya validados
+     * @return Diferencia entre la versión anterior y la publicada
+     */
+    public ConfigurationChangeEvent reload(Map<String, Object> values) {
+        return publishAll(values, true);
+    }
+    
+    /**
+     * Reemplaza atómicamente toda la configuración descartando los cambios sin guardar
+     * (usado por la réplica de un líder y al restaurar un respaldo)
+     * @param values Valores ya validados
+     * @return Diferencia entre la versión anterior y la publicada
+     */
+    public ConfigurationChangeEvent replace(Map<String, Object> values) {
+        return publishAll(values, false);
+    }
+    
+    private ConfigurationChangeEvent publishAll(Map<String, Object> values, boolean keepUnsaved) {
+        PersistentConfigurationMap loaded = PersistentConfigurationMap.copyOf(values);
+        ConfigurationSnapshot current;
+        ConfigurationSnapshot next;
+        List<String> unsaved;
+        do {
+            current = snapshot.get();
+            unsaved = keepUnsaved ? saveQueue.unsavedKeys(current) : Collections.emptyList();
+            PersistentConfigurationMap merged = loaded;
+            for (String key : unsaved) {
+                merged = current.asMap().containsKey(key) ? merged.with(key, current.get(key)) : merged.without(key);
+            }
+            next = current.replaceAll(merged);
+        } while (!snapshot.compareAndSet(current, next));
+        if (unsaved.isEmpty()) {
+            saveQueue.markPersisted(next);
+        } else {
+            saveQueue.markLoaded(loaded);
+        }
+        RELOADS.increment();
+        ConfigurationChangeEvent event = ConfigurationChangeEvent.between(current, next);
+        fireChange(event);
+        return event;
+    }
+    
+    private void fireChange(ConfigurationChangeEvent event) {
+        if (event.isEmpty()) {
+            return;
+        }
+        for (ConfigurationChangeListener listener : listeners) {
+            try {
+                listener.configurationChanged(event);
+            } catch (RuntimeException e) {
+                LISTENER_ERRORS.increment();
+                System.err.println("Error en listener de configuración: " + e.getMessage());
+            }
         }
-        return instance;
     }
     
     /**
-     * Carga la configuración desde el archivo config.json
+     * Registra un listener que se notificará con cada cambio de configuración
+     * @param listener Listener a registrar
      */
-    private void loadConfiguration() {
+    public void addChangeListener(ConfigurationChangeListener listener) {
+        listeners.add(listener);
+    }
+    
+    /**
+     * Elimina un listener registrado previamente
+     * @param listener Listener a eliminar
+     */
+    public void removeChangeListener(ConfigurationChangeListener listener) {
+        listeners.remove(listener);
+    }
+    
+    /**
+     * Inicia la vigilancia de config.json para recargar los cambios en caliente.
+     * Llamadas sucesivas no tienen efecto.
+     */
+    public synchronized void startHotReload() {
+        if (watcher == null) {
+            watcher = new ConfigurationWatcher(this, layers);
+            watcher.start();
+        }
+    }
+    
+    /**
+     * Publica cada versión de la configuración en una región de memoria compartida, para
+     * que otros procesos de la máquina la lean sin interpretar config.json (ver
+     * {@link SharedConfigurationRegion}). Llamadas sucesivas no tienen efecto.
+     * @param file Archivo de la región
+     * @param capacity Bytes reservados para la configuración si el archivo es nuevo
+     * @return Escritor de la región
+     * @throws IOException Si no se puede abrir, si otro proceso ya publica en él o si la
+     *         configuración no cabe
+     */
+    public synchronized SharedConfigurationPublisher startSharedPublishing(Path file, int capacity)
+            throws IOException {
+        if (sharedPublisher == null) {
+            SharedConfigurationPublisher publisher = SharedConfigurationPublisher.create(file, capacity);
+            // Se registra antes de publicar para no perder cambios; las versiones repetidas se ignoran
+            addChangeListener(publisher);
+            try {
+                publisher.publish(snapshot.get());
+            } catch (IOException e) {
+                removeChangeListener(publisher);
+                publisher.close();
+                throw e;
+            }
+            sharedPublisher = publisher;
+        }
+        return sharedPublisher;
+    }
+    
+    /**
+     * Obtiene la versión de configuración publicada actualmente
+     * @return Instantánea inmutable vigente
+     */
+    public ConfigurationSnapshot getSnapshot() {
+        return snapshot.get();
+    }
+    
+    /**
+     * Inicia el autoguardado periódico según autoSaveInterval.
+     * Llamadas sucesivas no tienen efecto.
+     */
+    public void startAutosave() {
+        startAutosave(true);
+    }
+    
+    /**
+     * Inicia el autoguardado periódico; los inquilinos no registran un guardado al cerrar
+     * la JVM cada uno, porque el registro guarda todos los cargados
+     * @param flushOnExit Registrar el guardado al cerrar la JVM
+     */
+    synchronized void startAutosave(boolean flushOnExit) {
+        if (autosave == null) {
+            autosave = new AutosaveService(this, saveQueue, flushOnExit);
+            autosave.start();
+        }
+    }
+    
+    /**
+     * Guarda la configuración actual en el archivo config.json de inmediato. Para las
+     * ediciones conviene {@link #requestSave()}, que agrupa las escrituras.
+     */
+    public void save() {
         try {
-            this.configuration = loader.loadConfiguration();
+            long latency = saveQueue.saveNow();
+            System.out.printf("Configuración guardada exitosamente (%.2f ms).%n", latency / 1_000_000.0);
         } catch (Exception e) {
-            System.err.println("Error al cargar configuración: " + e.getMessage());
-            loadDefaultConfiguration();
+            System.err.println("Error al guardar configuración: " + e.getMessage());
         }
     }
     
     /**
-     * Carga la configuración por defecto si hay errores
+     * Escribe los cambios pendientes, si los hay, sin esperar al autoguardado
+     * @throws Exception Si no se puede guardar
      */
-    private void loadDefaultConfiguration() {
-        configuration.put("defaultCurrency", "USD");
-        configuration.put("timeFormat", "24H");
-        configuration.put("maxConnections", 10);
-        configuration.put("language", "EN");
-        configuration.put("autoSaveInterval", 5);
-        configuration.put("enableLogs", true);
-        configuration.put("theme", "light");
-        configuration.put("region", "GLOBAL");
-        configuration.put("backupEnabled", true);
-        configuration.put("backupDirectory", "./backup");
+    void flush() throws Exception {
+        saveQueue.flushIfDirty();
     }
     
     /**
-     * Guarda la configuración actual en el archivo config.json
+     * Detiene la recarga en caliente y el autoguardado y guarda los cambios pendientes.
+     * Se usa al expulsar un inquilino del registro.
      */
-    public void save() {
+    synchronized void close() {
+        if (watcher != null) {
+            watcher.stop();
+            watcher = null;
+        }
+        if (autosave != null) {
+            autosave.stop();
+            autosave = null;
+        }
         try {
-            loader.saveConfiguration(configuration);
-            System.out.println("Configuración guardada exitosamente.");
+            flush();
         } catch (Exception e) {
             System.err.println("Error al guardar configuración: " + e.getMessage());
         }
     }
     
+    /**
+     * Restaura una versión de respaldo, la publica y la guarda en config.json
+     * @param version Versión de respaldo (ver {@link BackupManager#listVersions()})
+     * @throws Exception Si la versión no existe o no se puede guardar
+     */
+    public void restoreBackup(long version) throws Exception {
+        Map<String, Object> restored = backups.restore(version);
+        List<String> errors = ConfigurationSchema.get().validate(restored, false);
+        if (!errors.isEmpty()) {
+            throw new Exception("El respaldo " + version + " no es válido: " + errors);
+        }
+        replace(restored);
+        saveQueue.saveNow();
+    }
+    
+    /**
+     * Obtiene las capas de las que se resuelve la configuración
+     * @return Configuración por capas
+     */
+    public LayeredConfiguration getLayers() {
+        return layers;
+    }
+    
+    /**
+     * Indica de qué capa proviene el valor actual de una clave
+     * @param key Clave de configuración
+     * @return Capa de origen; {@link ConfigurationLayer#RUNTIME} si se modificó en tiempo
+     *         de ejecución, o null si la clave no existe
+     */
+    public ConfigurationLayer getConfigurationSource(String key) {
+        ConfigurationSnapshot current = snapshot.get();
+        if (!current.asMap().containsKey(key)) {
+            return null;
+        }
+        ConfigurationLayer source = layers.getSource(key);
+        if (source == null || !ConfigurationChangeEvent.sameValue(current.get(key), layers.getResolvedValue(key))) {
+            return ConfigurationLayer.RUNTIME;
+        }
+        return source;
+    }
+    
+    /**
+     * Obtiene el gestor de respaldos versionados
+     * @return Gestor de respaldos
+     */
+    public BackupManager getBackups() {
+        return backups;
+    }
+    
+    /**
+     * Solicita un guardado diferido. Los cambios realizados dentro de la ventana
+     * de agrupación se escriben juntos en una sola operación de disco.
+     */
+    public void requestSave() {
+        saveQueue.requestSave();
+    }
+    
+    /**
+     * Indica si hay cambios que aún no se han escrito en config.json
+     * @return true si la versión vigente es posterior a la última guardada
+     */
+    public boolean hasUnsavedChanges() {
+        return saveQueue.isDirty();
+    }
+    
+    /**
+     * Registra un valor calculado a partir de algunas claves (por ejemplo un formateador a
+     * partir de timeFormat y language). El resultado se memoriza y solo se recalcula
+     * cuando cambia alguna de esas claves; los valores memorizados de este gestor están
+     * limitados a -Dderived.maxEntries (256 por defecto).
+     * @param function Cálculo a partir de una instantánea; debe leer solo las claves indicadas
+     * @param inputs Claves de las que depende el valor
+     * @return Valor derivado; conviene guardarlo y llamar a {@link DerivedValue#get()} en cada uso
+     */
+    public <T> DerivedValue<T> derive(Function<ConfigurationSnapshot, T> function,
+                                      ConfigKey<?>... inputs) {
+        return derivedValues.derive(function, inputs);
+    }
+    
+    /**
+     * Obtiene el valor de una clave entera tipada (sin hashing ni boxing)
+     * @param key Clave tipada
+     * @return Valor actual
+     */
+    public int getInt(ConfigKey<Integer> key) {
+        GETS.increment();
+        return snapshot.get().getInt(key);
+    }
+    
+    /**
+     * Obtiene el valor de una clave booleana tipada (sin hashing ni boxing)
+     * @param key Clave tipada
+     * @return Valor actual
+     */
+    public boolean getBoolean(ConfigKey<Boolean> key) {
+        GETS.increment();
+        return snapshot.get().getBoolean(key);
+    }
+    
+    /**
+     * Obtiene el valor de una clave de texto tipada (sin hashing ni casts)
+     * @param key Clave tipada
+     * @return Valor actual
+     */
+    public String getString(ConfigKey<String> key) {
+        GETS.increment();
+        return snapshot.get().getString(key);
+    }
+    
     // Métodos para obtener valores de configuración
     public String getDefaultCurrency() {
-        return (String) configuration.get("defaultCurrency");
+        return getString(ConfigKey.DEFAULT_CURRENCY);
     }
     
     public String getTimeFormat() {
-        return (String) configuration.get("timeFormat");
+        return getString(ConfigKey.TIME_FORMAT);
     }
     
     public int getMaxConnections() {
-        Object value = configuration.get("maxConnections");
-        if (value instanceof Long) {
-            return ((Long) value).intValue();
-        }
-        return (Integer) value;
+        return getInt(ConfigKey.MAX_CONNECTIONS);
     }
     
     public String getLanguage() {
-        return (String) configuration.get("language");
+        return getString(ConfigKey.LANGUAGE);
     }
     
     public int getAutoSaveInterval() {
-        Object value = configuration.get("autoSaveInterval");
-        if (value instanceof Long) {
-            return ((Long) value).intValue();
-        }
-        return (Integer) value;
+        return getInt(ConfigKey.AUTO_SAVE_INTERVAL);
     }
     
     public boolean isEnableLogs() {
-        return (Boolean) configuration.get("enableLogs");
+        return getBoolean(ConfigKey.ENABLE_LOGS);
     }
     
     public String getTheme() {
-        return (String) configuration.get("theme");
+        return getString(ConfigKey.THEME);
     }
     
     public String getRegion() {
-        return (String) configuration.get("region");
+        return getString(ConfigKey.REGION);
     }
     
     public boolean isBackupEnabled() {
-        return (Boolean) configuration.get("backupEnabled");
+        return getBoolean(ConfigKey.BACKUP_ENABLED);
     }
     
     public String getBackupDirectory() {
-        return (String) configuration.get("backupDirectory");
+        return getString(ConfigKey.BACKUP_DIRECTORY);
+    }
+    
+    public int getConnectionTimeout() {
+        return getInt(ConfigKey.CONNECTION_TIMEOUT);
+    }
+    
+    public int getIdleTimeout() {
+        return getInt(ConfigKey.IDLE_TIMEOUT);
     }
     
     // Métodos para modificar valores de configuración
     public void setDefaultCurrency(String defaultCurrency) {
-        configuration.put("defaultCurrency", defaultCurrency);
+        update("defaultCurrency", defaultCurrency);
     }
     
     public void setTimeFormat(String timeFormat) {
-        configuration.put("timeFormat", timeFormat);
+        update("timeFormat", timeFormat);
     }
     
     public void setMaxConnections(int maxConnections) {
-        configuration.put("maxConnections", maxConnections);
+        update("maxConnections", maxConnections);
     }
     
     public void setLanguage(String language) {
-        configuration.put("language", language);
+        update("language", language);
     }
     
     public void setAutoSaveInterval(int autoSaveInterval) {
-        configuration.put("autoSaveInterval", autoSaveInterval);
+        update("autoSaveInterval", autoSaveInterval);
     }
     
     public void setEnableLogs(boolean enableLogs) {
-        configuration.put("enableLogs", enableLogs);
+        update("enableLogs", enableLogs);
     }
     
     public void setTheme(String theme) {
-        configuration.put("theme", theme);
+        update("theme", theme);
     }
     
     public void setRegion(String region) {
-        configuration.put("region", region);
+        update("region", region);
     }
     
     public void setBackupEnabled(boolean backupEnabled) {
-        configuration.put("backupEnabled", backupEnabled);
+        update("backupEnabled", backupEnabled);
     }
     
     public void setBackupDirectory(String backupDirectory) {
-        configuration.put("backupDirectory", backupDirectory);
+        update("backupDirectory", backupDirectory);
+    }
+    
+    public void setConnectionTimeout(int connectionTimeout) {
+        update("connectionTimeout", connectionTimeout);
+    }
+    
+    public void setIdleTimeout(int idleTimeout) {
+        update("idleTimeout", idleTimeout);
     }
     
     /**
-     * Obtiene toda la configuración como un mapa
-     * @return Mapa con toda la configuración
+     * Obtiene toda la configuración como un mapa. No copia nada: es la vista de solo
+     * lectura de la versión vigente y no refleja cambios posteriores.
+     * @return Mapa inmutable con toda la configuración
      */
     public Map<String, Object> getAllConfiguration() {
-        return new HashMap<>(configuration);
+        GETS.increment();
+        return snapshot.get().asMap();
     }
     
     /**
-     * Establece un valor de configuración genérico
+     * Establece un valor de configuración genérico. Si la clave está en el esquema, el
+     * valor se convierte a su tipo (por ejemplo, el texto "20" para maxConnections)
      * @param key Clave de configuración
      * @param value Valor a establecer
+     * @throws IllegalArgumentException Si el valor no es válido para la clave
      */
     public void setConfiguration(String key, Object value) {
-        configuration.put(key, value);
+        update(key, value);
     }
     
     /**
@@ -181,6 +520,7 @@ public class ConfigurationManager {
      * @return Valor de la configuración
      */
     public Object getConfiguration(String key) {
-        return configuration.get(key);
+        GETS.increment();
+        return snapshot.get().get(key);
     }
 } 
\ No newline at end of file
@@ -0,0 +1,24 @@
+/**
+ * Error de sintaxis en un archivo de configuración, con la línea y la columna
+ * (ambas desde 1) donde se detectó
+ */
+public class ConfigurationParseException extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    private final int line;
+    private final int column;
+
+    public ConfigurationParseException(String message, int line, int column) {
+        super(String.format("%s (línea %d, columna %d)", message, line, column));
+        this.line = line;
+        this.column = column;
+    }
+
+    public int getLine() {
+        return line;
+    }
+
+    public int getColumn() {
+        return column;
+    }
+}
@@ -0,0 +1,508 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+
+/**
+ * Lector JSON de un solo paso para archivos de configuración.
+ *
+ * Recorre directamente los bytes UTF-8 del archivo (mapeado en memoria si es grande) y
+ * construye el mapa de configuración sin pasar por un String intermedio con todo el
+ * contenido ni por un segundo mapa. El resultado es idéntico al de json-simple: enteros
+ * como Long, decimales como Double, y objetos y arrays anidados como JSONObject y
+ * JSONArray. También acepta las mismas licencias que json-simple (comas sobrantes,
+ * ':' opcional tras una clave y escapes desconocidos conservados literalmente), para
+ * que cualquier config.json que cargaba antes siga cargando igual.
+ *
+ * Las claves se reutilizan entre cargas mediante una caché pequeña, de modo que los
+ * archivos con las mismas claves (por ejemplo, los de distintos inquilinos) comparten
+ * las mismas instancias de String.
+ */
+public final class ConfigurationParser {
+    // Por debajo de este tamaño se lee a memoria normal: un archivo mapeado no puede
+    // reemplazarse en Windows hasta que el recolector libere el mapeo
+    static final int MAP_THRESHOLD = 64 * 1024;
+
+    private static final int KEY_CACHE_SIZE = 4096;
+    private static final String[] KEY_CACHE = new String[KEY_CACHE_SIZE];
+
+    // Potencias de diez representables exactamente como double (ruta rápida de Clinger)
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private static final int MAX_EXACT_DIGITS = 15;
+    private static final int MAX_LONG_DIGITS = 18;
+
+    private final ByteBuffer input;
+    private final int start;
+    private final int limit;
+    private int position;
+    private char[] chars = new char[64];
+
+    private ConfigurationParser(ByteBuffer input) {
+        this.input = input;
+        this.start = input.position();
+        this.limit = input.limit();
+        this.position = start;
+    }
+
+    /**
+     * Obtiene el contenido completo de un archivo: mapeado en memoria si supera
+     * {@link #MAP_THRESHOLD} bytes, o leído a un búfer normal en caso contrario
+     * @param channel Canal abierto para lectura
+     * @return Búfer con todo el contenido, listo para leer
+     * @throws IOException Si hay error al leer o el archivo supera 2 GB
+     */
+    public static ByteBuffer read(FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Archivo de configuración demasiado grande: " + size + " bytes");
+        }
+        if (size >= MAP_THRESHOLD) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) size);
+        while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+            // Seguir leyendo hasta llenar el búfer
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Interpreta un objeto JSON de configuración
+     * @param content Bytes UTF-8 entre la posición y el límite del búfer (no se modifican)
+     * @return Mapa con las claves de primer nivel
+     * @throws ConfigurationParseException Si el contenido no es un objeto JSON válido
+     */
+    public static Map<String, Object> parse(ByteBuffer content) throws ConfigurationParseException {
+        ConfigurationParser parser = new ConfigurationParser(content);
+        parser.skipWhitespace();
+        if (parser.peek() != '{') {
+            throw parser.error(parser.peek() < 0 ? "Archivo de configuración vacío"
+                : "Se esperaba '{' al inicio de la configuración");
+        }
+        parser.position++;
+        Map<String, Object> configuration = new HashMap<>();
+        parser.readMembers(configuration);
+        parser.skipWhitespace();
+        if (parser.position < parser.limit && !parser.isUnclosedTrailingString()) {
+            throw parser.unexpected();
+        }
+        return configuration;
+    }
+
+    /**
+     * Lee los pares clave-valor de un objeto; la llave de apertura ya fue consumida
+     */
+    private void readMembers(Map<String, Object> target) throws ConfigurationParseException {
+        while (true) {
+            skipWhitespace();
+            int c = peek();
+            if (c == ',') {
+                position++; // Comas sobrantes, como en json-simple
+                continue;
+            }
+            if (c == '}') {
+                position++;
+                return;
+            }
+            if (c != '"') {
+                throw c < 0 ? error("Objeto sin cerrar") : unexpected();
+            }
+            position++;
+            String key = internKey(readChars());
+            skipWhitespace();
+            while (peek() == ':') {
+                position++;
+                skipWhitespace();
+            }
+            target.put(key, readValue());
+        }
+    }
+
+    /**
+     * json-simple trata una cadena sin cerrar al final del archivo como fin de la entrada,
+     * así que la ignora si aparece después del objeto principal
+     */
+    private boolean isUnclosedTrailingString() {
+        if (peek() != '"') {
+            return false;
+        }
+        int quote = position;
+        position++;
+        try {
+            readChars();
+        } catch (ConfigurationParseException e) {
+            return true;
+        }
+        position = quote;
+        return false;
+    }
+
+    @SuppressWarnings("unchecked")
+    private JSONArray readArray() throws ConfigurationParseException {
+        JSONArray array = new JSONArray();
+        while (true) {
+            skipWhitespace();
+            int c = peek();
+            if (c == ',') {
+                position++;
+                continue;
+            }
+            if (c == ']') {
+                position++;
+                return array;
+            }
+            if (c < 0) {
+                throw error("Array sin cerrar");
+            }
+            array.add(readValue());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object readValue() throws ConfigurationParseException {
+        skipWhitespace();
+        int c = peek();
+        switch (c) {
+            case '{':
+                position++;
+                JSONObject object = new JSONObject();
+                readMembers(object);
+                return object;
+            case '[':
+                position++;
+                return readArray();
+            case '"':
+                position++;
+                int length = readChars();
+                return new String(chars, 0, length);
+            case 't':
+                readLiteral("true");
+                return Boolean.TRUE;
+            case 'f':
+                readLiteral("false");
+                return Boolean.FALSE;
+            case 'n':
+                readLiteral("null");
+                return null;
+            default:
+                if (c == '-' || isDigit(c)) {
+                    return readNumber();
+                }
+                throw c < 0 ? error("Fin de archivo inesperado") : unexpected();
+        }
+    }
+
+    private void readLiteral(String literal) throws ConfigurationParseException {
+        int length = literal.length();
+        if (limit - position < length) {
+            throw unexpected();
+        }
+        for (int i = 0; i < length; i++) {
+            if (input.get(position + i) != literal.charAt(i)) {
+                throw unexpected();
+            }
+        }
+        position += length;
+    }
+
+    /**
+     * Lee el contenido de una cadena hasta la comilla de cierre, dejándolo en {@link #chars}
+     * @return Número de caracteres leídos
+     */
+    private int readChars() throws ConfigurationParseException {
+        int length = 0;
+        while (true) {
+            if (position >= limit) {
+                throw error("Cadena sin cerrar");
+            }
+            byte b = input.get(position);
+            if (b == '"') {
+                position++;
+                return length;
+            }
+            ensureCapacity(length + 1);
+            if (b == '\\') {
+                length = readEscape(length);
+            } else if (b >= 0) {
+                chars[length++] = (char) b;
+                position++;
+            } else {
+                length = readNonAscii(length);
+            }
+        }
+    }
+
+    private int readEscape(int length) throws ConfigurationParseException {
+        if (position + 1 >= limit) {
+            throw error("Cadena sin cerrar");
+        }
+        char decoded;
+        switch (input.get(position + 1)) {
+            case '"': decoded = '"'; break;
+            case '\\': decoded = '\\'; break;
+            case '/': decoded = '/'; break;
+            case 'b': decoded = '\b'; break;
+            case 'f': decoded = '\f'; break;
+            case 'n': decoded = '\n'; break;
+            case 'r': decoded = '\r'; break;
+            case 't': decoded = '\t'; break;
+            case 'u':
+                int value = readHex(position + 2);
+                if (value >= 0) {
+                    chars[length] = (char) value;
+                    position += 6;
+                    return length + 1;
+                }
+                // Escape incompleto: se conserva literalmente, como en json-simple
+                chars[length] = '\\';
+                position++;
+                return length + 1;
+            default:
+                chars[length] = '\\';
+                position++;
+                return length + 1;
+        }
+        chars[length] = decoded;
+        position += 2;
+        return length + 1;
+    }
+
+    private int readHex(int at) {
+        if (limit - at < 4) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = at; i < at + 4; i++) {
+            int digit = Character.digit(input.get(i), 16);
+            if (digit < 0) {
+                return -1;
+            }
+            value = (value << 4) | digit;
+        }
+        return value;
+    }
+
+    /**
+     * Decodifica una secuencia de bytes no ASCII. Un byte ASCII nunca forma parte de un
+     * carácter multibyte, así que decodificar cada tramo por separado da el mismo
+     * resultado (incluidos los reemplazos de secuencias inválidas) que decodificar todo
+     * el archivo de una vez.
+     */
+    private int readNonAscii(int length) {
+        int end = position;
+        while (end < limit && input.get(end) < 0) {
+            end++;
+        }
+        ByteBuffer run = input.duplicate();
+        run.limit(end).position(position);
+        CharBuffer decoded = StandardCharsets.UTF_8.decode(run);
+        int count = decoded.remaining();
+        ensureCapacity(length + count);
+        decoded.get(chars, length, count);
+        position = end;
+        return length + count;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > chars.length) {
+            char[] grown = new char[Math.max(capacity, chars.length * 2)];
+            System.arraycopy(chars, 0, grown, 0, chars.length);
+            chars = grown;
+        }
+    }
+
+    /**
+     * Devuelve una instancia compartida para la clave que está en {@link #chars}.
+     * La caché es un array sin locks: una carrera entre hilos solo provoca que una
+     * clave se cree dos veces, nunca un resultado incorrecto.
+     */
+    private String internKey(int length) {
+        int hash = 0;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + chars[i];
+        }
+        int index = cacheIndex(hash);
+        String cached = KEY_CACHE[index];
+        if (cached != null && cached.length() == length && matches(cached, length)) {
+            return cached;
+        }
+        String key = new String(chars, 0, length);
+        KEY_CACHE[index] = key;
+        return key;
+    }
+
+    /**
+     * Devuelve la instancia compartida de una clave ya construida (usado por otros
+     * lectores de configuración para compartir la misma caché)
+     * @param key Clave leída
+     * @return Instancia en caché igual a la clave, o la propia clave
+     */
+    static String internKey(String key) {
+        int index = cacheIndex(key.hashCode());
+        String cached = KEY_CACHE[index];
+        if (key.equals(cached)) {
+            return cached;
+        }
+        KEY_CACHE[index] = key;
+        return key;
+    }
+
+    private static int cacheIndex(int hash) {
+        return (hash ^ (hash >>> 16)) & (KEY_CACHE_SIZE - 1);
+    }
+
+    private boolean matches(String candidate, int length) {
+        for (int i = 0; i < length; i++) {
+            if (candidate.charAt(i) != chars[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Lee un número con la misma gramática que json-simple: enteros (incluidos ceros a la
+     * izquierda) como Long y números con parte decimal o exponente como Double.
+     * Los dígitos se acumulan directamente; solo se construye un String cuando el número
+     * no cabe en la ruta rápida (más de 18 dígitos o un decimal no exacto).
+     */
+    private Object readNumber() throws ConfigurationParseException {
+        int numberStart = position;
+        boolean negative = peek() == '-';
+        if (negative) {
+            position++;
+        }
+        if (!isDigit(peek())) {
+            position = numberStart;
+            throw unexpected();
+        }
+        long mantissa = 0;
+        int significant = 0;
+        int exponent = 0;
+        boolean decimal = false;
+        int c;
+        while (isDigit(c = peek())) {
+            if (significant > 0 || c != '0') {
+                significant++;
+            }
+            mantissa = significant <= MAX_LONG_DIGITS ? mantissa * 10 + (c - '0') : mantissa;
+            position++;
+        }
+        if (peek() == '.' && isDigit(peekAt(position + 1))) {
+            decimal = true;
+            position++;
+            while (isDigit(c = peek())) {
+                if (significant > 0 || c != '0') {
+                    significant++;
+                }
+                if (significant <= MAX_LONG_DIGITS) {
+                    mantissa = mantissa * 10 + (c - '0');
+                    exponent--;
+                }
+                position++;
+            }
+        }
+        c = peek();
+        if (c == 'e' || c == 'E') {
+            int sign = peekAt(position + 1);
+            int digitsAt = sign == '+' || sign == '-' ? position + 2 : position + 1;
+            if (isDigit(peekAt(digitsAt))) {
+                decimal = true;
+                position = digitsAt;
+                int explicit = 0;
+                while (isDigit(c = peek())) {
+                    explicit = Math.min(explicit * 10 + (c - '0'), 100_000);
+                    position++;
+                }
+                exponent += sign == '-' ? -explicit : explicit;
+            }
+        }
+
+        if (!decimal) {
+            if (significant <= MAX_LONG_DIGITS) {
+                return negative ? -mantissa : mantissa;
+            }
+            try {
+                return Long.valueOf(lexeme(numberStart));
+            } catch (NumberFormatException e) {
+                position = numberStart;
+                throw error("Número entero fuera de rango");
+            }
+        }
+        if (significant <= MAX_EXACT_DIGITS && exponent >= -22 && exponent <= 22) {
+            // Mantisa y potencia exactas: una sola operación da el double correctamente redondeado
+            double value = exponent >= 0
+                ? mantissa * POWERS_OF_TEN[exponent]
+                : mantissa / POWERS_OF_TEN[-exponent];
+            return negative ? -value : value;
+        }
+        return Double.valueOf(lexeme(numberStart));
+    }
+
+    private String lexeme(int from) {
+        byte[] bytes = new byte[position - from];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = input.get(from + i);
+        }
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    private void skipWhitespace() {
+        while (position < limit) {
+            byte b = input.get(position);
+            if (b != ' ' && b != '\t' && b != '\n' && b != '\r') {
+                return;
+            }
+            position++;
+        }
+    }
+
+    private int peek() {
+        return position < limit ? input.get(position) : -1;
+    }
+
+    private int peekAt(int index) {
+        return index < limit ? input.get(index) : -1;
+    }
+
+    private static boolean isDigit(int c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private ConfigurationParseException unexpected() {
+        int c = peek();
+        return error(c >= 0x20 && c < 0x7F
+            ? "Carácter inesperado '" + (char) c + "'"
+            : String.format("Carácter inesperado (byte 0x%02X)", c & 0xFF));
+    }
+
+    /**
+     * Crea un error con la línea y columna de la posición actual. Se calculan solo al
+     * fallar, recorriendo el contenido hasta ese punto; las columnas cuentan caracteres,
+     * no bytes.
+     */
+    private ConfigurationParseException error(String message) {
+        int line = 1;
+        int column = 1;
+        int end = Math.min(position, limit);
+        for (int i = start; i < end; i++) {
+            byte b = input.get(i);
+            if (b == '\n') {
+                line++;
+                column = 1;
+            } else if ((b & 0xC0) != 0x80) {
+                column++;
+            }
+        }
+        return new ConfigurationParseException(message, line, column);
+    }
+}
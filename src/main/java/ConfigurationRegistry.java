@@ -0,0 +1,338 @@
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Registro de configuraciones por inquilino.
+ *
+ * El inquilino por defecto es {@link ConfigurationManager#getInstance()} y nunca se
+ * expulsa. Los demás se cargan al pedirlos por primera vez desde tenants/&lt;nombre&gt;.json
+ * (junto al archivo base); el archivo puede no existir, en cuyo caso el inquilino usa
+ * los valores compartidos. Cada inquilino solo guarda en su archivo lo que cambia
+ * respecto a esos valores.
+ *
+ * Los valores compartidos son la instantánea vigente del inquilino por defecto: la
+ * configuración de cada inquilino se construye sobre ese mismo mapa persistente y solo
+ * copia los nodos del trie que tocan sus propias claves (ver {@link LayeredConfiguration}).
+ * Cuando esa configuración cambia, cada inquilino cargado se recalcula la siguiente vez
+ * que se pide al registro, en el hilo que lo pide; así un cambio no dispara de golpe la
+ * recarga de todos los inquilinos. Los cambios del inquilino que aún no se guardaron se
+ * conservan al recalcularlo.
+ *
+ * Cada inquilino cargado se autoguarda según su autoSaveInterval, y al cerrar la JVM el
+ * registro guarda los cambios pendientes de todos los cargados.
+ *
+ * Los inquilinos cargados se mantienen en orden de uso (LRU) y se expulsan los menos
+ * usados cuando se supera el número máximo o el presupuesto de memoria estimado. Al
+ * expulsar un inquilino se guardan sus cambios pendientes; si se vuelve a pedir, se
+ * carga de nuevo desde su archivo. Por eso conviene pedir el inquilino al registro en
+ * cada uso en lugar de conservar la referencia.
+ */
+public final class ConfigurationRegistry {
+    public static final String DEFAULT_TENANT = "default";
+    static final int DEFAULT_MAX_TENANTS = 1000;
+    static final long DEFAULT_MEMORY_BUDGET_BYTES = 64L * 1024 * 1024;
+
+    // Estimación del tamaño de un inquilino: gestor, capas, cola de guardado, instantánea y
+    // la raíz del trie copiada; por clave propia, su entrada en la capa, su origen y la
+    // parte que le toca de los nodos copiados del trie
+    private static final long TENANT_OVERHEAD_BYTES = 4096;
+    private static final long ENTRY_OVERHEAD_BYTES = 176;
+
+    private static final Pattern TENANT_NAME = Pattern.compile("[A-Za-z0-9_-]+");
+
+    private final ConfigurationManager defaultTenant;
+    private final Path directory;
+    private final int maxTenants;
+    private final long memoryBudgetBytes;
+
+    // Orden de acceso: el primero es el usado hace más tiempo
+    private final LinkedHashMap<String, Tenant> tenants = new LinkedHashMap<>(16, 0.75f, true);
+    private Map<String, Object> sharedDefaults;
+    private Thread shutdownHook;
+    private long estimatedBytes;
+    private long loads;
+    private long evictions;
+
+    /**
+     * @param defaultTenant Gestor del inquilino por defecto
+     * @param directory Directorio con los archivos de los inquilinos
+     * @param maxTenants Número máximo de inquilinos cargados, sin contar el de por defecto
+     * @param memoryBudgetBytes Memoria estimada máxima para los inquilinos cargados
+     */
+    public ConfigurationRegistry(ConfigurationManager defaultTenant, Path directory, int maxTenants,
+                                 long memoryBudgetBytes) {
+        if (maxTenants < 1 || memoryBudgetBytes < 1) {
+            throw new IllegalArgumentException("El límite de inquilinos y el presupuesto deben ser positivos");
+        }
+        this.defaultTenant = defaultTenant;
+        this.directory = directory.toAbsolutePath();
+        this.maxTenants = maxTenants;
+        this.memoryBudgetBytes = memoryBudgetBytes;
+        this.sharedDefaults = defaultTenant.getSnapshot().asMap();
+        defaultTenant.addChangeListener(event -> updateSharedDefaults());
+    }
+
+    // Inicialización perezosa y segura entre hilos (idiom del holder)
+    private static final class Holder {
+        private static final ConfigurationRegistry INSTANCE = create();
+
+        private static ConfigurationRegistry create() {
+            ConfigurationManager defaultTenant = ConfigurationManager.getInstance();
+            return new ConfigurationRegistry(defaultTenant,
+                defaultTenant.getLayers().getBaseFile().resolveSibling("tenants"),
+                Integer.getInteger("tenants.max", DEFAULT_MAX_TENANTS),
+                Long.getLong("tenants.memoryBudgetMb", DEFAULT_MEMORY_BUDGET_BYTES / (1024 * 1024)) * 1024 * 1024);
+        }
+    }
+
+    /**
+     * Obtiene el registro de la aplicación. Su directorio es tenants/ junto a config.json;
+     * los límites se pueden cambiar con -Dtenants.max y -Dtenants.memoryBudgetMb.
+     * @return Registro único
+     */
+    public static ConfigurationRegistry get() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Obtiene la configuración de un inquilino, cargándola si no está en memoria
+     * @param name Nombre del inquilino (letras, dígitos, '_' o '-')
+     * @return Gestor de configuración del inquilino
+     * @throws IllegalArgumentException Si el nombre no es válido
+     */
+    public ConfigurationManager getTenant(String name) {
+        if (DEFAULT_TENANT.equals(name)) {
+            return defaultTenant;
+        }
+        if (name == null || !TENANT_NAME.matcher(name).matches()) {
+            throw new IllegalArgumentException("Nombre de inquilino inválido: " + name);
+        }
+        Tenant cached;
+        Map<String, Object> defaults;
+        synchronized (this) {
+            cached = tenants.get(name);
+            defaults = sharedDefaults;
+        }
+        if (cached != null) {
+            return current(cached);
+        }
+
+        // La carga lee el archivo fuera del lock para no bloquear a los demás inquilinos
+        ConfigurationManager manager = new ConfigurationManager(
+            LayeredConfiguration.forTenant(getTenantFile(name), defaults), "tenants/" + name);
+        Tenant loaded = new Tenant(name, manager, estimateSize(manager), defaults);
+        List<Tenant> evicted = new ArrayList<>();
+        Tenant tenant;
+        synchronized (this) {
+            // Si otro hilo lo cargó al mismo tiempo se usa el suyo; el nuestro no inició ningún servicio
+            tenant = tenants.get(name);
+            if (tenant == null) {
+                tenant = loaded;
+                tenants.put(name, loaded);
+                estimatedBytes += loaded.bytes;
+                loads++;
+                // Dentro del lock, para que una expulsión no lo cierre antes de iniciarlo
+                loaded.manager.startAutosave(false);
+                registerShutdownHook();
+                evictOverBudget(loaded, evicted);
+            }
+        }
+        for (Tenant old : evicted) {
+            old.manager.close();
+        }
+        // La configuración compartida pudo cambiar mientras se cargaba
+        return current(tenant);
+    }
+
+    /**
+     * Registra una sola vez el guardado de los inquilinos cargados al cerrar la JVM
+     */
+    private void registerShutdownHook() {
+        if (shutdownHook == null) {
+            shutdownHook = new Thread(this::flushAll, "tenant-registry-shutdown");
+            Runtime.getRuntime().addShutdownHook(shutdownHook);
+        }
+    }
+
+    /**
+     * Guarda los cambios pendientes de todos los inquilinos cargados
+     */
+    void flushAll() {
+        List<Tenant> loaded;
+        synchronized (this) {
+            loaded = new ArrayList<>(tenants.values());
+        }
+        for (Tenant tenant : loaded) {
+            try {
+                tenant.manager.flush();
+            } catch (Exception e) {
+                System.err.println("Error al guardar el inquilino " + tenant.name + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Obtiene la configuración del inquilino por defecto
+     * @return {@link ConfigurationManager#getInstance()} o el gestor indicado al crear el registro
+     */
+    public ConfigurationManager getDefault() {
+        return defaultTenant;
+    }
+
+    /**
+     * Expulsa los inquilinos menos usados hasta cumplir los límites, sin expulsar el recién cargado
+     */
+    private void evictOverBudget(Tenant keep, List<Tenant> evicted) {
+        Iterator<Tenant> eldest = tenants.values().iterator();
+        while ((tenants.size() > maxTenants || estimatedBytes > memoryBudgetBytes) && eldest.hasNext()) {
+            Tenant tenant = eldest.next();
+            if (tenant == keep) {
+                continue;
+            }
+            eldest.remove();
+            estimatedBytes -= tenant.bytes;
+            evictions++;
+            evicted.add(tenant);
+        }
+    }
+
+    /**
+     * Expulsa un inquilino guardando sus cambios pendientes
+     * @param name Nombre del inquilino
+     * @return true si estaba cargado
+     */
+    public boolean evict(String name) {
+        Tenant tenant;
+        synchronized (this) {
+            tenant = tenants.remove(name);
+            if (tenant == null) {
+                return false;
+            }
+            estimatedBytes -= tenant.bytes;
+            evictions++;
+        }
+        tenant.manager.close();
+        return true;
+    }
+
+    /**
+     * Anota la nueva configuración del inquilino por defecto; los inquilinos cargados la
+     * aplican al pedirse (ver {@link #current})
+     */
+    private synchronized void updateSharedDefaults() {
+        sharedDefaults = defaultTenant.getSnapshot().asMap();
+    }
+
+    /**
+     * Aplica al inquilino los valores compartidos vigentes si aún no lo estaban. Quien lo
+     * pide mientras otro hilo lo recalcula espera a que termine.
+     * @return Gestor del inquilino
+     */
+    private ConfigurationManager current(Tenant tenant) {
+        Map<String, Object> defaults;
+        synchronized (this) {
+            defaults = sharedDefaults;
+        }
+        if (tenant.defaults != defaults) {
+            synchronized (tenant) {
+                if (tenant.defaults != defaults) {
+                    refresh(tenant, defaults);
+                    tenant.defaults = defaults;
+                }
+            }
+        }
+        return tenant.manager;
+    }
+
+    private void refresh(Tenant tenant, Map<String, Object> defaults) {
+        try {
+            // La recarga vuelve a aplicar los cambios sin guardar, también los que lleguen
+            // mientras se recalcula (ver ConfigurationManager#reload)
+            tenant.manager.reload(tenant.manager.getLayers().replaceDefaults(defaults));
+        } catch (Exception e) {
+            System.err.println("Error al actualizar el inquilino " + tenant.name + ", se conserva su configuración: "
+                + e.getMessage());
+        }
+    }
+
+    /**
+     * Estima la memoria de un inquilino: un costo fijo más las claves de sus propias capas.
+     * Los valores compartidos no se cuentan: su vista combinada e instantánea comparten los
+     * nodos del trie de esos valores y solo copian el camino hasta sus propias claves.
+     */
+    private static long estimateSize(ConfigurationManager manager) {
+        long bytes = TENANT_OVERHEAD_BYTES;
+        for (ConfigurationLayer layer : ConfigurationLayer.values()) {
+            if (layer == ConfigurationLayer.DEFAULTS) {
+                continue;
+            }
+            for (Map.Entry<String, Object> entry : manager.getLayers().getLayer(layer).entrySet()) {
+                bytes += ENTRY_OVERHEAD_BYTES + 2L * entry.getKey().length();
+                if (entry.getValue() instanceof String) {
+                    bytes += 2L * ((String) entry.getValue()).length();
+                }
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Obtiene la ruta del archivo de un inquilino
+     * @param name Nombre del inquilino
+     * @return Ruta tenants/&lt;nombre&gt;.json
+     */
+    public Path getTenantFile(String name) {
+        return directory.resolve(name + ".json");
+    }
+
+    /**
+     * @return Número de inquilinos cargados, sin contar el de por defecto
+     */
+    public synchronized int size() {
+        return tenants.size();
+    }
+
+    /**
+     * @return Memoria estimada de los inquilinos cargados, en bytes
+     */
+    public synchronized long getEstimatedBytes() {
+        return estimatedBytes;
+    }
+
+    /**
+     * @return Número de inquilinos cargados desde su archivo desde que se creó el registro
+     */
+    public synchronized long getLoadCount() {
+        return loads;
+    }
+
+    /**
+     * @return Número de inquilinos expulsados desde que se creó el registro
+     */
+    public synchronized long getEvictionCount() {
+        return evictions;
+    }
+
+    /**
+     * Inquilino cargado con su tamaño estimado y los valores compartidos que tiene aplicados
+     */
+    private static final class Tenant {
+        final String name;
+        final ConfigurationManager manager;
+        final long bytes;
+        // Valores compartidos aplicados por última vez; se modifica con el lock del inquilino
+        volatile Map<String, Object> defaults;
+
+        Tenant(String name, ConfigurationManager manager, long bytes, Map<String, Object> defaults) {
+            this.name = name;
+            this.manager = manager;
+            this.bytes = bytes;
+            this.defaults = defaults;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Cola de guardado que agrupa las solicitudes recibidas dentro de una ventana de tiempo
+ * en una sola escritura a disco. Todas las escrituras pasan por aquí, de modo que nunca
+ * se persiste una versión más antigua después de una más reciente.
+ */
+public class ConfigurationSaveQueue {
+    private static final long DEFAULT_WINDOW_MS = 200;
+
+    private final ConfigurationStore store;
+    private final Supplier<ConfigurationSnapshot> source;
+    private final long windowMs;
+    private final AtomicBoolean pending = new AtomicBoolean();
+    private final AtomicInteger coalesced = new AtomicInteger();
+    private long lastSavedVersion;
+    // Valores que hay en disco: los escritos por última vez o los leídos del archivo
+    private PersistentConfigurationMap lastSavedValues;
+    private volatile long lastSaveLatencyNanos;
+    private volatile Consumer<ConfigurationSnapshot> onSaved = snapshot -> { };
+
+    public ConfigurationSaveQueue(ConfigurationStore store, Supplier<ConfigurationSnapshot> source) {
+        this(store, source, DEFAULT_WINDOW_MS);
+    }
+
+    public ConfigurationSaveQueue(ConfigurationStore store, Supplier<ConfigurationSnapshot> source, long windowMs) {
+        this.store = store;
+        this.source = source;
+        this.windowMs = windowMs;
+        // La versión inicial proviene del archivo, no hace falta volver a escribirla
+        ConfigurationSnapshot initial = source.get();
+        this.lastSavedVersion = initial.getVersion();
+        this.lastSavedValues = initial.asMap();
+    }
+
+    /**
+     * Solicita un guardado diferido. Las solicitudes que llegan mientras hay uno
+     * pendiente se agrupan en la misma escritura.
+     */
+    public void requestSave() {
+        coalesced.incrementAndGet();
+        if (pending.compareAndSet(false, true)) {
+            BackgroundScheduler.get().schedule(this::flushPending, windowMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void flushPending() {
+        pending.set(false);
+        int requests = coalesced.getAndSet(0);
+        try {
+            if (write(false)) {
+                System.out.printf("Configuración guardada (%d cambios agrupados, %.2f ms).%n",
+                    requests, lastSaveLatencyNanos / 1_000_000.0);
+            }
+        } catch (Exception e) {
+            System.err.println("Error al guardar configuración: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Guarda inmediatamente la versión actual en el hilo que llama
+     * @return Duración de la escritura en nanosegundos
+     * @throws Exception Si hay error al escribir el archivo
+     */
+    public long saveNow() throws Exception {
+        coalesced.set(0);
+        write(true);
+        return lastSaveLatencyNanos;
+    }
+
+    /**
+     * Guarda la versión actual solo si cambió desde el último guardado
+     * @return true si se escribió el archivo; false si no había cambios
+     * @throws Exception Si hay error al escribir el archivo
+     */
+    public boolean flushIfDirty() throws Exception {
+        return write(false);
+    }
+
+    /**
+     * Indica si hay cambios en memoria que aún no se han guardado
+     * @return true si la versión actual es posterior a la última guardada
+     */
+    public synchronized boolean isDirty() {
+        return source.get().getVersion() > lastSavedVersion;
+    }
+
+    /**
+     * Escribe la versión actual si es más reciente que la última guardada
+     * @param force Escribir aunque la versión ya esté guardada
+     * @return true si se escribió el archivo
+     */
+    private synchronized boolean write(boolean force) throws Exception {
+        ConfigurationSnapshot snapshot = source.get();
+        if (!force && snapshot.getVersion() <= lastSavedVersion) {
+            return false;
+        }
+        lastSaveLatencyNanos = store.saveConfiguration(snapshot.asMap());
+        lastSavedVersion = snapshot.getVersion();
+        lastSavedValues = snapshot.asMap();
+        onSaved.accept(snapshot);
+        return true;
+    }
+
+    /**
+     * Establece la acción a ejecutar tras cada escritura confirmada (por ejemplo, el respaldo)
+     * @param onSaved Acción que recibe la versión escrita
+     */
+    public void setOnSaved(Consumer<ConfigurationSnapshot> onSaved) {
+        this.onSaved = onSaved;
+    }
+
+    /**
+     * Marca una versión como ya persistida (por ejemplo, la recién leída del archivo)
+     * @param snapshot Versión que coincide con el contenido en disco
+     */
+    public synchronized void markPersisted(ConfigurationSnapshot snapshot) {
+        if (snapshot.getVersion() >= lastSavedVersion) {
+            lastSavedVersion = snapshot.getVersion();
+            lastSavedValues = snapshot.asMap();
+        }
+    }
+
+    /**
+     * Anota los valores leídos del archivo sin marcar como guardada la versión vigente,
+     * que aún tiene cambios pendientes
+     * @param values Contenido actual en disco
+     */
+    public synchronized void markLoaded(PersistentConfigurationMap values) {
+        lastSavedValues = values;
+    }
+
+    /**
+     * Obtiene las claves cuyo valor en una versión difiere del último guardado
+     * @param snapshot Versión a comparar, normalmente la vigente
+     * @return Claves con cambios sin guardar (vacía si no hay ninguno)
+     */
+    public synchronized List<String> unsavedKeys(ConfigurationSnapshot snapshot) {
+        List<String> keys = new ArrayList<>();
+        if (snapshot.getVersion() <= lastSavedVersion) {
+            return keys;
+        }
+        List<String> candidates = new ArrayList<>();
+        PersistentConfigurationMap.collectChangedKeys(lastSavedValues, snapshot.asMap(), candidates);
+        for (String key : candidates) {
+            if (snapshot.asMap().containsKey(key) != lastSavedValues.containsKey(key)
+                    || !ConfigurationChangeEvent.sameValue(snapshot.get(key), lastSavedValues.get(key))) {
+                keys.add(key);
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Obtiene la duración de la última escritura a disco
+     * @return Latencia en nanosegundos
+     */
+    public long getLastSaveLatencyNanos() {
+        return lastSaveLatencyNanos;
+    }
+}
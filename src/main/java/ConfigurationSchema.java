@@ -0,0 +1,295 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Esquema de la configuración compilado a partir de las declaraciones de {@link ConfigKey}.
+ *
+ * Cada clave conocida se compila una vez en una regla con su validador y su conversor
+ * (sin reflexión), de modo que validar una configuración es un solo recorrido del mapa
+ * con una búsqueda por clave. Las claves que no están en el esquema se aceptan sin
+ * restricciones. El mismo esquema se usa al cargar las capas, al modificar valores y
+ * en la recarga en caliente.
+ */
+public final class ConfigurationSchema {
+    private final Map<String, Rule> rules = new HashMap<>();
+
+    private ConfigurationSchema(List<ConfigKey<?>> keys) {
+        for (ConfigKey<?> key : keys) {
+            rules.put(key.getName(), compile(key));
+        }
+    }
+
+    // Inicialización perezosa y segura entre hilos (idiom del holder)
+    private static final class Holder {
+        private static final ConfigurationSchema INSTANCE = new ConfigurationSchema(ConfigKey.values());
+    }
+
+    /**
+     * Obtiene el esquema de las claves declaradas en {@link ConfigKey}
+     * @return Esquema compilado
+     */
+    public static ConfigurationSchema get() {
+        return Holder.INSTANCE;
+    }
+
+    private static Rule compile(ConfigKey<?> key) {
+        switch (key.getKind()) {
+            case INT:
+                return new IntRule(key.getMin(), key.getMax());
+            case BOOLEAN:
+                return new BooleanRule();
+            default:
+                if (key.getFormat() != null) {
+                    return new FormattedStringRule(key.getFormat(), "Debe ser " + key.getFormatDescription() + ".",
+                        key.getFormatCheck());
+                }
+                return key.getAllowedValues() == null
+                    ? new StringRule(null, null)
+                    : new StringRule(new HashSet<>(key.getAllowedValues()), describe(key.getAllowedValues()));
+        }
+    }
+
+    /**
+     * Convierte y valida un valor para una clave. Los textos se interpretan según el tipo
+     * de la clave (por ejemplo "20" para una clave entera); los valores ya tipados solo
+     * se validan.
+     * @param key Nombre de la clave
+     * @param value Valor recibido
+     * @return Valor con el tipo de la clave (Integer, Boolean o String), o el mismo valor
+     *         si la clave no está en el esquema
+     * @throws IllegalArgumentException Si el valor no es válido para la clave
+     */
+    public Object convert(String key, Object value) {
+        Rule rule = rules.get(key);
+        if (rule == null) {
+            return value;
+        }
+        Object converted = value instanceof String ? rule.parse((String) value) : rule.coerce(value);
+        String error = rule.check(converted);
+        if (error != null) {
+            throw new IllegalArgumentException(error);
+        }
+        return converted;
+    }
+
+    /**
+     * Valida los valores presentes en un mapa en un solo recorrido
+     * @param values Configuración a validar
+     * @param complete true si además deben estar todas las claves del esquema
+     * @return Errores encontrados con el formato "clave: mensaje" (vacío si es válida)
+     */
+    public List<String> validate(Map<String, Object> values, boolean complete) {
+        List<String> errors = new ArrayList<>();
+        int known = collectErrors(values, errors, null);
+        if (complete && known < rules.size()) {
+            for (String key : rules.keySet()) {
+                if (!values.containsKey(key)) {
+                    errors.add(key + ": falta el valor");
+                }
+            }
+        }
+        return errors;
+    }
+
+    /**
+     * Devuelve la configuración sin las claves inválidas, agregando sus errores a la lista.
+     * Si todas son válidas devuelve el mismo mapa.
+     * @param values Configuración leída
+     * @param errors Lista donde se agregan los errores
+     * @return Mapa inmutable con solo las claves válidas, o el mapa original
+     */
+    public Map<String, Object> withoutInvalid(Map<String, Object> values, List<String> errors) {
+        Set<String> invalid = new HashSet<>();
+        collectErrors(values, errors, invalid);
+        if (invalid.isEmpty()) {
+            return values;
+        }
+        Map<String, Object> valid = new HashMap<>(values);
+        valid.keySet().removeAll(invalid);
+        return Collections.unmodifiableMap(valid);
+    }
+
+    /**
+     * @return Número de claves del esquema presentes con valor no nulo
+     */
+    private int collectErrors(Map<String, Object> values, List<String> errors, Set<String> invalid) {
+        int known = 0;
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            Rule rule = rules.get(entry.getKey());
+            if (rule == null) {
+                continue;
+            }
+            String error = entry.getValue() == null ? "falta el valor" : rule.check(entry.getValue());
+            if (error != null) {
+                errors.add(entry.getKey() + ": " + error);
+                if (invalid != null) {
+                    invalid.add(entry.getKey());
+                }
+            } else {
+                known++;
+            }
+        }
+        return known;
+    }
+
+    private static String describe(List<String> allowed) {
+        StringBuilder text = new StringBuilder("Debe ser ");
+        for (int i = 0; i < allowed.size(); i++) {
+            if (i > 0) {
+                text.append(i == allowed.size() - 1 ? " o " : ", ");
+            }
+            text.append('\'').append(allowed.get(i)).append('\'');
+        }
+        return text.append('.').toString();
+    }
+
+    /**
+     * Validador y conversor compilado de una clave
+     */
+    private abstract static class Rule {
+        /**
+         * Interpreta un texto con el tipo de la clave
+         * @throws IllegalArgumentException Si el texto no tiene el formato del tipo
+         */
+        abstract Object parse(String text);
+
+        /**
+         * Lleva un valor ya tipado a la representación de la clave (sin validar rangos)
+         */
+        Object coerce(Object value) {
+            return value;
+        }
+
+        /**
+         * @return null si el valor es válido, o el mensaje de error
+         */
+        abstract String check(Object value);
+    }
+
+    private static final class IntRule extends Rule {
+        private final int min;
+        private final int max;
+        private final String rangeError;
+
+        IntRule(int min, int max) {
+            this.min = min;
+            this.max = max;
+            this.rangeError = "Debe estar entre " + min + " y " + max + ".";
+        }
+
+        @Override
+        Object parse(String text) {
+            try {
+                return Integer.parseInt(text.trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Debe ser un número entero.");
+            }
+        }
+
+        @Override
+        Object coerce(Object value) {
+            if (value instanceof Long && (Long) value == ((Long) value).intValue()) {
+                return ((Long) value).intValue();
+            }
+            return value;
+        }
+
+        @Override
+        String check(Object value) {
+            long number;
+            if (value instanceof Integer) {
+                number = (Integer) value;
+            } else if (value instanceof Long) {
+                number = (Long) value;
+            } else {
+                return "Debe ser un número entero.";
+            }
+            return number < min || number > max ? rangeError : null;
+        }
+    }
+
+    private static final class BooleanRule extends Rule {
+        @Override
+        Object parse(String text) {
+            String trimmed = text.trim();
+            if ("true".equalsIgnoreCase(trimmed) || "false".equalsIgnoreCase(trimmed)) {
+                return Boolean.valueOf(trimmed);
+            }
+            throw new IllegalArgumentException("Debe ser 'true' o 'false'.");
+        }
+
+        @Override
+        String check(Object value) {
+            return value instanceof Boolean ? null : "Debe ser 'true' o 'false'.";
+        }
+    }
+
+    private static final class StringRule extends Rule {
+        private final Set<String> allowed;
+        private final String allowedError;
+
+        StringRule(Set<String> allowed, String allowedError) {
+            this.allowed = allowed;
+            this.allowedError = allowedError;
+        }
+
+        @Override
+        Object parse(String text) {
+            return text;
+        }
+
+        @Override
+        String check(Object value) {
+            if (!(value instanceof String)) {
+                return "Debe ser un texto.";
+            }
+            return allowed == null || allowed.contains(value) ? null : allowedError;
+        }
+    }
+
+    private static final class FormattedStringRule extends Rule {
+        private final Pattern format;
+        private final String formatError;
+        private final Consumer<String> check;
+
+        FormattedStringRule(Pattern format, String formatError, Consumer<String> check) {
+            this.format = format;
+            this.formatError = formatError;
+            this.check = check;
+        }
+
+        @Override
+        Object parse(String text) {
+            return text.trim();
+        }
+
+        @Override
+        String check(Object value) {
+            if (!(value instanceof String)) {
+                return "Debe ser un texto.";
+            }
+            String text = (String) value;
+            if (text.isEmpty()) {
+                return null;
+            }
+            if (!format.matcher(text).matches()) {
+                return formatError;
+            }
+            if (check != null) {
+                try {
+                    check.accept(text);
+                } catch (IllegalArgumentException e) {
+                    return e.getMessage();
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+import java.util.Map;
+
+/**
+ * Versión inmutable de la configuración en un instante dado.
+ * Las lecturas no requieren sincronización: una vez publicada, una instantánea
+ * nunca se modifica. Cada escritura produce una nueva instantánea con la
+ * versión incrementada.
+ *
+ * Los valores se guardan en un {@link PersistentConfigurationMap}: una escritura copia
+ * solo el camino hasta la clave modificada y comparte el resto con la versión anterior,
+ * y {@link #asMap()} devuelve ese mismo mapa sin copiarlo.
+ *
+ * Además del mapa genérico, los valores de las claves tipadas ({@link ConfigKey})
+ * se guardan en arreglos primitivos para que su lectura sea un simple acceso por índice.
+ */
+public final class ConfigurationSnapshot {
+    private final long version;
+    private final PersistentConfigurationMap values;
+    private final int[] ints;
+    private final boolean[] booleans;
+    private final String[] strings;
+
+    private ConfigurationSnapshot(long version, PersistentConfigurationMap values) {
+        this.version = version;
+        this.values = values;
+        this.ints = new int[ConfigKey.slotCount(ConfigKey.Kind.INT)];
+        this.booleans = new boolean[ConfigKey.slotCount(ConfigKey.Kind.BOOLEAN)];
+        this.strings = new String[ConfigKey.slotCount(ConfigKey.Kind.STRING)];
+        for (ConfigKey<?> key : ConfigKey.values()) {
+            storeSlot(key, values.get(key.getName()));
+        }
+    }
+
+    private ConfigurationSnapshot(ConfigurationSnapshot previous, PersistentConfigurationMap values,
+                                  ConfigKey<?> changed) {
+        this.version = previous.version + 1;
+        this.values = values;
+        this.ints = previous.ints.clone();
+        this.booleans = previous.booleans.clone();
+        this.strings = previous.strings.clone();
+        if (changed != null) {
+            storeSlot(changed, values.get(changed.getName()));
+        }
+    }
+
+    /**
+     * Guarda un valor en el slot primitivo de su clave.
+     * Los valores ausentes o de tipo incompatible dejan el valor neutro del tipo.
+     */
+    private void storeSlot(ConfigKey<?> key, Object value) {
+        int slot = key.getSlot();
+        switch (key.getKind()) {
+            case INT:
+                ints[slot] = value instanceof Number ? ((Number) value).intValue() : 0;
+                break;
+            case BOOLEAN:
+                booleans[slot] = value instanceof Boolean && (Boolean) value;
+                break;
+            default:
+                strings[slot] = value instanceof String ? (String) value : null;
+        }
+    }
+
+    /**
+     * Crea la primera instantánea a partir de un mapa de valores
+     * @param values Valores iniciales (se copian, salvo que ya sean un mapa persistente)
+     * @return Instantánea con versión 0
+     */
+    public static ConfigurationSnapshot of(Map<String, Object> values) {
+        return new ConfigurationSnapshot(0, PersistentConfigurationMap.copyOf(values));
+    }
+
+    /**
+     * Crea una nueva instantánea con un valor modificado
+     * @param key Clave de configuración
+     * @param value Nuevo valor
+     * @return Nueva instantánea con la versión siguiente
+     */
+    public ConfigurationSnapshot with(String key, Object value) {
+        return new ConfigurationSnapshot(this, values.with(key, value), ConfigKey.forName(key));
+    }
+
+    /**
+     * Crea una nueva instantánea que reemplaza todos los valores
+     * @param newValues Valores de la nueva versión (se copian, salvo que ya sean un mapa persistente)
+     * @return Nueva instantánea con la versión siguiente
+     */
+    public ConfigurationSnapshot replaceAll(Map<String, Object> newValues) {
+        return new ConfigurationSnapshot(version + 1, PersistentConfigurationMap.copyOf(newValues));
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Object get(String key) {
+        return values.get(key);
+    }
+
+    public int getInt(ConfigKey<Integer> key) {
+        return ints[key.getSlot()];
+    }
+
+    public boolean getBoolean(ConfigKey<Boolean> key) {
+        return booleans[key.getSlot()];
+    }
+
+    public String getString(ConfigKey<String> key) {
+        return strings[key.getSlot()];
+    }
+
+    /**
+     * Todos los valores de esta versión, sin copiarlos
+     * @return Mapa inmutable compartido con la instantánea
+     */
+    public PersistentConfigurationMap asMap() {
+        return values;
+    }
+}
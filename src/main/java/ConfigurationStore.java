@@ -0,0 +1,17 @@
+import java.util.Map;
+
+/**
+ * Destino persistente de la configuración. {@link ConfigurationSaveQueue} escribe a
+ * través de esta interfaz, ya sea directamente en un archivo ({@link ConfigurationLoader})
+ * o en la capa base de una configuración por capas ({@link LayeredConfiguration}).
+ */
+public interface ConfigurationStore {
+
+    /**
+     * Persiste la configuración efectiva
+     * @param configuration Configuración a guardar
+     * @return Duración de la escritura en nanosegundos
+     * @throws Exception Si hay error al escribir
+     */
+    long saveConfiguration(Map<String, Object> configuration) throws Exception;
+}
@@ -0,0 +1,150 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Prueba de carga de la publicación de versiones de {@link ConfigurationManager}: varios
+ * hilos escritores modifican la configuración con compare-and-set mientras varios hilos
+ * lectores leen instantáneas sin parar.
+ *
+ * Cada escritor incrementa de uno en uno su propia clave, de modo que en cualquier versión
+ * la suma de las claves de los escritores es igual al número de versiones publicadas desde
+ * el inicio. Los lectores comprueban en cada instantánea que la versión nunca retrocede,
+ * que ninguna clave de un escritor disminuye y que se cumple esa suma (una instantánea que
+ * mezclara dos versiones la rompería). Al final se comprueba que no se perdió ninguna
+ * escritura. Se ejecuta con {@code java Main --stress [escritores] [lectores] [escrituras]}.
+ */
+public class ConfigurationStressDemo {
+    static final String KEY_PREFIX = "stressWriter";
+    static final int DEFAULT_WRITERS = 4;
+    static final int DEFAULT_READERS = 8;
+    static final int DEFAULT_WRITES = 20_000;
+
+    private final ConfigurationManager configManager;
+
+    public ConfigurationStressDemo(ConfigurationManager configManager) {
+        this.configManager = configManager;
+    }
+
+    /**
+     * Ejecuta la prueba e imprime el resultado
+     * @param writers Número de hilos escritores
+     * @param readers Número de hilos lectores
+     * @param writes Escrituras por escritor
+     * @return true si no hubo versiones desordenadas, instantáneas inconsistentes ni escrituras perdidas
+     * @throws InterruptedException Si se interrumpe la espera de los hilos
+     */
+    public boolean run(int writers, int readers, int writes) throws InterruptedException {
+        if (writers < 1 || readers < 0 || writes < 1) {
+            throw new IllegalArgumentException("Se necesita al menos un escritor y una escritura");
+        }
+        String[] keys = new String[writers];
+        for (int w = 0; w < writers; w++) {
+            keys[w] = KEY_PREFIX + w;
+            configManager.setConfiguration(keys[w], 0L);
+        }
+        long baseVersion = configManager.getSnapshot().getVersion();
+        Number retriesBefore = Metrics.get().getValue("ConfigurationManager", "casRetries");
+
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch writersDone = new CountDownLatch(writers);
+        AtomicLong violations = new AtomicLong();
+        AtomicLong reads = new AtomicLong();
+        List<Thread> threads = new ArrayList<>();
+        for (int w = 0; w < writers; w++) {
+            String key = keys[w];
+            threads.add(new Thread(() -> {
+                awaitStart(start);
+                for (long i = 1; i <= writes; i++) {
+                    configManager.setConfiguration(key, i);
+                }
+                writersDone.countDown();
+            }, "config-stress-writer-" + w));
+        }
+        for (int r = 0; r < readers; r++) {
+            threads.add(new Thread(() -> {
+                awaitStart(start);
+                long[] lastValues = new long[writers];
+                long lastVersion = baseVersion;
+                long count = 0;
+                do {
+                    ConfigurationSnapshot snapshot = configManager.getSnapshot();
+                    long version = snapshot.getVersion();
+                    if (version < lastVersion) {
+                        report(violations, "la versión retrocedió de " + lastVersion + " a " + version);
+                    }
+                    long sum = 0;
+                    for (int w = 0; w < writers; w++) {
+                        long value = valueOf(snapshot, keys[w]);
+                        if (version >= lastVersion && value < lastValues[w]) {
+                            report(violations, keys[w] + " retrocedió de " + lastValues[w] + " a " + value
+                                + " en la versión " + version);
+                        }
+                        lastValues[w] = value;
+                        sum += value;
+                    }
+                    if (sum != version - baseVersion) {
+                        report(violations, "instantánea inconsistente: versión " + version
+                            + " con " + sum + " escrituras");
+                    }
+                    lastVersion = version;
+                    count++;
+                } while (writersDone.getCount() > 0);
+                reads.addAndGet(count);
+            }, "config-stress-reader-" + r));
+        }
+
+        System.out.printf("%d escritores x %d escrituras, %d lectores...%n", writers, writes, readers);
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        long startNanos = System.nanoTime();
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        double seconds = (System.nanoTime() - startNanos) / 1_000_000_000.0;
+
+        ConfigurationSnapshot last = configManager.getSnapshot();
+        long expected = (long) writers * writes;
+        long lost = expected - (last.getVersion() - baseVersion);
+        for (String key : keys) {
+            if (valueOf(last, key) != writes) {
+                report(violations, key + " terminó en " + valueOf(last, key) + " en lugar de " + writes);
+            }
+        }
+        long retries = Metrics.get().getValue("ConfigurationManager", "casRetries").longValue()
+            - retriesBefore.longValue();
+        System.out.printf("%d escrituras en %.2f s (%.0f escrituras/s), %d reintentos de CAS%n",
+            expected, seconds, expected / seconds, retries);
+        System.out.printf("%d lecturas (%.0f lecturas/s), versión final %d, escrituras perdidas %d%n",
+            reads.get(), reads.get() / seconds, last.getVersion(), lost);
+        boolean passed = lost == 0 && violations.get() == 0;
+        System.out.println(passed ? "Resultado: versiones crecientes, sin escrituras perdidas ni instantáneas inconsistentes"
+            : "Resultado: FALLO (" + violations.get() + " inconsistencias)");
+        return passed;
+    }
+
+    private static long valueOf(ConfigurationSnapshot snapshot, String key) {
+        Object value = snapshot.get(key);
+        return value instanceof Number ? ((Number) value).longValue() : 0;
+    }
+
+    /**
+     * Cuenta una inconsistencia y muestra solo las primeras
+     */
+    private static void report(AtomicLong violations, String message) {
+        if (violations.incrementAndGet() <= 10) {
+            System.err.println("Inconsistencia: " + message);
+        }
+    }
+
+    private static void awaitStart(CountDownLatch start) {
+        try {
+            start.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vigila config.json y sus archivos de región y de entorno con un {@link WatchService}
+ * y recarga la configuración en caliente.
+ *
+ * Las ráfagas de eventos del sistema de archivos se agrupan (debounce) y solo se vuelve
+ * a leer la capa cuyo archivo cambió (y solo si su hash cambió). La configuración nueva
+ * se valida antes
+ * de publicarse de forma atómica en el {@link ConfigurationManager}, que notifica a
+ * los listeners registrados con la diferencia de claves.
+ */
+public class ConfigurationWatcher implements Runnable {
+    private static final long DEBOUNCE_MS = 250;
+
+    private static final Set<ConfigurationLayer> FILE_LAYERS = EnumSet.of(ConfigurationLayer.BASE_FILE,
+        ConfigurationLayer.REGION_FILE, ConfigurationLayer.ENVIRONMENT_FILE);
+
+    private final ConfigurationManager configManager;
+    private final LayeredConfiguration layers;
+    private volatile boolean running;
+    private Thread thread;
+
+    public ConfigurationWatcher(ConfigurationManager configManager, LayeredConfiguration layers) {
+        this.configManager = configManager;
+        this.layers = layers;
+    }
+
+    /**
+     * Inicia el hilo de vigilancia (daemon)
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        thread = new Thread(this, "config-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Detiene el hilo de vigilancia
+     */
+    public synchronized void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+            thread = null;
+        }
+    }
+
+    @Override
+    public void run() {
+        Path directory = layers.getBaseFile().getParent();
+        try (WatchService watchService = directory.getFileSystem().newWatchService()) {
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+
+            while (running) {
+                Set<ConfigurationLayer> changed = EnumSet.noneOf(ConfigurationLayer.class);
+                if (!collectChanges(watchService.take(), changed)) {
+                    continue; // Otros archivos del directorio (temporales de guardado, copia binaria, respaldos)
+                }
+
+                // Agrupar la ráfaga: esperar hasta que no lleguen eventos de las capas durante
+                // DEBOUNCE_MS; los de otros archivos no alargan la espera
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DEBOUNCE_MS);
+                long remaining;
+                while ((remaining = deadline - System.nanoTime()) > 0) {
+                    WatchKey next = watchService.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next != null && collectChanges(next, changed)) {
+                        deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DEBOUNCE_MS);
+                    }
+                }
+
+                reload(changed);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | ClosedWatchServiceException e) {
+            System.err.println("Error al vigilar el archivo de configuración: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Consume los eventos de una clave y agrega las capas cuyos archivos cambiaron
+     * @return true si algún evento corresponde a un archivo de las capas
+     */
+    private boolean collectChanges(WatchKey key, Set<ConfigurationLayer> changed) {
+        boolean relevant = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                changed.addAll(FILE_LAYERS);
+                relevant = true;
+            } else if (event.context() instanceof Path) {
+                ConfigurationLayer layer = layers.layerForFile((Path) event.context());
+                if (layer != null) {
+                    changed.add(layer);
+                    relevant = true;
+                }
+            }
+        }
+        key.reset();
+        return relevant;
+    }
+
+    /**
+     * Vuelve a leer las capas indicadas (solo si su contenido cambió) y publica la nueva versión
+     * @param changed Capas cuyos archivos recibieron eventos
+     */
+    void reload(Set<ConfigurationLayer> changed) {
+        Map<String, Object> values = null;
+        for (ConfigurationLayer layer : changed) {
+            try {
+                Map<String, Object> refreshed = layers.refresh(layer);
+                if (refreshed != null) {
+                    values = refreshed;
+                }
+            } catch (Exception e) {
+                System.err.println("Error al recargar configuración (" + layer + "), se conserva la actual: "
+                    + e.getMessage());
+            }
+        }
+        if (values == null) {
+            return;
+        }
+        ConfigurationChangeEvent event = configManager.reload(values);
+        if (!event.isEmpty()) {
+            System.out.println("Configuración recargada: " + event.getChangedKeys());
+        }
+    }
+}
@@ -0,0 +1,346 @@
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pool de conexiones que limita a maxConnections las conexiones en uso simultáneo.
+ *
+ * Los permisos se reparten con un semáforo justo: quien espera más tiempo obtiene el
+ * siguiente permiso, y sin contención adquirir es una sola operación compare-and-set.
+ * Las conexiones libres se guardan en una pila sin locks (se reutiliza primero la usada
+ * más recientemente) y las que pasan más de idleTimeout segundos sin usarse se cierran
+ * en el {@link BackgroundScheduler}.
+ *
+ * Creado con {@link #fromConfiguration}, el pool sigue los cambios de maxConnections,
+ * connectionTimeout e idleTimeout en caliente. Al reducirse maxConnections, las
+ * conexiones en uso terminan normalmente y se cierran al liberarse hasta quedar
+ * dentro del nuevo límite.
+ */
+public class ConnectionPool implements AutoCloseable {
+
+    /**
+     * Conexión simulada obtenida del pool. Debe devolverse con {@link #release}.
+     */
+    public static final class Connection {
+        private final int id;
+        private final AtomicBoolean leased = new AtomicBoolean();
+        private volatile long lastReleasedNanos;
+
+        private Connection(int id) {
+            this.id = id;
+            this.lastReleasedNanos = System.nanoTime();
+        }
+
+        public int getId() {
+            return id;
+        }
+    }
+
+    /**
+     * Semáforo que permite retirar permisos para reducir el tamaño del pool
+     */
+    private static final class Slots extends Semaphore {
+        private static final long serialVersionUID = 1L;
+
+        Slots(int permits) {
+            super(permits, true);
+        }
+
+        void shrink(int permits) {
+            reducePermits(permits);
+        }
+    }
+
+    private final Slots slots;
+    private final ConcurrentLinkedDeque<Connection> idle = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger open = new AtomicInteger();
+    private final AtomicInteger inUse = new AtomicInteger();
+    private final AtomicInteger peakInUse = new AtomicInteger();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicInteger nextId = new AtomicInteger();
+    private final LongAdder acquired = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder created = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+    private final LatencyHistogram waitTime = new LatencyHistogram();
+
+    private volatile int maxSize;
+    private volatile long acquireTimeoutNanos;
+    private volatile long idleTimeoutNanos;
+    private volatile boolean closed;
+    private ScheduledFuture<?> evictionTask;
+    private ConfigurationManager configManager;
+    private ConfigurationChangeListener configListener;
+
+    /**
+     * @param maxSize Número máximo de conexiones en uso simultáneo
+     * @param acquireTimeoutMillis Espera máxima por una conexión en {@link #acquire()}
+     * @param idleTimeoutSeconds Tiempo sin usarse tras el que se cierra una conexión libre
+     */
+    public ConnectionPool(int maxSize, long acquireTimeoutMillis, long idleTimeoutSeconds) {
+        if (maxSize < 1 || acquireTimeoutMillis < 0 || idleTimeoutSeconds < 1) {
+            throw new IllegalArgumentException("Parámetros del pool de conexiones inválidos");
+        }
+        this.slots = new Slots(maxSize);
+        this.maxSize = maxSize;
+        this.acquireTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(acquireTimeoutMillis);
+        setIdleTimeout(idleTimeoutSeconds);
+    }
+
+    /**
+     * Crea un pool con maxConnections, connectionTimeout e idleTimeout que se ajusta
+     * cuando esos valores cambian. Debe cerrarse con {@link #close()}.
+     * @param configManager Configuración de la que toma los parámetros
+     * @return Pool configurado
+     */
+    public static ConnectionPool fromConfiguration(ConfigurationManager configManager) {
+        ConnectionPool pool = new ConnectionPool(configManager.getMaxConnections(),
+            configManager.getConnectionTimeout(), configManager.getIdleTimeout());
+        pool.follow(configManager);
+        return pool;
+    }
+
+    private synchronized void follow(ConfigurationManager manager) {
+        configManager = manager;
+        configListener = event -> {
+            ConfigurationSnapshot current = event.getCurrent();
+            if (event.hasChanged(ConfigKey.MAX_CONNECTIONS)) {
+                resize(current.getInt(ConfigKey.MAX_CONNECTIONS));
+            }
+            if (event.hasChanged(ConfigKey.CONNECTION_TIMEOUT)) {
+                acquireTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(current.getInt(ConfigKey.CONNECTION_TIMEOUT));
+            }
+            if (event.hasChanged(ConfigKey.IDLE_TIMEOUT)) {
+                setIdleTimeout(current.getInt(ConfigKey.IDLE_TIMEOUT));
+            }
+        };
+        manager.addChangeListener(configListener);
+    }
+
+    /**
+     * Obtiene una conexión esperando como máximo connectionTimeout
+     * @return Conexión, o null si no se liberó ninguna a tiempo
+     * @throws InterruptedException Si el hilo es interrumpido mientras espera
+     */
+    public Connection acquire() throws InterruptedException {
+        return acquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Obtiene una conexión, esperando si todas están en uso
+     * @param timeout Espera máxima
+     * @param unit Unidad de la espera
+     * @return Conexión, o null si no se liberó ninguna a tiempo (se cuenta como rechazo)
+     * @throws InterruptedException Si el hilo es interrumpido mientras espera
+     * @throws IllegalStateException Si el pool está cerrado
+     */
+    public Connection acquire(long timeout, TimeUnit unit) throws InterruptedException {
+        if (closed) {
+            throw new IllegalStateException("El pool de conexiones está cerrado");
+        }
+        long start = System.nanoTime();
+        boolean granted;
+        waiting.incrementAndGet();
+        try {
+            granted = slots.tryAcquire(timeout, unit);
+        } finally {
+            waiting.decrementAndGet();
+        }
+        waitTime.record(System.nanoTime() - start);
+        if (!granted) {
+            timeouts.increment();
+            return null;
+        }
+
+        Connection connection = idle.pollFirst();
+        if (connection == null) {
+            connection = new Connection(nextId.incrementAndGet());
+            open.incrementAndGet();
+            created.increment();
+        }
+        connection.leased.set(true);
+        acquired.increment();
+        peakInUse.accumulateAndGet(inUse.incrementAndGet(), Math::max);
+        return connection;
+    }
+
+    /**
+     * Devuelve una conexión al pool. Si el pool se redujo o está cerrado, la conexión se
+     * cierra en lugar de quedar libre.
+     * @param connection Conexión obtenida con {@link #acquire}
+     * @throws IllegalStateException Si la conexión ya se había devuelto
+     */
+    public void release(Connection connection) {
+        if (!connection.leased.compareAndSet(true, false)) {
+            throw new IllegalStateException("La conexión " + connection.id + " ya fue liberada");
+        }
+        inUse.decrementAndGet();
+        connection.lastReleasedNanos = System.nanoTime();
+        if (closed || open.get() > maxSize) {
+            open.decrementAndGet();
+        } else {
+            idle.offerFirst(connection);
+        }
+        slots.release();
+    }
+
+    /**
+     * Cambia el número máximo de conexiones en uso simultáneo
+     * @param newSize Nuevo tamaño
+     */
+    public synchronized void resize(int newSize) {
+        if (newSize < 1 || newSize == maxSize) {
+            return;
+        }
+        int delta = newSize - maxSize;
+        maxSize = newSize;
+        if (delta > 0) {
+            slots.release(delta);
+        } else {
+            slots.shrink(-delta);
+            // Cerrar las conexiones libres que sobran; las que están en uso se cierran al liberarse
+            while (open.get() > newSize) {
+                Connection connection = idle.pollLast();
+                if (connection == null) {
+                    break;
+                }
+                open.decrementAndGet();
+            }
+        }
+    }
+
+    private synchronized void setIdleTimeout(long seconds) {
+        idleTimeoutNanos = TimeUnit.SECONDS.toNanos(seconds);
+        if (evictionTask != null) {
+            evictionTask.cancel(false);
+        }
+        if (!closed) {
+            long period = Math.max(1, seconds / 2);
+            evictionTask = BackgroundScheduler.get().scheduleWithFixedDelay(this::evictIdle, period, period,
+                TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Cierra las conexiones libres que llevan más de idleTimeout sin usarse. Las más
+     * antiguas están al final de la pila.
+     * @return Número de conexiones cerradas
+     */
+    int evictIdle() {
+        long deadline = System.nanoTime() - idleTimeoutNanos;
+        int count = 0;
+        Connection oldest;
+        while ((oldest = idle.pollLast()) != null) {
+            if (oldest.lastReleasedNanos - deadline > 0) {
+                idle.offerLast(oldest); // Todavía no venció
+                break;
+            }
+            open.decrementAndGet();
+            evicted.increment();
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Cierra el pool: deja de seguir la configuración, cierra las conexiones libres y
+     * rechaza nuevas adquisiciones. Las conexiones en uso se cierran al liberarse.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (evictionTask != null) {
+            evictionTask.cancel(false);
+            evictionTask = null;
+        }
+        if (configManager != null) {
+            configManager.removeChangeListener(configListener);
+        }
+        while (idle.pollFirst() != null) {
+            open.decrementAndGet();
+        }
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public int getInUse() {
+        return inUse.get();
+    }
+
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    public int getOpenCount() {
+        return open.get();
+    }
+
+    /**
+     * @return Hilos esperando una conexión en este momento
+     */
+    public int getWaiting() {
+        return waiting.get();
+    }
+
+    public int getPeakInUse() {
+        return peakInUse.get();
+    }
+
+    /**
+     * Fracción del pool en uso en este momento
+     * @return Valor entre 0 y 1 (puede superar 1 justo después de reducir el pool)
+     */
+    public double getUtilization() {
+        return inUse.get() / (double) maxSize;
+    }
+
+    public long getAcquiredCount() {
+        return acquired.sum();
+    }
+
+    /**
+     * @return Adquisiciones rechazadas por superar la espera máxima
+     */
+    public long getTimeoutCount() {
+        return timeouts.sum();
+    }
+
+    public long getCreatedCount() {
+        return created.sum();
+    }
+
+    /**
+     * @return Conexiones cerradas por superar idleTimeout
+     */
+    public long getEvictedCount() {
+        return evicted.sum();
+    }
+
+    /**
+     * Tiempo de espera de cada adquisición, concedida o rechazada
+     * @return Histograma de esperas en nanosegundos
+     */
+    public LatencyHistogram getWaitTime() {
+        return waitTime;
+    }
+
+    /**
+     * Resumen del estado y las métricas del pool
+     * @return Texto con uso, esperas y rechazos
+     */
+    public String summary() {
+        return String.format("%d/%d en uso (pico %d), %d en espera, %d obtenidas, %d rechazadas, "
+                + "%d creadas, %d cerradas por inactividad",
+            getInUse(), getMaxSize(), getPeakInUse(), getWaiting(), getAcquiredCount(), getTimeoutCount(),
+            getCreatedCount(), getEvictedCount());
+    }
+}
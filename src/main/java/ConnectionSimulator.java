@@ -1,25 +1,42 @@
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
-import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * Simulador de conexiones que utiliza la configuración global
+ * Simulador de conexiones que utiliza la configuración global.
+ * Es una vista Swing de {@link SimulationEngine}, que realiza la simulación contra
+ * un {@link ConnectionPool} de maxConnections conexiones que vive mientras la ventana
+ * está abierta y se redimensiona en caliente.
  */
 public class ConnectionSimulator extends JFrame {
     private ConfigurationManager configManager;
+    private static final int MAX_LOG_LINES = 1000;
+    private static final int LOG_BUFFER_CAPACITY = 4096;
+    private static final int LOG_FRAME_MS = 33;
+    
     private JTextArea logArea;
+    private JLabel droppedLabel;
+    private final LogRingBuffer logBuffer = new LogRingBuffer(LOG_BUFFER_CAPACITY);
+    private final StringBuilder logBatch = new StringBuilder();
+    private Timer logTimer;
     private JProgressBar progressBar;
     private JButton startButton;
     private JButton closeButton;
     private JLabel statusLabel;
     private JLabel summaryLabel;
-    private Random random;
+    private JLabel latencyLabel;
+    private JLabel poolLabel;
+    private Timer latencyTimer;
+    private final ConnectionPool pool;
+    private volatile SimulationEngine engine;
+    private final ConfigurationChangeListener configListener = this::onConfigurationChanged;
     
     public ConnectionSimulator() {
         this.configManager = ConfigurationManager.getInstance();
-        this.random = new Random();
+        this.pool = ConnectionPool.fromConfiguration(configManager);
         initializeUI();
+        configManager.addChangeListener(configListener);
     }
     
     /**
@@ -60,6 +77,14 @@ public class ConnectionSimulator extends JFrame {
         JScrollPane scrollPane = new JScrollPane(logArea);
         logPanel.add(scrollPane, BorderLayout.CENTER);
         
+        droppedLabel = new JLabel(" ");
+        droppedLabel.setFont(new Font("Arial", Font.ITALIC, 11));
+        logPanel.add(droppedLabel, BorderLayout.SOUTH);
+        
+        // Vaciar el búfer de logs en un solo append por cuadro
+        logTimer = new Timer(LOG_FRAME_MS, e -> flushLog());
+        logTimer.start();
+        
         // Barra de progreso
         progressBar = new JProgressBar(0, 100);
         progressBar.setStringPainted(true);
@@ -76,9 +101,24 @@ public class ConnectionSimulator extends JFrame {
         summaryLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
         summaryLabel.setFont(new Font("Arial", Font.BOLD, 14));
         
+        latencyLabel = new JLabel("Latencia: -");
+        latencyLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
+        latencyLabel.setFont(new Font("Monospaced", Font.PLAIN, 12));
+        
+        poolLabel = new JLabel("Pool: " + pool.summary());
+        poolLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
+        poolLabel.setFont(new Font("Monospaced", Font.PLAIN, 12));
+        
+        // Refrescar los percentiles de latencia y el pool en vivo mientras corre la simulación
+        latencyTimer = new Timer(500, e -> refreshLatency());
+        
         infoPanel.add(statusLabel);
         infoPanel.add(Box.createVerticalStrut(5));
         infoPanel.add(summaryLabel);
+        infoPanel.add(Box.createVerticalStrut(5));
+        infoPanel.add(latencyLabel);
+        infoPanel.add(Box.createVerticalStrut(5));
+        infoPanel.add(poolLabel);
         infoPanel.add(Box.createVerticalStrut(10));
         infoPanel.add(progressBar);
         
@@ -95,83 +135,160 @@ public class ConnectionSimulator extends JFrame {
      */
     private void startSimulation() {
         startButton.setEnabled(false);
+        logBuffer.clear();
         logArea.setText("");
+        droppedLabel.setText(" ");
         progressBar.setValue(0);
         
         int maxConnections = configManager.getMaxConnections();
         boolean enableLogs = configManager.isEnableLogs();
         
-        statusLabel.setText("Estado: Simulando " + maxConnections + " conexiones...");
+        WorkloadProfile workload;
+        try {
+            workload = WorkloadProfile.fromConfiguration(configManager);
+        } catch (IllegalArgumentException e) {
+            statusLabel.setText("Estado: Modelo de carga inválido - " + e.getMessage());
+            startButton.setEnabled(true);
+            return;
+        }
+        statusLabel.setText("Estado: Simulando " + maxConnections + " conexiones (semilla "
+            + workload.getSeed() + ")...");
         
         // Ejecutar simulación en un hilo separado para no bloquear la UI
-        SwingWorker<Void, Void> worker = new SwingWorker<Void, Void>() {
+        SimulationEngine engine = SimulationEngine.withPool(pool, workload, maxConnections, 0,
+            SimulationEngine.ExecutionMode.PLATFORM);
+        this.engine = engine;
+        latencyLabel.setText("Latencia: -");
+        latencyTimer.start();
+        SwingWorker<SimulationResult, Void> worker = new SwingWorker<SimulationResult, Void>() {
             @Override
-            protected Void doInBackground() throws Exception {
-                int successfulConnections = 0;
-                int failedConnections = 0;
-                
-                for (int i = 1; i <= maxConnections; i++) {
-                    // Simular tiempo de conexión
-                    Thread.sleep(random.nextInt(500) + 200);
-                    
-                    // Simular éxito o fallo (70% éxito)
-                    boolean success = random.nextDouble() < 0.7;
-                    
-                    if (success) {
-                        successfulConnections++;
-                        if (enableLogs) {
-                            logMessage("Conexión " + i + " exitosa");
-                        }
-                    } else {
-                        failedConnections++;
-                        if (enableLogs) {
-                            logMessage("Fallo en conexión " + i);
-                        }
+            protected SimulationResult doInBackground() throws Exception {
+                AtomicInteger lastProgress = new AtomicInteger();
+                return engine.run((connectionId, success, completed) -> {
+                    if (enableLogs) {
+                        logMessage(success ? "Conexión " + connectionId + " exitosa"
+                            : "Fallo en conexión " + connectionId);
                     }
                     
-                    // Actualizar progreso
-                    final int progress = (i * 100) / maxConnections;
-                    final int finalSuccessful = successfulConnections;
-                    final int finalFailed = failedConnections;
-                    
-                    SwingUtilities.invokeLater(() -> {
-                        progressBar.setValue(progress);
-                        progressBar.setString(progress + "% completado");
-                    });
-                }
-                
-                // Mostrar resumen final
-                final String summary = String.format("Resumen: %d exitosas, %d fallidas - Moneda: %s", 
-                    successfulConnections, failedConnections, configManager.getDefaultCurrency());
-                
-                SwingUtilities.invokeLater(() -> {
-                    summaryLabel.setText(summary);
-                    statusLabel.setText("Estado: Simulación completada");
-                    startButton.setEnabled(true);
+                    // Actualizar progreso solo cuando cambia el porcentaje
+                    final int progress = (int) ((completed * 100L) / Math.max(1, maxConnections));
+                    if (lastProgress.getAndSet(progress) != progress) {
+                        SwingUtilities.invokeLater(() -> {
+                            progressBar.setValue(progress);
+                            progressBar.setString(progress + "% completado");
+                        });
+                    }
                 });
-                
-                return null;
+            }
+            
+            @Override
+            protected void done() {
+                latencyTimer.stop();
+                try {
+                    // Mostrar resumen final
+                    SimulationResult result = get();
+                    summaryLabel.setText(String.format("Resumen: %d exitosas, %d fallidas - Moneda: %s",
+                        result.getSuccessful(), result.getFailed(), configManager.getDefaultCurrency()));
+                    statusLabel.setText(result.isOpenLoop()
+                        ? String.format("Estado: Simulación completada (tasa objetivo %.1f/s, lograda %.1f/s)",
+                            result.getTargetRate(), result.getAchievedRate())
+                        : String.format("Estado: Simulación completada (%.1f conexiones/s)", result.getThroughput()));
+                    latencyLabel.setText("Latencia: " + result.getLatency().summary());
+                    poolLabel.setText("Pool: " + pool.summary());
+                } catch (Exception e) {
+                    statusLabel.setText("Estado: Simulación interrumpida");
+                }
+                startButton.setEnabled(true);
             }
         };
         
         worker.execute();
     }
     
+    /**
+     * Muestra los percentiles de latencia registrados hasta el momento y el estado del pool
+     */
+    private void refreshLatency() {
+        poolLabel.setText("Pool: " + pool.summary());
+        SimulationEngine running = engine;
+        if (running != null) {
+            LatencyHistogram latency = running.getLiveLatency();
+            if (latency.getTotalCount() > 0) {
+                latencyLabel.setText("Latencia: " + latency.summary());
+            }
+        }
+    }
+    
+    /**
+     * Informa de los cambios de maxConnections recibidos mientras la ventana está abierta;
+     * el pool ya se redimensionó, también durante una simulación en curso
+     */
+    private void onConfigurationChanged(ConfigurationChangeEvent event) {
+        if (event.hasChanged(ConfigKey.MAX_CONNECTIONS)) {
+            int maxConnections = event.getCurrent().getInt(ConfigKey.MAX_CONNECTIONS);
+            SwingUtilities.invokeLater(() -> {
+                poolLabel.setText("Pool: " + pool.summary());
+                if (startButton.isEnabled()) {
+                    statusLabel.setText("Estado: pool redimensionado a " + maxConnections + " conexiones");
+                }
+            });
+        }
+    }
+    
+    /**
+     * Detiene la recepción de cambios de configuración al cerrar la ventana
+     */
+    @Override
+    public void dispose() {
+        SimulationEngine running = engine;
+        if (running != null) {
+            running.cancel();
+        }
+        latencyTimer.stop();
+        logTimer.stop();
+        configManager.removeChangeListener(configListener);
+        pool.close();
+        super.dispose();
+    }
+    
     /**
      * Agrega un mensaje al área de logs
      */
     private void logMessage(String message) {
-        SwingUtilities.invokeLater(() -> {
-            logArea.append(message + "\n");
+        logBuffer.offer(message);
+    }
+    
+    /**
+     * Vuelca en el área de logs las líneas acumuladas desde el último cuadro,
+     * conservando solo las últimas MAX_LOG_LINES líneas
+     */
+    private void flushLog() {
+        logBatch.setLength(0);
+        if (logBuffer.drainTo(logBatch, MAX_LOG_LINES) > 0) {
+            logArea.append(logBatch.toString());
+            int excess = logArea.getLineCount() - 1 - MAX_LOG_LINES;
+            if (excess > 0) {
+                try {
+                    logArea.replaceRange("", 0, logArea.getLineStartOffset(excess));
+                } catch (javax.swing.text.BadLocationException e) {
+                    logArea.setText("");
+                }
+            }
             // Auto-scroll al final
             logArea.setCaretPosition(logArea.getDocument().getLength());
-        });
+        }
+        long dropped = logBuffer.getDroppedCount();
+        if (dropped > 0) {
+            droppedLabel.setText("Líneas descartadas por exceso de logs: " + dropped);
+        }
     }
     
     /**
      * Método principal para probar el simulador de conexiones
      */
     public static void main(String[] args) {
+        ConfigurationManager.getInstance().startHotReload();
+        ConfigurationManager.getInstance().startAutosave();
         SwingUtilities.invokeLater(() -> {
             ConnectionSimulator simulator = new ConnectionSimulator();
             simulator.setVisible(true);
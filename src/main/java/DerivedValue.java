@@ -0,0 +1,106 @@
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Valor calculado a partir de algunas claves de la configuración y memorizado hasta que
+ * alguna de ellas cambia. Se obtiene con {@link ConfigurationManager#derive}.
+ *
+ * Cada valor recuerda la instantánea y los valores de entrada con los que se calculó.
+ * Mientras la instantánea vigente sea la misma, {@link #get()} es una comparación de
+ * referencias; si cambió, solo se recalcula cuando difiere alguna de sus claves, y los
+ * cambios de otras claves no lo invalidan. La función se evalúa sobre una sola
+ * instantánea, así que nunca mezcla valores de versiones distintas.
+ *
+ * El valor memorizado puede descartarse para respetar el límite de
+ * {@link DerivedValueCache}; en ese caso se vuelve a calcular en el siguiente uso.
+ * @param <T> Tipo del valor calculado
+ */
+public final class DerivedValue<T> implements Supplier<T> {
+    private final Supplier<ConfigurationSnapshot> source;
+    private final Function<ConfigurationSnapshot, T> function;
+    private final ConfigKey<?>[] inputs;
+    private final DerivedValueCache cache;
+    private volatile Entry<T> entry;
+    // Usado desde la última pasada del reloj de expulsión (ver DerivedValueCache)
+    volatile boolean referenced;
+    // Si está en el anillo de la caché; protegido por el lock de la caché
+    boolean admitted;
+
+    DerivedValue(Supplier<ConfigurationSnapshot> source, Function<ConfigurationSnapshot, T> function,
+                 ConfigKey<?>[] inputs, DerivedValueCache cache) {
+        this.source = source;
+        this.function = function;
+        this.inputs = inputs.clone();
+        this.cache = cache;
+    }
+
+    /**
+     * Obtiene el valor para la configuración vigente, calculándolo si alguna de sus
+     * claves cambió desde el último cálculo
+     * @return Valor calculado
+     */
+    @Override
+    public T get() {
+        ConfigurationSnapshot current = source.get();
+        Entry<T> cached = entry;
+        if (cached != null) {
+            if (cached.snapshot == current) {
+                if (!referenced) {
+                    referenced = true; // Se escribe solo si cambia, para no pagar la barrera en cada lectura
+                }
+                return cached.value;
+            }
+            if (sameInputs(cached, current)) {
+                // Solo cambiaron otras claves: el valor sigue siendo válido para esta versión
+                cached.snapshot = current;
+                referenced = true;
+                return cached.value;
+            }
+        }
+        T value = function.apply(current);
+        Object[] values = new Object[inputs.length];
+        for (int i = 0; i < inputs.length; i++) {
+            values[i] = current.get(inputs[i].getName());
+        }
+        entry = new Entry<>(current, values, value);
+        referenced = true;
+        cache.admit(this);
+        return value;
+    }
+
+    private boolean sameInputs(Entry<T> cached, ConfigurationSnapshot current) {
+        for (int i = 0; i < inputs.length; i++) {
+            Object value = current.get(inputs[i].getName());
+            if (value != cached.inputs[i] && !ConfigurationChangeEvent.sameValue(value, cached.inputs[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Descarta el valor memorizado; el siguiente {@link #get()} lo recalcula
+     */
+    void clear() {
+        entry = null;
+    }
+
+    boolean isCached() {
+        return entry != null;
+    }
+
+    /**
+     * Valor con la instantánea y los valores de entrada con que se calculó
+     */
+    private static final class Entry<T> {
+        volatile ConfigurationSnapshot snapshot;
+        final Object[] inputs;
+        final T value;
+
+        Entry(ConfigurationSnapshot snapshot, Object[] inputs, T value) {
+            this.snapshot = snapshot;
+            this.inputs = inputs;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+import java.util.ArrayDeque;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Límite de memoria de los valores derivados de una configuración ({@link DerivedValue}).
+ *
+ * Como mucho {@code maxEntries} valores quedan memorizados a la vez. Al superar el límite
+ * se descartan con el algoritmo del reloj (segunda oportunidad): los valores usados desde
+ * la pasada anterior se conservan una vuelta más y se descarta el primero que no se usó.
+ * Leer un valor memorizado solo marca un indicador, sin locks; el lock se toma únicamente
+ * al calcular un valor nuevo.
+ */
+public final class DerivedValueCache {
+    static final int DEFAULT_MAX_ENTRIES = 256;
+
+    private static final String METRICS_GROUP = "DerivedValueCache";
+    private static final Metrics.Counter COMPUTED = Metrics.get().counter(METRICS_GROUP, "computed");
+    private static final Metrics.Counter EVICTED = Metrics.get().counter(METRICS_GROUP, "evicted");
+
+    private final Supplier<ConfigurationSnapshot> source;
+    private final int maxEntries;
+    private final ArrayDeque<DerivedValue<?>> ring = new ArrayDeque<>();
+
+    /**
+     * @param source Instantánea vigente de la configuración
+     * @param maxEntries Número máximo de valores memorizados
+     */
+    public DerivedValueCache(Supplier<ConfigurationSnapshot> source, int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("El límite de valores derivados debe ser positivo");
+        }
+        this.source = source;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Registra un valor derivado de algunas claves
+     * @param function Cálculo a partir de una instantánea; debe leer solo las claves indicadas
+     * @param inputs Claves de las que depende el valor
+     * @return Valor derivado, que se calcula en el primer uso
+     * @throws IllegalArgumentException Si no se indica ninguna clave
+     */
+    public <T> DerivedValue<T> derive(Function<ConfigurationSnapshot, T> function, ConfigKey<?>... inputs) {
+        if (inputs.length == 0) {
+            throw new IllegalArgumentException("Un valor derivado debe depender de al menos una clave");
+        }
+        return new DerivedValue<>(source, function, inputs, this);
+    }
+
+    /**
+     * Incorpora un valor recién calculado y descarta otros si se supera el límite
+     */
+    synchronized void admit(DerivedValue<?> value) {
+        COMPUTED.increment();
+        if (!value.admitted) {
+            value.admitted = true;
+            ring.addLast(value);
+        }
+        while (ring.size() > maxEntries) {
+            DerivedValue<?> candidate = ring.pollFirst();
+            if (candidate.referenced && candidate != value) {
+                candidate.referenced = false;
+                ring.addLast(candidate);
+            } else if (candidate == value) {
+                ring.addLast(candidate);
+            } else {
+                candidate.admitted = false;
+                candidate.clear();
+                EVICTED.increment();
+            }
+        }
+    }
+
+    /**
+     * @return Número de valores memorizados en este momento
+     */
+    public synchronized int size() {
+        return ring.size();
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+}
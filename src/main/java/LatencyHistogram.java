@@ -0,0 +1,120 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histograma de latencias con cubetas logarítmicas al estilo HDR.
+ *
+ * Cada potencia de dos se divide en {@link #SUB_BUCKETS} sub-cubetas lineales, lo que da
+ * un error relativo máximo de ~3% para cualquier valor entre 1 ns y ~4.9 horas.
+ * Registrar un valor no reserva memoria ni toma locks: solo incrementa un contador
+ * atómico, por lo que es seguro leer el histograma mientras otros hilos registran.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BITS = 5;
+    static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int LINEAR_LIMIT = SUB_BUCKETS * 2;
+    private static final int MAX_BITS = 44;
+    static final long MAX_VALUE = (1L << MAX_BITS) - 1;
+    private static final int BUCKET_COUNT = LINEAR_LIMIT + (MAX_BITS - SUB_BITS - 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong totalCount = new AtomicLong();
+    private final AtomicLong maxValue = new AtomicLong();
+
+    /**
+     * Registra un valor (normalmente una duración en nanosegundos).
+     * Los valores negativos se registran como 0 y los mayores que {@link #MAX_VALUE} se acotan.
+     * @param value Valor a registrar
+     */
+    public void record(long value) {
+        long clamped = Math.min(Math.max(value, 0), MAX_VALUE);
+        counts.incrementAndGet(indexOf(clamped));
+        totalCount.incrementAndGet();
+        long max;
+        while (clamped > (max = maxValue.get()) && !maxValue.compareAndSet(max, clamped)) {
+            // Reintentar si otro hilo actualizó el máximo
+        }
+    }
+
+    static int indexOf(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+        int shift = (63 - Long.numberOfLeadingZeros(value)) - SUB_BITS;
+        return LINEAR_LIMIT + (shift - 1) * SUB_BUCKETS + (int) ((value >>> shift) - SUB_BUCKETS);
+    }
+
+    /**
+     * Valor más alto representado por una cubeta
+     */
+    static long highestValueAt(int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+        int shift = (index - LINEAR_LIMIT) / SUB_BUCKETS + 1;
+        long sub = (index - LINEAR_LIMIT) % SUB_BUCKETS + SUB_BUCKETS;
+        return ((sub + 1) << shift) - 1;
+    }
+
+    /**
+     * Suma los conteos de otro histograma en este
+     * @param other Histograma a sumar
+     */
+    public void merge(LatencyHistogram other) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            long count = other.counts.get(i);
+            if (count != 0) {
+                counts.addAndGet(i, count);
+            }
+        }
+        totalCount.addAndGet(other.totalCount.get());
+        long otherMax = other.maxValue.get();
+        long max;
+        while (otherMax > (max = maxValue.get()) && !maxValue.compareAndSet(max, otherMax)) {
+            // Reintentar si otro hilo actualizó el máximo
+        }
+    }
+
+    /**
+     * Obtiene el valor por debajo del cual cae el porcentaje indicado de registros
+     * @param percentile Percentil entre 0 y 100
+     * @return Valor del percentil (límite superior de su cubeta, acotado al máximo real)
+     */
+    public long getValueAtPercentile(double percentile) {
+        long total = totalCount.get();
+        if (total == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(total * Math.min(percentile, 100.0) / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts.get(i);
+            if (seen >= target) {
+                return Math.min(highestValueAt(i), maxValue.get());
+            }
+        }
+        return maxValue.get();
+    }
+
+    public long getTotalCount() {
+        return totalCount.get();
+    }
+
+    public long getMaxValue() {
+        return maxValue.get();
+    }
+
+    /**
+     * Resumen de percentiles en milisegundos
+     * @return Texto con p50, p90, p99, p99.9 y máximo
+     */
+    public String summary() {
+        return String.format("p50=%.1f ms, p90=%.1f ms, p99=%.1f ms, p99.9=%.1f ms, max=%.1f ms",
+            millis(getValueAtPercentile(50)), millis(getValueAtPercentile(90)),
+            millis(getValueAtPercentile(99)), millis(getValueAtPercentile(99.9)), millis(getMaxValue()));
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
@@ -0,0 +1,551 @@
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Configuración resuelta a partir de varias capas apiladas (ver {@link ConfigurationLayer}):
+ * valores por defecto, archivo base, archivo de la región, archivo del entorno,
+ * variables de entorno y propiedades del sistema.
+ *
+ * Cada capa se lee una vez y se guarda en caché junto con la vista combinada y el origen
+ * de cada clave. Cuando cambia una capa solo se vuelve a leer esa capa, y solo se
+ * recalculan las claves que contiene.
+ *
+ * Los archivos de región y de entorno están junto al archivo base: para config.json son
+ * config.region.&lt;región&gt;.json y config.env.&lt;entorno&gt;.json. La región es el valor de
+ * "region" según las demás capas; el entorno se indica con -Dconfig.environment o
+ * CONFIG_ENVIRONMENT. El archivo base se puede cambiar con -Dconfig.file o CONFIG_FILE.
+ *
+ * Cada capa se valida con {@link ConfigurationSchema}: al arrancar se descartan solo las
+ * claves inválidas; en una recarga se rechaza la capa completa.
+ *
+ * Al guardar solo se escribe el archivo base: los valores que provienen de una capa
+ * superior no se copian a él, salvo que se hayan modificado en tiempo de ejecución.
+ * El archivo de región se elige al resolver y al recargar capas, no al guardar.
+ *
+ * Para un inquilino ({@link #forTenant}) la capa de valores por defecto es la
+ * configuración del inquilino por defecto y no se aplican variables de entorno ni
+ * propiedades del sistema (ya están en esa capa).
+ *
+ * La vista combinada es un {@link PersistentConfigurationMap} construido sobre el mapa
+ * de valores por defecto: solo se agregan las claves de las demás capas, de modo que los
+ * nodos del trie que no tocan se comparten con ese mapa (y, en los inquilinos, entre
+ * todos ellos). El origen solo se registra para esas claves; el resto viene de DEFAULTS.
+ */
+public class LayeredConfiguration implements ConfigurationStore {
+    static final String PROPERTY_PREFIX = "config.";
+    static final String VARIABLE_PREFIX = "CONFIG_";
+    private static final String FILE_PROPERTY = "config.file";
+    private static final String FILE_VARIABLE = "CONFIG_FILE";
+    private static final String ENVIRONMENT_PROPERTY = "config.environment";
+    private static final String ENVIRONMENT_VARIABLE = "CONFIG_ENVIRONMENT";
+    private static final String DEFAULT_FILE = "config.json";
+    private static final Pattern OVERLAY_NAME = Pattern.compile("[A-Za-z0-9_-]+");
+
+    private final ConfigurationSchema schema = ConfigurationSchema.get();
+    private final Path baseFile;
+    private final Map<String, String> environment;
+    private final Properties systemProperties;
+    private final String environmentName;
+    private final boolean tenant;
+    private PersistentConfigurationMap defaults;
+
+    private final Map<ConfigurationLayer, Map<String, Object>> layers = new EnumMap<>(ConfigurationLayer.class);
+    private final Map<ConfigurationLayer, ConfigurationLoader> loaders = new EnumMap<>(ConfigurationLayer.class);
+    private PersistentConfigurationMap merged = PersistentConfigurationMap.empty();
+    // Origen de las claves que no provienen de los valores por defecto
+    private Map<String, ConfigurationLayer> sources = new HashMap<>();
+    private String regionName;
+
+    /**
+     * Crea la configuración por capas del proceso actual, con el archivo base indicado
+     * por -Dconfig.file o CONFIG_FILE (config.json por defecto)
+     */
+    public LayeredConfiguration() {
+        this(null, System.getenv(), System.getProperties());
+    }
+
+    /**
+     * @param baseFile Archivo base, o null para usar -Dconfig.file, CONFIG_FILE o config.json
+     * @param environment Variables de entorno a considerar
+     * @param systemProperties Propiedades del sistema a considerar
+     */
+    public LayeredConfiguration(Path baseFile, Map<String, String> environment, Properties systemProperties) {
+        this(baseFile, ConfigKey.defaults(), environment, systemProperties, false);
+    }
+
+    private LayeredConfiguration(Path baseFile, Map<String, Object> defaults, Map<String, String> environment,
+                                 Properties systemProperties, boolean tenant) {
+        this.environment = environment;
+        this.systemProperties = systemProperties;
+        this.tenant = tenant;
+        this.defaults = PersistentConfigurationMap.copyOf(defaults);
+        this.baseFile = (baseFile != null ? baseFile : Paths.get(setting(FILE_PROPERTY, FILE_VARIABLE, DEFAULT_FILE)))
+            .toAbsolutePath();
+        this.environmentName = setting(ENVIRONMENT_PROPERTY, ENVIRONMENT_VARIABLE, null);
+        for (ConfigurationLayer layer : ConfigurationLayer.values()) {
+            if (layer != ConfigurationLayer.RUNTIME) {
+                layers.put(layer, Collections.emptyMap());
+            }
+        }
+        loaders.put(ConfigurationLayer.BASE_FILE, new ConfigurationLoader(this.baseFile));
+    }
+
+    /**
+     * Crea la configuración de un inquilino. Sus archivos de región están junto a su archivo
+     * base (por ejemplo acme.region.LATAM.json para acme.json); no tiene archivo de entorno.
+     * @param file Archivo del inquilino (puede no existir)
+     * @param defaults Configuración compartida que actúa como capa de valores por defecto;
+     *                 si es un {@link PersistentConfigurationMap} se comparte sin copiarse
+     * @return Configuración por capas del inquilino, sin resolver
+     */
+    public static LayeredConfiguration forTenant(Path file, Map<String, Object> defaults) {
+        return new LayeredConfiguration(file, defaults, Collections.emptyMap(), new Properties(), true);
+    }
+
+    private String setting(String property, String variable, String fallback) {
+        String value = systemProperties.getProperty(property);
+        if (value == null) {
+            value = environment.get(variable);
+        }
+        return value != null && !value.isEmpty() ? value : fallback;
+    }
+
+    /**
+     * Lee todas las capas y calcula la vista combinada. Una capa que no se puede leer
+     * queda vacía y se informa por la salida de error.
+     * @return Configuración combinada (inmutable)
+     */
+    public synchronized Map<String, Object> resolve() {
+        layers.put(ConfigurationLayer.DEFAULTS, defaults);
+        for (ConfigurationLayer layer : new ConfigurationLayer[] {ConfigurationLayer.BASE_FILE,
+                ConfigurationLayer.ENVIRONMENT_VARIABLES, ConfigurationLayer.SYSTEM_PROPERTIES,
+                ConfigurationLayer.ENVIRONMENT_FILE}) {
+            layers.put(layer, readValid(layer));
+        }
+        switchRegion();
+        layers.put(ConfigurationLayer.REGION_FILE, readValid(ConfigurationLayer.REGION_FILE));
+        sources = new HashMap<>();
+        merged = overlay(sources);
+        return merged;
+    }
+
+    /**
+     * Construye la vista combinada agregando al mapa de valores por defecto las claves de
+     * las demás capas, y anota el origen de esas claves
+     */
+    private PersistentConfigurationMap overlay(Map<String, ConfigurationLayer> targetSources) {
+        PersistentConfigurationMap result = PersistentConfigurationMap.copyOf(layers.get(ConfigurationLayer.DEFAULTS));
+        for (ConfigurationLayer layer : layers.keySet()) {
+            if (layer == ConfigurationLayer.DEFAULTS) {
+                continue;
+            }
+            for (Map.Entry<String, Object> entry : layers.get(layer).entrySet()) {
+                result = result.with(entry.getKey(), entry.getValue());
+                targetSources.put(entry.getKey(), layer);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Lee una capa al arrancar: si no se puede leer queda vacía, y las claves con valores
+     * inválidos según el esquema se descartan (se usa el valor de una capa inferior)
+     */
+    private Map<String, Object> readValid(ConfigurationLayer layer) {
+        try {
+            List<String> errors = new ArrayList<>();
+            Map<String, Object> values = schema.withoutInvalid(read(layer), errors);
+            if (!errors.isEmpty()) {
+                System.err.println("Valores inválidos ignorados (" + layer + "): " + errors);
+            }
+            return values;
+        } catch (Exception e) {
+            System.err.println("Error al cargar configuración (" + layer + "): " + e.getMessage());
+            return Collections.emptyMap();
+        }
+    }
+
+    /**
+     * Lee una capa en una recarga: a diferencia del arranque, cualquier valor inválido
+     * rechaza la capa completa y se conserva la versión anterior
+     */
+    private Map<String, Object> readStrict(ConfigurationLayer layer) throws Exception {
+        Map<String, Object> values = read(layer);
+        List<String> errors = schema.validate(values, false);
+        if (!errors.isEmpty()) {
+            throw new Exception("configuración inválida " + errors);
+        }
+        return values;
+    }
+
+    /**
+     * Vuelve a leer una sola capa y recalcula las claves afectadas. Si cambia la región,
+     * también se vuelve a leer el archivo de región correspondiente. La nueva vista solo
+     * se publica si la capa y el resultado cumplen {@link ConfigurationSchema}.
+     * @param layer Capa a releer
+     * @return Nueva configuración combinada (inmutable), o null si la capa no cambió
+     * @throws Exception Si la capa no se puede leer o el resultado no es válido
+     */
+    public synchronized Map<String, Object> refresh(ConfigurationLayer layer) throws Exception {
+        if (layer == ConfigurationLayer.DEFAULTS || layer == ConfigurationLayer.RUNTIME) {
+            return null;
+        }
+        if (!hasChanged(layer)) {
+            return null;
+        }
+        return apply(layer, readStrict(layer));
+    }
+
+    /**
+     * Reemplaza la capa de valores por defecto (la configuración compartida de un
+     * inquilino) y vuelve a construir la vista combinada sobre ella
+     * @param newDefaults Nuevos valores por defecto; si es un {@link PersistentConfigurationMap}
+     *                    se comparte sin copiarse
+     * @return Nueva configuración combinada (inmutable)
+     * @throws Exception Si el resultado no es válido; en ese caso se conserva la anterior
+     */
+    public synchronized Map<String, Object> replaceDefaults(Map<String, Object> newDefaults) throws Exception {
+        PersistentConfigurationMap shared = PersistentConfigurationMap.copyOf(newDefaults);
+        Map<String, Object> result = apply(ConfigurationLayer.DEFAULTS, shared);
+        defaults = shared;
+        return result;
+    }
+
+    /**
+     * Publica el nuevo contenido de una capa: recalcula las claves que contenía o contiene
+     * y, si cambió la región, lee el nuevo archivo de región
+     */
+    private Map<String, Object> apply(ConfigurationLayer layer, Map<String, Object> values) throws Exception {
+        Map<ConfigurationLayer, Map<String, Object>> changed = new EnumMap<>(ConfigurationLayer.class);
+        changed.put(layer, values);
+
+        // La región puede haber cambiado en esta capa: en ese caso cambia el archivo de región
+        String previousRegion = regionName;
+        ConfigurationLoader previousRegionLoader = loaders.get(ConfigurationLayer.REGION_FILE);
+        Map<ConfigurationLayer, Map<String, Object>> previousLayers = new EnumMap<>(layers);
+        layers.putAll(changed);
+        if (layer != ConfigurationLayer.REGION_FILE && switchRegion()) {
+            try {
+                changed.put(ConfigurationLayer.REGION_FILE, readStrict(ConfigurationLayer.REGION_FILE));
+            } catch (Exception e) {
+                restore(previousLayers, previousRegion, previousRegionLoader);
+                throw e;
+            }
+            layers.putAll(changed);
+        }
+
+        PersistentConfigurationMap nextMerged;
+        Map<String, ConfigurationLayer> nextSources;
+        if (layer == ConfigurationLayer.DEFAULTS) {
+            // Se reconstruye sobre el nuevo mapa para compartir sus nodos en lugar de copiarlos
+            nextSources = new HashMap<>();
+            nextMerged = overlay(nextSources);
+        } else {
+            Set<String> keys = new HashSet<>();
+            for (ConfigurationLayer changedLayer : changed.keySet()) {
+                keys.addAll(previousLayers.get(changedLayer).keySet());
+                keys.addAll(changed.get(changedLayer).keySet());
+            }
+            nextSources = new HashMap<>(sources);
+            nextMerged = remerge(keys, merged, nextSources);
+        }
+
+        List<String> errors = schema.validate(nextMerged, true);
+        if (!errors.isEmpty()) {
+            restore(previousLayers, previousRegion, previousRegionLoader);
+            throw new Exception("configuración inválida " + errors);
+        }
+        merged = nextMerged;
+        sources = nextSources;
+        return merged;
+    }
+
+    private void restore(Map<ConfigurationLayer, Map<String, Object>> previousLayers, String previousRegion,
+                         ConfigurationLoader previousRegionLoader) {
+        layers.putAll(previousLayers);
+        regionName = previousRegion;
+        loaders.put(ConfigurationLayer.REGION_FILE, previousRegionLoader);
+    }
+
+    /**
+     * Recalcula el valor y el origen de cada clave indicada a partir de las capas en caché
+     * @return Vista combinada con esas claves actualizadas
+     */
+    private PersistentConfigurationMap remerge(Set<String> keys, PersistentConfigurationMap base,
+                                               Map<String, ConfigurationLayer> targetSources) {
+        ConfigurationLayer[] order = layers.keySet().toArray(new ConfigurationLayer[0]);
+        PersistentConfigurationMap result = base;
+        for (String key : keys) {
+            targetSources.remove(key);
+            boolean found = false;
+            for (int i = order.length - 1; i >= 0 && !found; i--) {
+                Map<String, Object> values = layers.get(order[i]);
+                if (values.containsKey(key)) {
+                    result = result.with(key, values.get(key));
+                    if (order[i] != ConfigurationLayer.DEFAULTS) {
+                        targetSources.put(key, order[i]);
+                    }
+                    found = true;
+                }
+            }
+            if (!found) {
+                result = result.without(key);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Origen de una clave en la vista combinada: las que no tienen origen anotado vienen de DEFAULTS
+     */
+    private ConfigurationLayer sourceOf(String key) {
+        ConfigurationLayer source = sources.get(key);
+        return source == null && merged.containsKey(key) ? ConfigurationLayer.DEFAULTS : source;
+    }
+
+    /**
+     * Indica si el contenido de una capa pudo cambiar desde la última lectura
+     */
+    private boolean hasChanged(ConfigurationLayer layer) throws Exception {
+        ConfigurationLoader loader = loaders.get(layer);
+        if (loader == null) {
+            // Capas sin archivo: variables de entorno y propiedades del sistema
+            return layer == ConfigurationLayer.ENVIRONMENT_VARIABLES || layer == ConfigurationLayer.SYSTEM_PROPERTIES;
+        }
+        if (!loader.configFileExists()) {
+            return !layers.get(layer).isEmpty();
+        }
+        return loader.hasContentChanged(Files.readAllBytes(loader.getConfigPath()));
+    }
+
+    /**
+     * Lee el contenido actual de una capa (sin modificar la caché)
+     */
+    private Map<String, Object> read(ConfigurationLayer layer) throws Exception {
+        switch (layer) {
+            case DEFAULTS:
+                return defaults;
+            case ENVIRONMENT_VARIABLES:
+                return readEnvironment();
+            case SYSTEM_PROPERTIES:
+                return readSystemProperties();
+            case ENVIRONMENT_FILE:
+                if (environmentName != null && !loaders.containsKey(layer)) {
+                    loaders.put(layer, overlayLoader("env", environmentName));
+                }
+                return readFile(layer);
+            default:
+                return readFile(layer);
+        }
+    }
+
+    private Map<String, Object> readFile(ConfigurationLayer layer) throws Exception {
+        ConfigurationLoader loader = loaders.get(layer);
+        if (loader == null) {
+            return Collections.emptyMap();
+        }
+        if (!loader.configFileExists()) {
+            if (layer == ConfigurationLayer.BASE_FILE && !tenant) {
+                System.err.println("Archivo de configuración no encontrado: " + baseFile.getFileName()
+                    + "; se usan los valores por defecto");
+            }
+            // Un cargador nuevo olvida el hash anterior, por si el archivo vuelve a aparecer igual
+            loaders.put(layer, new ConfigurationLoader(loader.getConfigPath()));
+            return Collections.emptyMap();
+        }
+        return Collections.unmodifiableMap(loader.loadConfiguration());
+    }
+
+    /**
+     * Actualiza la región según las capas que no son archivos de región
+     * @return true si la región (y por tanto el archivo de región) cambió
+     */
+    private boolean switchRegion() {
+        String region = null;
+        for (ConfigurationLayer layer : layers.keySet()) {
+            if (layer != ConfigurationLayer.REGION_FILE) {
+                Object value = layers.get(layer).get(ConfigKey.REGION.getName());
+                if (value instanceof String) {
+                    region = (String) value;
+                }
+            }
+        }
+        if (region == null ? regionName == null : region.equals(regionName)) {
+            return false;
+        }
+        regionName = region;
+        loaders.put(ConfigurationLayer.REGION_FILE, region != null ? overlayLoader("region", region) : null);
+        return true;
+    }
+
+    private ConfigurationLoader overlayLoader(String kind, String name) {
+        if (!OVERLAY_NAME.matcher(name).matches()) {
+            System.err.println("Nombre de " + kind + " inválido para un archivo de configuración: " + name);
+            return null;
+        }
+        return new ConfigurationLoader(overlayPath(kind, name));
+    }
+
+    private Path overlayPath(String kind, String name) {
+        String fileName = baseFile.getFileName().toString();
+        String stem = fileName.endsWith(".json") ? fileName.substring(0, fileName.length() - 5) : fileName;
+        return baseFile.resolveSibling(stem + "." + kind + "." + name + ".json");
+    }
+
+    private Map<String, Object> readEnvironment() {
+        Map<String, Object> values = new HashMap<>();
+        for (ConfigKey<?> key : ConfigKey.values()) {
+            String variable = variableName(key.getName());
+            String raw = environment.get(variable);
+            if (raw != null) {
+                putConverted(values, key.getName(), raw, variable);
+            }
+        }
+        return Collections.unmodifiableMap(values);
+    }
+
+    private Map<String, Object> readSystemProperties() {
+        Map<String, Object> values = new HashMap<>();
+        for (String property : systemProperties.stringPropertyNames()) {
+            if (property.startsWith(PROPERTY_PREFIX) && !property.equals(FILE_PROPERTY)
+                    && !property.equals(ENVIRONMENT_PROPERTY)) {
+                putConverted(values, property.substring(PROPERTY_PREFIX.length()),
+                    systemProperties.getProperty(property), property);
+            }
+        }
+        return Collections.unmodifiableMap(values);
+    }
+
+    /**
+     * Convierte un valor de texto al tipo de su clave según el esquema. Las claves
+     * desconocidas se conservan como texto; los valores inválidos se ignoran con un aviso.
+     */
+    private void putConverted(Map<String, Object> values, String key, String raw, String origin) {
+        try {
+            values.put(key, schema.convert(key, raw));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Valor inválido en " + origin + " (" + raw + "): " + e.getMessage());
+        }
+    }
+
+    /**
+     * Nombre de la variable de entorno de una clave: maxConnections -> CONFIG_MAX_CONNECTIONS
+     */
+    static String variableName(String key) {
+        StringBuilder name = new StringBuilder(VARIABLE_PREFIX);
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (Character.isUpperCase(c) && i > 0) {
+                name.append('_');
+            }
+            name.append(Character.toUpperCase(c));
+        }
+        return name.toString();
+    }
+
+    /**
+     * Guarda la configuración efectiva en el archivo base. Las claves cuyo valor proviene
+     * de una capa superior y no se modificó en tiempo de ejecución conservan el valor del
+     * archivo base (o no se escriben si el archivo base no las tenía).
+     * @param configuration Configuración efectiva
+     * @return Duración de la escritura en nanosegundos
+     * @throws Exception Si hay error al escribir el archivo
+     */
+    @Override
+    public synchronized long saveConfiguration(Map<String, Object> configuration) throws Exception {
+        Map<String, Object> base = layers.get(ConfigurationLayer.BASE_FILE);
+        Map<String, Object> content = new HashMap<>();
+        for (Map.Entry<String, Object> entry : configuration.entrySet()) {
+            String key = entry.getKey();
+            ConfigurationLayer source = sourceOf(key);
+            // Un inquilino tampoco escribe los valores compartidos que no modificó
+            boolean overridden = source != null
+                && (source.compareTo(ConfigurationLayer.BASE_FILE) > 0 || tenant && source == ConfigurationLayer.DEFAULTS)
+                && ConfigurationChangeEvent.sameValue(entry.getValue(), merged.get(key));
+            if (!overridden) {
+                content.put(key, entry.getValue());
+            } else if (base.containsKey(key)) {
+                content.put(key, base.get(key));
+            }
+        }
+        ConfigurationLoader loader = loaders.get(ConfigurationLayer.BASE_FILE);
+        long latency = loader.saveConfiguration(content);
+
+        Set<String> keys = new HashSet<>(base.keySet());
+        keys.addAll(content.keySet());
+        layers.put(ConfigurationLayer.BASE_FILE, Collections.unmodifiableMap(content));
+        merged = remerge(keys, merged, sources);
+        return latency;
+    }
+
+    /**
+     * Indica qué capa aporta el valor combinado de una clave
+     * @param key Nombre de la clave
+     * @return Capa de origen, o null si ninguna capa define la clave
+     */
+    public synchronized ConfigurationLayer getSource(String key) {
+        return sourceOf(key);
+    }
+
+    /**
+     * Obtiene el valor combinado de una clave, sin cambios en tiempo de ejecución
+     * @param key Nombre de la clave
+     * @return Valor según las capas
+     */
+    public synchronized Object getResolvedValue(String key) {
+        return merged.get(key);
+    }
+
+    /**
+     * Obtiene los valores de una sola capa tal como se leyeron
+     * @param layer Capa
+     * @return Mapa inmutable con los valores de la capa
+     */
+    public synchronized Map<String, Object> getLayer(ConfigurationLayer layer) {
+        Map<String, Object> values = layers.get(layer);
+        return values != null ? values : Collections.emptyMap();
+    }
+
+    /**
+     * Indica a qué capa corresponde un archivo del directorio de configuración
+     * @param fileName Nombre del archivo (sin directorio)
+     * @return Capa del archivo, o null si no es un archivo de configuración en uso
+     */
+    public synchronized ConfigurationLayer layerForFile(Path fileName) {
+        for (ConfigurationLayer layer : new ConfigurationLayer[] {ConfigurationLayer.BASE_FILE,
+                ConfigurationLayer.REGION_FILE, ConfigurationLayer.ENVIRONMENT_FILE}) {
+            ConfigurationLoader loader = loaders.get(layer);
+            if (loader != null && loader.getConfigPath().getFileName().equals(fileName)) {
+                return layer;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Obtiene la ruta absoluta del archivo base
+     * @return Ruta de config.json (o del archivo indicado)
+     */
+    public Path getBaseFile() {
+        return baseFile;
+    }
+
+    /**
+     * Obtiene el nombre del entorno activo
+     * @return Entorno, o null si no se indicó ninguno
+     */
+    public String getEnvironmentName() {
+        return environmentName;
+    }
+}
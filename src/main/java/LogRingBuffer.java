@@ -0,0 +1,106 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Búfer circular acotado y sin locks para líneas de log.
+ *
+ * Varios hilos productores pueden escribir a la vez; un consumidor (normalmente un
+ * temporizador de Swing) vacía el búfer por lotes. Si los productores van más rápido
+ * que el consumidor y el búfer está lleno, la línea se descarta y se cuenta en
+ * {@link #getDroppedCount()} en lugar de bloquear al productor.
+ */
+public final class LogRingBuffer {
+    private final int mask;
+    private final AtomicReferenceArray<String> slots;
+    // Número de secuencia de cada posición (algoritmo de cola acotada de Vyukov)
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * @param capacity Capacidad mínima; se redondea a la siguiente potencia de dos
+     */
+    public LogRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1);
+        this.mask = size - 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Agrega una línea sin bloquear
+     * @param line Línea a agregar
+     * @return true si se agregó; false si el búfer estaba lleno y se descartó
+     */
+    public boolean offer(String line) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slots.set(index, line);
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                dropped.incrementAndGet();
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Extrae todas las líneas disponibles y las agrega a un StringBuilder, una por línea
+     * @param target Destino de las líneas
+     * @param maxLines Máximo de líneas a extraer en esta llamada
+     * @return Número de líneas extraídas
+     */
+    public int drainTo(StringBuilder target, int maxLines) {
+        int drained = 0;
+        long position = head.get();
+        while (drained < maxLines) {
+            int index = (int) position & mask;
+            if (sequences.get(index) != position + 1) {
+                break; // Vacío, o el productor aún no terminó de escribir
+            }
+            if (!head.compareAndSet(position, position + 1)) {
+                position = head.get();
+                continue;
+            }
+            target.append(slots.get(index)).append('\n');
+            slots.set(index, null);
+            sequences.set(index, position + mask + 1);
+            position++;
+            drained++;
+        }
+        return drained;
+    }
+
+    /**
+     * Obtiene el número de líneas descartadas porque el búfer estaba lleno
+     * @return Total de líneas descartadas
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Vacía el búfer y reinicia el contador de descartes
+     */
+    public void clear() {
+        StringBuilder discard = new StringBuilder();
+        while (drainTo(discard, mask + 1) > 0) {
+            discard.setLength(0);
+        }
+        dropped.set(0);
+    }
+}
@@ -1,3 +1,7 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
 import java.util.Scanner;
 import java.util.Map;
 
@@ -9,7 +13,84 @@ public class Main {
     private static Scanner scanner;
     
     public static void main(String[] args) {
+        // Proceso lector de --shared-demo: no carga config.json, solo mapea la región compartida
+        if (args.length == 3 && "--shared-reader".equals(args[0])) {
+            runSharedConfigurationReader(args);
+            return;
+        }
+        
         configManager = ConfigurationManager.getInstance();
+        
+        // Métricas por JMX (publicadas en segundo plano para no retrasar el arranque) y,
+        // con -Dmetrics.port=N, también en http://127.0.0.1:N/metrics
+        BackgroundScheduler.get().execute(Metrics.get()::publishJmx);
+        MetricsEndpoint metricsEndpoint = startMetricsEndpoint();
+        try {
+            run(args);
+        } finally {
+            if (metricsEndpoint != null) {
+                metricsEndpoint.close();
+            }
+        }
+    }
+    
+    /**
+     * Inicia el punto de acceso de métricas si se indicó -Dmetrics.port
+     * @return Punto de acceso iniciado, o null si no se pidió o no se pudo abrir
+     */
+    private static MetricsEndpoint startMetricsEndpoint() {
+        Integer port = Integer.getInteger("metrics.port");
+        if (port == null) {
+            return null;
+        }
+        try {
+            MetricsEndpoint endpoint = MetricsEndpoint.start(port);
+            System.out.println("Métricas disponibles en http://127.0.0.1:" + endpoint.getPort() + MetricsEndpoint.PATH);
+            return endpoint;
+        } catch (IOException e) {
+            System.err.println("No se pudo iniciar el punto de acceso de métricas: " + e.getMessage());
+            return null;
+        }
+    }
+    
+    private static void run(String[] args) {
+        // Modo sin interfaz: java Main --simulate [conexiones] [--virtual] [--clients N] [--rate N]
+        if (args.length > 0 && "--simulate".equals(args[0])) {
+            runHeadlessSimulation(args);
+            return;
+        }
+        
+        // Comparación de hilos de plataforma y virtuales: java Main --compare [conexiones...]
+        if (args.length > 0 && "--compare".equals(args[0])) {
+            runSimulationComparison(args);
+            return;
+        }
+        
+        // Carga concurrente de lectores y escritores: java Main --stress [escritores] [lectores] [escrituras]
+        if (args.length > 0 && "--stress".equals(args[0])) {
+            runStressTest(args);
+            return;
+        }
+        
+        // Configuración compartida entre procesos: java Main --shared-demo [lectores] [cambios]
+        if (args.length > 0 && "--shared-demo".equals(args[0])) {
+            runSharedConfigurationDemo(args);
+            return;
+        }
+        
+        // Replicación entre nodos: java Main --replication-demo [seguidores] [cambios]
+        if (args.length > 0 && "--replication-demo".equals(args[0])) {
+            runReplicationDemo(args);
+            return;
+        }
+        
+        // Un seguidor recibe la configuración del líder: no vigila ni guarda su config.json
+        boolean follower = startReplication();
+        if (!follower) {
+            configManager.startHotReload();
+            configManager.startAutosave();
+        }
+        startSharedPublishing();
         scanner = new Scanner(System.in);
         
         System.out.println("=== Singleton Configuration Manager ===");
@@ -36,6 +117,10 @@ public class Main {
                     break;
                 case 5:
                     running = false;
+                    // Un guardado agrupado aún pendiente se escribe antes de salir
+                    if (configManager.hasUnsavedChanges()) {
+                        configManager.save();
+                    }
                     System.out.println("¡Hasta luego!");
                     break;
                 default:
@@ -72,7 +157,8 @@ public class Main {
         Map<String, Object> config = configManager.getAllConfiguration();
         
         for (Map.Entry<String, Object> entry : config.entrySet()) {
-            System.out.printf("%-20s: %s%n", entry.getKey(), entry.getValue());
+            System.out.printf("%-20s: %-12s (%s)%n", entry.getKey(), entry.getValue(),
+                configManager.getConfigurationSource(entry.getKey()));
         }
         System.out.println("=============================");
     }
@@ -93,9 +179,21 @@ public class Main {
         System.out.println("8. region (ej: LATAM, GLOBAL)");
         System.out.println("9. backupEnabled (true/false)");
         System.out.println("10. backupDirectory (ruta)");
+        System.out.println("11. connectionTimeout (ms de espera por una conexión)");
+        System.out.println("12. idleTimeout (segundos)");
+        System.out.println("13. latencyDistribution (uniform, lognormal, pareto)");
+        System.out.println("14. latencyMinMs (ms)");
+        System.out.println("15. latencyMedianMs (ms)");
+        System.out.println("16. latencyMaxMs (ms; percentil 99 en lognormal y pareto)");
+        System.out.println("17. successRate (porcentaje)");
+        System.out.println("18. arrivalRate (conexiones/s; 0 = al ritmo de los clientes)");
+        System.out.println("19. arrivalProcess (poisson, constant)");
+        System.out.println("20. burstPattern (ej: 10000:2000:5)");
+        System.out.println("21. failureWindows (ej: 2000-4000:100)");
+        System.out.println("22. simulationSeed (0 = al azar)");
         System.out.println("0. Cancelar");
         
-        int choice = getIntInput("Seleccione el parámetro a cambiar (0-10): ");
+        int choice = getIntInput("Seleccione el parámetro a cambiar (0-22): ");
         
         if (choice == 0) {
             return;
@@ -104,7 +202,9 @@ public class Main {
         String[] parameters = {
             "defaultCurrency", "timeFormat", "maxConnections", "language", 
             "autoSaveInterval", "enableLogs", "theme", "region", 
-            "backupEnabled", "backupDirectory"
+            "backupEnabled", "backupDirectory", "connectionTimeout", "idleTimeout",
+            "latencyDistribution", "latencyMinMs", "latencyMedianMs", "latencyMaxMs", "successRate",
+            "arrivalRate", "arrivalProcess", "burstPattern", "failureWindows", "simulationSeed"
         };
         
         if (choice < 1 || choice > parameters.length) {
@@ -119,59 +219,17 @@ public class Main {
         System.out.print("Nuevo valor: ");
         String newValue = scanner.nextLine().trim();
         
-        // Validar y convertir el valor según el tipo
+        // Validar y convertir el valor según el esquema de la clave
         try {
-            Object convertedValue = convertValue(parameter, newValue);
-            configManager.setConfiguration(parameter, convertedValue);
-            configManager.save();
+            configManager.setConfiguration(parameter, newValue);
+            // Los cambios hechos dentro de la ventana de agrupación se escriben juntos
+            configManager.requestSave();
             System.out.println("Configuración actualizada exitosamente.");
         } catch (IllegalArgumentException e) {
             System.out.println("Error: " + e.getMessage());
         }
     }
     
-    /**
-     * Convierte el valor de entrada al tipo correcto según el parámetro
-     */
-    private static Object convertValue(String parameter, String value) {
-        switch (parameter) {
-            case "maxConnections":
-            case "autoSaveInterval":
-                try {
-                    return Integer.parseInt(value);
-                } catch (NumberFormatException e) {
-                    throw new IllegalArgumentException("Debe ser un número entero.");
-                }
-            case "enableLogs":
-            case "backupEnabled":
-                if ("true".equalsIgnoreCase(value) || "false".equalsIgnoreCase(value)) {
-                    return Boolean.parseBoolean(value);
-                } else {
-                    throw new IllegalArgumentException("Debe ser 'true' o 'false'.");
-                }
-            case "timeFormat":
-                if ("24H".equals(value) || "AM/PM".equals(value)) {
-                    return value;
-                } else {
-                    throw new IllegalArgumentException("Debe ser '24H' o 'AM/PM'.");
-                }
-            case "theme":
-                if ("light".equals(value) || "dark".equals(value)) {
-                    return value;
-                } else {
-                    throw new IllegalArgumentException("Debe ser 'light' o 'dark'.");
-                }
-            case "language":
-                if ("ES".equals(value) || "EN".equals(value) || "FR".equals(value) || "DE".equals(value)) {
-                    return value;
-                } else {
-                    throw new IllegalArgumentException("Debe ser 'ES', 'EN', 'FR' o 'DE'.");
-                }
-            default:
-                return value; // Para strings como defaultCurrency, region, backupDirectory
-        }
-    }
-    
     /**
      * Abre la pantalla de bienvenida
      */
@@ -212,6 +270,250 @@ public class Main {
         }
     }
     
+    /**
+     * Ejecuta el simulador de conexiones en consola, sin interfaz gráfica
+     * @param args Argumentos de línea de comandos; el segundo (opcional) es el número de conexiones
+     *             y --clients N fija el número de clientes que compiten por el pool; --rate N
+     *             inicia N conexiones por segundo sin esperar a que terminen (lazo abierto)
+     */
+    private static void runHeadlessSimulation(String[] args) {
+        int connections = configManager.getMaxConnections();
+        int clients = 0;
+        int rate = -1;
+        SimulationEngine.ExecutionMode mode = SimulationEngine.ExecutionMode.PLATFORM;
+        for (int i = 1; i < args.length; i++) {
+            if ("--virtual".equals(args[i])) {
+                mode = SimulationEngine.ExecutionMode.VIRTUAL;
+                continue;
+            }
+            boolean clientsOption = "--clients".equals(args[i]) && i + 1 < args.length;
+            boolean rateOption = "--rate".equals(args[i]) && i + 1 < args.length;
+            String number = clientsOption || rateOption ? args[++i] : args[i];
+            try {
+                if (clientsOption) {
+                    clients = Integer.parseInt(number);
+                } else if (rateOption) {
+                    rate = Integer.parseInt(number);
+                } else {
+                    connections = Integer.parseInt(number);
+                }
+            } catch (NumberFormatException e) {
+                System.err.println((clientsOption ? "Número de clientes inválido: "
+                    : rateOption ? "Tasa inválida: " : "Número de conexiones inválido: ") + number);
+                return;
+            }
+        }
+        
+        try (ConnectionPool pool = ConnectionPool.fromConfiguration(configManager)) {
+            SimulationEngine engine;
+            try {
+                WorkloadProfile workload = WorkloadProfile.fromConfiguration(configManager);
+                if (rate >= 0) {
+                    workload = workload.withArrivalRate(rate);
+                }
+                engine = SimulationEngine.withPool(pool, workload, connections, clients, mode);
+            } catch (IllegalArgumentException | IllegalStateException e) {
+                System.err.println("Error: " + e.getMessage());
+                return;
+            }
+            runAndReport(engine, connections);
+            System.out.println("Pool: " + pool.summary());
+            System.out.println("Espera por conexión: " + pool.getWaitTime().summary());
+        }
+    }
+    
+    /**
+     * Ejecuta la simulación e imprime el resumen y las latencias
+     */
+    private static void runAndReport(SimulationEngine engine, int connections) {
+        boolean enableLogs = configManager.isEnableLogs() && connections <= 100;
+        System.out.printf("Simulando %d conexiones (%d clientes, pool de %d, semilla %d)...%n", connections,
+            engine.getParallelism(), engine.getPool().getMaxSize(), engine.getWorkload().getSeed());
+        try {
+            SimulationResult result = engine.run((connectionId, success, completed) -> {
+                if (enableLogs) {
+                    System.out.println(success ? "Conexión " + connectionId + " exitosa"
+                        : "Fallo en conexión " + connectionId);
+                }
+            });
+            System.out.println("Resumen: " + result + " - Moneda: " + configManager.getDefaultCurrency());
+            if (result.isOpenLoop()) {
+                // En lazo abierto la latencia incluye la espera desde el inicio programado
+                System.out.println("Latencia (desde el inicio programado): " + result.getLatency().summary());
+                System.out.println("Tiempo de servicio: " + result.getServiceTime().summary());
+            } else {
+                System.out.println("Latencia: " + result.getLatency().summary());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("Simulación interrumpida.");
+        }
+    }
+    
+    /**
+     * Compara el simulador con hilos de plataforma y con hilos virtuales
+     * @param args Argumentos de línea de comandos; los siguientes a --compare son tamaños
+     */
+    private static void runSimulationComparison(String[] args) {
+        int[] sizes = new int[args.length - 1];
+        try {
+            for (int i = 1; i < args.length; i++) {
+                sizes[i - 1] = Integer.parseInt(args[i]);
+            }
+            new SimulationComparison(configManager).run(sizes);
+        } catch (NumberFormatException e) {
+            System.err.println("Número de conexiones inválido: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("Comparación interrumpida.");
+        }
+    }
+    
+    /**
+     * Inicia la replicación si se pidió: -Dreplication.listen=[host:]puerto para ser el
+     * líder (con ventana de agrupación -Dreplication.batchMs) o
+     * -Dreplication.leader=host:puerto para seguir a un líder
+     * @return true si este proceso es un seguidor
+     */
+    private static boolean startReplication() {
+        String listen = System.getProperty("replication.listen");
+        String leader = System.getProperty("replication.leader");
+        try {
+            if (leader != null) {
+                ReplicationFollower.start(configManager, parseAddress(leader));
+                System.out.println("Siguiendo la configuración del líder " + leader);
+                return true;
+            }
+            if (listen != null) {
+                ReplicationLeader replication = ReplicationLeader.start(configManager, parseAddress(listen),
+                    replicationBatchNanos());
+                System.out.println("Replicando la configuración en el puerto " + replication.getPort());
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("No se pudo iniciar la replicación: " + e.getMessage());
+        }
+        return false;
+    }
+    
+    /**
+     * Interpreta una dirección "host:puerto" o solo "puerto" (en todas las interfaces)
+     */
+    private static InetSocketAddress parseAddress(String address) {
+        int separator = address.lastIndexOf(':');
+        int port = Integer.parseInt(address.substring(separator + 1));
+        return separator < 0 ? new InetSocketAddress(port)
+            : new InetSocketAddress(address.substring(0, separator), port);
+    }
+    
+    private static long replicationBatchNanos() {
+        String batch = System.getProperty("replication.batchMs");
+        return batch == null ? ReplicationLeader.DEFAULT_BATCH_NANOS
+            : (long) (Double.parseDouble(batch) * TimeUnit.MILLISECONDS.toNanos(1));
+    }
+    
+    /**
+     * Prueba la publicación de versiones con lectores y escritores concurrentes
+     * @param args Argumentos de línea de comandos; los siguientes a --stress son el número
+     *             de escritores, el de lectores y el de escrituras por escritor
+     */
+    private static void runStressTest(String[] args) {
+        try {
+            int writers = args.length > 1 ? Integer.parseInt(args[1]) : ConfigurationStressDemo.DEFAULT_WRITERS;
+            int readers = args.length > 2 ? Integer.parseInt(args[2]) : ConfigurationStressDemo.DEFAULT_READERS;
+            int writes = args.length > 3 ? Integer.parseInt(args[3]) : ConfigurationStressDemo.DEFAULT_WRITES;
+            if (!new ConfigurationStressDemo(configManager).run(writers, readers, writes)) {
+                System.exit(1);
+            }
+        } catch (NumberFormatException e) {
+            System.err.println("Número inválido: " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("Prueba interrumpida.");
+        }
+    }
+    
+    /**
+     * Prueba la replicación con varios seguidores en la máquina local
+     * @param args Argumentos de línea de comandos; los siguientes a --replication-demo son
+     *             el número de seguidores y el de cambios
+     */
+    private static void runReplicationDemo(String[] args) {
+        try {
+            int followers = args.length > 1 ? Integer.parseInt(args[1]) : ReplicationDemo.DEFAULT_FOLLOWERS;
+            int changes = args.length > 2 ? Integer.parseInt(args[2]) : ReplicationDemo.DEFAULT_CHANGES;
+            if (!new ReplicationDemo(configManager, replicationBatchNanos()).run(followers, changes)) {
+                System.exit(1);
+            }
+        } catch (NumberFormatException e) {
+            System.err.println("Número inválido: " + e.getMessage());
+        } catch (IOException e) {
+            System.err.println("Error en la replicación: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("Prueba interrumpida.");
+        }
+    }
+    
+    /**
+     * Publica la configuración en la región compartida indicada con -Dshared.file
+     * (capacidad en bytes con -Dshared.capacity), si se pidió
+     */
+    private static void startSharedPublishing() {
+        String file = System.getProperty("shared.file");
+        if (file == null) {
+            return;
+        }
+        try {
+            SharedConfigurationPublisher publisher = configManager.startSharedPublishing(Paths.get(file),
+                Integer.getInteger("shared.capacity", SharedConfigurationRegion.DEFAULT_CAPACITY));
+            System.out.println("Configuración compartida publicada en " + publisher.getFile());
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("No se pudo publicar la configuración compartida: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Prueba la configuración compartida con varios procesos lectores
+     * @param args Argumentos de línea de comandos; los siguientes a --shared-demo son el
+     *             número de lectores y el de versiones a publicar
+     */
+    private static void runSharedConfigurationDemo(String[] args) {
+        try {
+            int readers = args.length > 1 ? Integer.parseInt(args[1]) : SharedConfigurationDemo.DEFAULT_READERS;
+            int changes = args.length > 2 ? Integer.parseInt(args[2]) : SharedConfigurationDemo.DEFAULT_CHANGES;
+            if (!new SharedConfigurationDemo(configManager).run(readers, changes)) {
+                System.exit(1);
+            }
+        } catch (NumberFormatException e) {
+            System.err.println("Número inválido: " + e.getMessage());
+        } catch (IOException e) {
+            System.err.println("Error en la configuración compartida: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("Prueba interrumpida.");
+        }
+    }
+    
+    /**
+     * Proceso lector de {@link SharedConfigurationDemo}; termina con código 1 si alguna
+     * lectura fue inconsistente
+     */
+    private static void runSharedConfigurationReader(String[] args) {
+        int status;
+        try {
+            status = SharedConfigurationDemo.runReader(Paths.get(args[1]), Integer.parseInt(args[2]));
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("Error en el lector de configuración compartida: " + e.getMessage());
+            status = 1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            status = 1;
+        }
+        System.exit(status);
+    }
+    
     /**
      * Obtiene entrada de tipo entero del usuario
      */
@@ -0,0 +1,393 @@
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Registro de métricas de la aplicación, agrupadas por componente.
+ *
+ * Los contadores y temporizadores usan {@link LongAdder} (contadores repartidos en celdas
+ * por hilo), de modo que registrar un valor desde muchos hilos no compite por una misma
+ * línea de caché; el costo se paga al leer, que es poco frecuente. Los indicadores
+ * (gauges) se calculan al leerse.
+ *
+ * Cada grupo se publica como un MBean com.singleton.config:type=&lt;grupo&gt; después de
+ * {@link #publishJmx()}, y todas las métricas pueden escribirse en formato de texto de
+ * Prometheus con {@link #writeText} (ver {@link MetricsEndpoint}).
+ */
+public final class Metrics {
+    static final String JMX_DOMAIN = "com.singleton.config";
+
+    private final Map<String, Group> groups = new LinkedHashMap<>();
+    private MBeanServer mbeanServer;
+
+    private Metrics() {
+    }
+
+    // Inicialización perezosa y segura entre hilos (idiom del holder)
+    private static final class Holder {
+        private static final Metrics INSTANCE = new Metrics();
+    }
+
+    /**
+     * Obtiene el registro de métricas de la aplicación
+     * @return Registro único
+     */
+    public static Metrics get() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Obtiene o crea un contador
+     * @param group Componente (por ejemplo "ConfigurationManager")
+     * @param name Nombre de la métrica dentro del grupo
+     * @return Contador registrado
+     */
+    public Counter counter(String group, String name) {
+        return register(group, name, new Counter(name));
+    }
+
+    /**
+     * Obtiene o crea un temporizador (número de mediciones, tiempo total y máximo)
+     * @param group Componente
+     * @param name Nombre de la métrica dentro del grupo
+     * @return Temporizador registrado
+     */
+    public Timer timer(String group, String name) {
+        return register(group, name, new Timer(name));
+    }
+
+    /**
+     * Registra un indicador cuyo valor se calcula al leerlo. Si ya existía uno con el
+     * mismo nombre, se reemplaza.
+     * @param group Componente
+     * @param name Nombre de la métrica dentro del grupo
+     * @param value Función que devuelve el valor actual; debe ser rápida y no bloquear
+     */
+    public void gauge(String group, String name, LongSupplier value) {
+        Group target = group(group);
+        synchronized (target) {
+            target.metrics.put(name, new Gauge(name, value));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <M extends Metric> M register(String group, String name, M metric) {
+        Group target = group(group);
+        synchronized (target) {
+            Metric existing = target.metrics.putIfAbsent(name, metric);
+            if (existing == null) {
+                return metric;
+            }
+            if (existing.getClass() != metric.getClass()) {
+                throw new IllegalArgumentException("La métrica " + group + "." + name + " ya existe con otro tipo");
+            }
+            return (M) existing;
+        }
+    }
+
+    private synchronized Group group(String name) {
+        Group group = groups.get(name);
+        if (group == null) {
+            group = new Group(name);
+            groups.put(name, group);
+            if (mbeanServer != null) {
+                registerMBean(group);
+            }
+        }
+        return group;
+    }
+
+    /**
+     * Publica cada grupo como MBean en el servidor de la plataforma, incluidos los grupos
+     * que se creen después. Llamadas sucesivas no tienen efecto.
+     */
+    public synchronized void publishJmx() {
+        if (mbeanServer != null) {
+            return;
+        }
+        mbeanServer = ManagementFactory.getPlatformMBeanServer();
+        for (Group group : groups.values()) {
+            registerMBean(group);
+        }
+    }
+
+    private void registerMBean(Group group) {
+        try {
+            ObjectName name = new ObjectName(JMX_DOMAIN, "type", group.name);
+            if (!mbeanServer.isRegistered(name)) {
+                mbeanServer.registerMBean(group, name);
+            }
+        } catch (JMException e) {
+            System.err.println("No se pudieron publicar las métricas de " + group.name + " por JMX: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Escribe todas las métricas en el formato de texto de Prometheus. Los nombres se
+     * forman con el grupo y la métrica en minúsculas separadas por '_' y los tiempos
+     * se expresan en segundos.
+     * @param out Destino del texto
+     * @throws IOException Si falla la escritura
+     */
+    public void writeText(Appendable out) throws IOException {
+        List<Group> snapshot;
+        synchronized (this) {
+            snapshot = new ArrayList<>(groups.values());
+        }
+        for (Group group : snapshot) {
+            String prefix = snakeCase(group.name) + "_";
+            for (Metric metric : group.list()) {
+                metric.writeText(prefix + snakeCase(metric.name), out);
+            }
+        }
+    }
+
+    /**
+     * Obtiene el valor de una métrica (o de un atributo de temporizador, como
+     * "saveCount" o "saveMaxMs") tal como se publica por JMX
+     * @param group Componente
+     * @param attribute Nombre del atributo
+     * @return Valor actual, o null si no existe
+     */
+    public Number getValue(String group, String attribute) {
+        Group target;
+        synchronized (this) {
+            target = groups.get(group);
+        }
+        return target == null ? null : target.attributes().get(attribute);
+    }
+
+    static String snakeCase(String name) {
+        StringBuilder text = new StringBuilder(name.length() + 8);
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (Character.isUpperCase(c)) {
+                if (i > 0 && !Character.isUpperCase(name.charAt(i - 1))) {
+                    text.append('_');
+                }
+                text.append(Character.toLowerCase(c));
+            } else {
+                text.append(c);
+            }
+        }
+        return text.toString();
+    }
+
+    /**
+     * Métrica de un grupo
+     */
+    private abstract static class Metric {
+        final String name;
+
+        Metric(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Agrega los atributos JMX de la métrica
+         */
+        abstract void collect(Map<String, Number> attributes);
+
+        abstract void writeText(String name, Appendable out) throws IOException;
+    }
+
+    /**
+     * Contador que solo crece
+     */
+    public static final class Counter extends Metric {
+        private final LongAdder count = new LongAdder();
+
+        private Counter(String name) {
+            super(name);
+        }
+
+        public void increment() {
+            count.increment();
+        }
+
+        public void add(long amount) {
+            count.add(amount);
+        }
+
+        public long get() {
+            return count.sum();
+        }
+
+        @Override
+        void collect(Map<String, Number> attributes) {
+            attributes.put(name, count.sum());
+        }
+
+        @Override
+        void writeText(String name, Appendable out) throws IOException {
+            out.append("# TYPE ").append(name).append("_total counter\n")
+                .append(name).append("_total ").append(Long.toString(count.sum())).append('\n');
+        }
+    }
+
+    /**
+     * Temporizador: cuenta las mediciones y acumula su duración total y máxima
+     */
+    public static final class Timer extends Metric {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        private Timer(String name) {
+            super(name);
+        }
+
+        /**
+         * Registra una duración
+         * @param nanos Duración en nanosegundos
+         */
+        public void record(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public long getTotalNanos() {
+            return totalNanos.sum();
+        }
+
+        public long getMaxNanos() {
+            return maxNanos.get();
+        }
+
+        @Override
+        void collect(Map<String, Number> attributes) {
+            long n = count.sum();
+            long total = totalNanos.sum();
+            attributes.put(name + "Count", n);
+            attributes.put(name + "TotalMs", total / 1_000_000.0);
+            attributes.put(name + "MeanMs", n == 0 ? 0.0 : total / 1_000_000.0 / n);
+            attributes.put(name + "MaxMs", maxNanos.get() / 1_000_000.0);
+        }
+
+        @Override
+        void writeText(String name, Appendable out) throws IOException {
+            String base = name + "_seconds";
+            out.append("# TYPE ").append(base).append(" summary\n")
+                .append(base).append("_count ").append(Long.toString(count.sum())).append('\n')
+                .append(base).append("_sum ").append(Double.toString(totalNanos.sum() / 1e9)).append('\n')
+                .append("# TYPE ").append(base).append("_max gauge\n")
+                .append(base).append("_max ").append(Double.toString(maxNanos.get() / 1e9)).append('\n');
+        }
+    }
+
+    /**
+     * Indicador calculado al leerse
+     */
+    private static final class Gauge extends Metric {
+        private final LongSupplier value;
+
+        Gauge(String name, LongSupplier value) {
+            super(name);
+            this.value = value;
+        }
+
+        @Override
+        void collect(Map<String, Number> attributes) {
+            attributes.put(name, value.getAsLong());
+        }
+
+        @Override
+        void writeText(String name, Appendable out) throws IOException {
+            out.append("# TYPE ").append(name).append(" gauge\n")
+                .append(name).append(' ').append(Long.toString(value.getAsLong())).append('\n');
+        }
+    }
+
+    /**
+     * Métricas de un componente, publicadas como un MBean dinámico cuyos atributos son
+     * de solo lectura y se leen en el momento de la consulta
+     */
+    private static final class Group implements DynamicMBean {
+        final String name;
+        final Map<String, Metric> metrics = new LinkedHashMap<>();
+
+        Group(String name) {
+            this.name = name;
+        }
+
+        synchronized List<Metric> list() {
+            return new ArrayList<>(metrics.values());
+        }
+
+        Map<String, Number> attributes() {
+            Map<String, Number> attributes = new LinkedHashMap<>();
+            for (Metric metric : list()) {
+                metric.collect(attributes);
+            }
+            return attributes;
+        }
+
+        @Override
+        public Object getAttribute(String attribute) throws AttributeNotFoundException {
+            Number value = attributes().get(attribute);
+            if (value == null) {
+                throw new AttributeNotFoundException(attribute);
+            }
+            return value;
+        }
+
+        @Override
+        public AttributeList getAttributes(String[] names) {
+            Map<String, Number> attributes = attributes();
+            AttributeList list = new AttributeList();
+            for (String attribute : names) {
+                Number value = attributes.get(attribute);
+                if (value != null) {
+                    list.add(new Attribute(attribute, value));
+                }
+            }
+            return list;
+        }
+
+        @Override
+        public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+            throw new AttributeNotFoundException("Las métricas son de solo lectura: " + attribute.getName());
+        }
+
+        @Override
+        public AttributeList setAttributes(AttributeList attributes) {
+            return new AttributeList();
+        }
+
+        @Override
+        public Object invoke(String actionName, Object[] params, String[] signature) {
+            throw new UnsupportedOperationException("Las métricas no tienen operaciones");
+        }
+
+        @Override
+        public MBeanInfo getMBeanInfo() {
+            List<MBeanAttributeInfo> infos = new ArrayList<>();
+            for (Map.Entry<String, Number> entry : attributes().entrySet()) {
+                String type = entry.getValue().getClass().getName();
+                infos.add(new MBeanAttributeInfo(entry.getKey(), type, entry.getKey(), true, false, false));
+            }
+            return new MBeanInfo(getClass().getName(), "Métricas de " + name,
+                infos.toArray(new MBeanAttributeInfo[0]), null, null, null);
+        }
+    }
+}
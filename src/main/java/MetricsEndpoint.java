@@ -0,0 +1,82 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Punto de acceso HTTP opcional con las métricas de {@link Metrics} en formato de texto
+ * de Prometheus, en http://127.0.0.1:&lt;puerto&gt;/metrics.
+ *
+ * Solo escucha en la interfaz local, de modo que no expone las métricas fuera de la
+ * máquina. Las peticiones se atienden en un único hilo daemon.
+ */
+public final class MetricsEndpoint implements AutoCloseable {
+    static final String PATH = "/metrics";
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    private MetricsEndpoint(HttpServer server, ExecutorService executor) {
+        this.server = server;
+        this.executor = executor;
+    }
+
+    /**
+     * Inicia el punto de acceso
+     * @param port Puerto local, o 0 para elegir uno libre
+     * @return Punto de acceso iniciado
+     * @throws IOException Si no se puede abrir el puerto
+     */
+    public static MetricsEndpoint start(int port) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "metrics-endpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext(PATH, MetricsEndpoint::handle);
+        server.start();
+        return new MetricsEndpoint(server, executor);
+    }
+
+    private static void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            StringBuilder text = new StringBuilder(4096);
+            Metrics.get().writeText(text);
+            byte[] body = text.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * @return Puerto en el que escucha
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Deja de aceptar peticiones y libera el puerto
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdown();
+    }
+}
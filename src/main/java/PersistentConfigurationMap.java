@@ -0,0 +1,549 @@
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Mapa inmutable y persistente de la configuración: un hash array mapped trie (HAMT).
+ *
+ * Cada nodo reparte sus entradas según 5 bits del hash de la clave y guarda solo las
+ * posiciones ocupadas, indexadas por un mapa de bits de 32 posiciones. {@link #with}
+ * copia únicamente los nodos del camino hasta la clave (a lo sumo 7 niveles) y comparte
+ * el resto con la versión anterior, así que una escritura cuesta O(log n) sin importar
+ * el tamaño de la configuración, y las versiones antiguas siguen siendo válidas.
+ *
+ * El mapa es de solo lectura: put, remove y clear lanzan
+ * {@link UnsupportedOperationException}. Admite valores nulos pero no claves nulas.
+ * Es seguro compartirlo entre hilos sin sincronización.
+ */
+public final class PersistentConfigurationMap extends AbstractMap<String, Object> {
+    private static final int BITS = 5;
+    private static final int MAX_DEPTH = 8;
+    private static final Object NOT_FOUND = new Object();
+    private static final PersistentConfigurationMap EMPTY = new PersistentConfigurationMap(null, 0);
+
+    private final Node root;
+    private final int size;
+    private Set<Entry<String, Object>> entrySet;
+
+    private PersistentConfigurationMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * @return Mapa vacío
+     */
+    public static PersistentConfigurationMap empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Crea un mapa con los valores indicados. Si ya es un mapa persistente se devuelve el
+     * mismo, sin copiarlo. La construcción modifica los nodos nuevos en el lugar en lugar
+     * de copiar el camino en cada inserción.
+     * @param values Valores iniciales
+     * @return Mapa persistente
+     * @throws NullPointerException Si alguna clave es nula
+     */
+    public static PersistentConfigurationMap copyOf(Map<String, ?> values) {
+        if (values instanceof PersistentConfigurationMap) {
+            return (PersistentConfigurationMap) values;
+        }
+        // Los nodos creados con este token son de esta construcción y pueden modificarse
+        Object edit = new Object();
+        Node root = BitmapNode.EMPTY;
+        int size = 0;
+        boolean[] added = new boolean[1];
+        for (Map.Entry<String, ?> entry : values.entrySet()) {
+            String key = requireKey(entry.getKey());
+            added[0] = false;
+            root = root.put(edit, 0, hash(key), key, entry.getValue(), added);
+            if (added[0]) {
+                size++;
+            }
+        }
+        return size == 0 ? EMPTY : new PersistentConfigurationMap(root, size);
+    }
+
+    /**
+     * Crea una versión con un valor agregado o reemplazado
+     * @param key Clave
+     * @param value Nuevo valor (puede ser null)
+     * @return Nuevo mapa, o este mismo si la clave ya tenía exactamente ese valor
+     */
+    public PersistentConfigurationMap with(String key, Object value) {
+        requireKey(key);
+        boolean[] added = new boolean[1];
+        Node next = (root == null ? BitmapNode.EMPTY : root).put(null, 0, hash(key), key, value, added);
+        return next == root ? this : new PersistentConfigurationMap(next, added[0] ? size + 1 : size);
+    }
+
+    /**
+     * Crea una versión sin una clave
+     * @param key Clave
+     * @return Nuevo mapa, o este mismo si la clave no existía
+     */
+    public PersistentConfigurationMap without(String key) {
+        if (root == null || key == null) {
+            return this;
+        }
+        Node next = root.remove(0, hash(key), key);
+        if (next == root) {
+            return this;
+        }
+        return next == null ? EMPTY : new PersistentConfigurationMap(next, size - 1);
+    }
+
+    @Override
+    public Object get(Object key) {
+        Object value = find(key);
+        return value == NOT_FOUND ? null : value;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return find(key) != NOT_FOUND;
+    }
+
+    private Object find(Object key) {
+        if (root == null || !(key instanceof String)) {
+            return NOT_FOUND;
+        }
+        return root.find(0, hash((String) key), (String) key);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        Set<Entry<String, Object>> entries = entrySet;
+        if (entries == null) {
+            entries = new AbstractSet<Entry<String, Object>>() {
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    return new EntryIterator(root);
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+            };
+            entrySet = entries;
+        }
+        return entries;
+    }
+
+    /**
+     * Agrega las claves que pueden diferir entre dos versiones. Los subárboles compartidos
+     * (el mismo nodo en ambas) se saltan sin recorrerlos, así que entre versiones derivadas
+     * con {@link #with} el costo es proporcional a los cambios y no al tamaño. Puede incluir
+     * claves cuyo valor es igual pero no idéntico: quien llama debe compararlos.
+     * @param before Versión anterior
+     * @param after Versión nueva
+     * @param keys Colección donde se agregan las claves candidatas
+     */
+    public static void collectChangedKeys(PersistentConfigurationMap before, PersistentConfigurationMap after,
+                                          Collection<String> keys) {
+        diff(before.root, after.root, 0, keys);
+    }
+
+    private static void diff(Node a, Node b, int shift, Collection<String> keys) {
+        if (a == b) {
+            return;
+        }
+        if (!(a instanceof BitmapNode) || !(b instanceof BitmapNode)) {
+            diffEntries(a, b, shift, true, keys);
+            diffEntries(b, a, shift, false, keys);
+            return;
+        }
+        BitmapNode x = (BitmapNode) a;
+        BitmapNode y = (BitmapNode) b;
+        int bits = x.bitmap | y.bitmap;
+        while (bits != 0) {
+            int bit = bits & -bits;
+            bits ^= bit;
+            if ((x.bitmap & bit) == 0) {
+                collectSlot(y, bit, keys);
+                continue;
+            }
+            if ((y.bitmap & bit) == 0) {
+                collectSlot(x, bit, keys);
+                continue;
+            }
+            int i = 2 * x.index(bit);
+            int j = 2 * y.index(bit);
+            Object keyA = x.array[i];
+            Object keyB = y.array[j];
+            if (keyA == null && keyB == null) {
+                diff((Node) x.array[i + 1], (Node) y.array[j + 1], shift + BITS, keys);
+            } else if (keyA != null && keyA.equals(keyB)) {
+                if (x.array[i + 1] != y.array[j + 1]) {
+                    keys.add((String) keyA);
+                }
+            } else if (keyA != null && keyB == null) {
+                diffLeaf((String) keyA, x.array[i + 1], (Node) y.array[j + 1], shift + BITS, keys);
+            } else if (keyA == null && keyB != null) {
+                diffLeaf((String) keyB, y.array[j + 1], (Node) x.array[i + 1], shift + BITS, keys);
+            } else {
+                collectSlot(x, bit, keys);
+                collectSlot(y, bit, keys);
+            }
+        }
+    }
+
+    /**
+     * Una hoja de una versión frente al subárbol que ocupa su lugar en la otra: cambian
+     * todas las claves del subárbol salvo la de la hoja si conserva el mismo valor
+     */
+    private static void diffLeaf(String key, Object value, Node subtree, int shift, Collection<String> keys) {
+        boolean kept = subtree.find(shift, hash(key), key) == value;
+        Iterator<Entry<String, Object>> entries = new EntryIterator(subtree);
+        while (entries.hasNext()) {
+            String other = entries.next().getKey();
+            if (!other.equals(key)) {
+                keys.add(other);
+            }
+        }
+        if (!kept) {
+            keys.add(key);
+        }
+    }
+
+    /**
+     * Agrega las claves de un nodo que faltan en el otro y, si se pide, las que cambian de
+     * valor. Se usa cuando alguno es un nodo de colisiones, que tiene pocas entradas.
+     */
+    private static void diffEntries(Node node, Node other, int shift, boolean changedValues,
+                                    Collection<String> keys) {
+        Iterator<Entry<String, Object>> entries = new EntryIterator(node);
+        while (entries.hasNext()) {
+            Entry<String, Object> entry = entries.next();
+            String key = entry.getKey();
+            Object otherValue = other == null ? NOT_FOUND : other.find(shift, hash(key), key);
+            if (otherValue == NOT_FOUND || changedValues && otherValue != entry.getValue()) {
+                keys.add(key);
+            }
+        }
+    }
+
+    private static void collectSlot(BitmapNode node, int bit, Collection<String> keys) {
+        int i = 2 * node.index(bit);
+        if (node.array[i] != null) {
+            keys.add((String) node.array[i]);
+        } else {
+            collectKeys((Node) node.array[i + 1], keys);
+        }
+    }
+
+    private static void collectKeys(Node node, Collection<String> keys) {
+        Iterator<Entry<String, Object>> entries = new EntryIterator(node);
+        while (entries.hasNext()) {
+            keys.add(entries.next().getKey());
+        }
+    }
+
+    private static String requireKey(String key) {
+        if (key == null) {
+            throw new NullPointerException("La configuración no admite claves nulas");
+        }
+        return key;
+    }
+
+    private static int hash(String key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private static int bitpos(int hash, int shift) {
+        return 1 << ((hash >>> shift) & 31);
+    }
+
+    /**
+     * Nodo del trie. Sus entradas se guardan en pares del arreglo: (clave, valor) para una
+     * hoja, o (null, nodo hijo) para un subárbol.
+     */
+    private abstract static class Node {
+        // Token de la construcción dueña del nodo (ver copyOf), o null si es inmutable
+        final Object edit;
+        Object[] array;
+
+        Node(Object edit, Object[] array) {
+            this.edit = edit;
+            this.array = array;
+        }
+
+        /**
+         * @return El nodo con la clave agregada o reemplazada; este mismo si no cambió o
+         *         si se modificó en el lugar por pertenecer a la construcción edit
+         */
+        abstract Node put(Object edit, int shift, int hash, String key, Object value, boolean[] added);
+
+        /**
+         * @return El nodo sin la clave, null si quedó vacío, o este mismo si no la tenía
+         */
+        abstract Node remove(int shift, int hash, String key);
+
+        /**
+         * @return El valor, o NOT_FOUND
+         */
+        abstract Object find(int shift, int hash, String key);
+
+        boolean ownedBy(Object edit) {
+            return edit != null && edit == this.edit;
+        }
+    }
+
+    private static final class BitmapNode extends Node {
+        static final BitmapNode EMPTY = new BitmapNode(null, 0, new Object[0]);
+
+        int bitmap;
+
+        BitmapNode(Object edit, int bitmap, Object[] array) {
+            super(edit, array);
+            this.bitmap = bitmap;
+        }
+
+        int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        /**
+         * Copia del nodo con un elemento cambiado, o el mismo nodo si es de la construcción
+         */
+        private BitmapNode set(Object edit, int i, Object value) {
+            BitmapNode node = ownedBy(edit) ? this : new BitmapNode(edit, bitmap, array.clone());
+            node.array[i] = value;
+            return node;
+        }
+
+        @Override
+        Node put(Object edit, int shift, int hash, String key, Object value, boolean[] added) {
+            int bit = bitpos(hash, shift);
+            int index = index(bit);
+            if ((bitmap & bit) != 0) {
+                Object existingKey = array[2 * index];
+                Object existing = array[2 * index + 1];
+                if (existingKey == null) {
+                    Node child = ((Node) existing).put(edit, shift + BITS, hash, key, value, added);
+                    return child == existing ? this : set(edit, 2 * index + 1, child);
+                }
+                if (key.equals(existingKey)) {
+                    return existing == value ? this : set(edit, 2 * index + 1, value);
+                }
+                added[0] = true;
+                Node child = split(edit, shift + BITS, (String) existingKey, existing, hash, key, value);
+                BitmapNode node = set(edit, 2 * index, null);
+                node.array[2 * index + 1] = child;
+                return node;
+            }
+
+            added[0] = true;
+            int count = Integer.bitCount(bitmap);
+            Object[] next = new Object[2 * (count + 1)];
+            System.arraycopy(array, 0, next, 0, 2 * index);
+            next[2 * index] = key;
+            next[2 * index + 1] = value;
+            System.arraycopy(array, 2 * index, next, 2 * (index + 1), 2 * (count - index));
+            if (ownedBy(edit)) {
+                array = next;
+                bitmap |= bit;
+                return this;
+            }
+            return new BitmapNode(edit, bitmap | bit, next);
+        }
+
+        /**
+         * Subárbol con dos hojas que caían en la misma posición
+         */
+        private static Node split(Object edit, int shift, String key1, Object value1,
+                                  int hash2, String key2, Object value2) {
+            int hash1 = hash(key1);
+            if (hash1 == hash2) {
+                return new CollisionNode(edit, hash1, new Object[] {key1, value1, key2, value2});
+            }
+            boolean[] ignored = new boolean[1];
+            return EMPTY.put(edit, shift, hash1, key1, value1, ignored)
+                .put(edit, shift, hash2, key2, value2, ignored);
+        }
+
+        @Override
+        Node remove(int shift, int hash, String key) {
+            int bit = bitpos(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return this;
+            }
+            int index = index(bit);
+            Object existingKey = array[2 * index];
+            Object existing = array[2 * index + 1];
+            if (existingKey == null) {
+                Node child = ((Node) existing).remove(shift + BITS, hash, key);
+                if (child == existing) {
+                    return this;
+                }
+                if (child != null) {
+                    return set(null, 2 * index + 1, child);
+                }
+            } else if (!key.equals(existingKey)) {
+                return this;
+            }
+            if (bitmap == bit) {
+                return null;
+            }
+            int count = Integer.bitCount(bitmap);
+            Object[] next = new Object[2 * (count - 1)];
+            System.arraycopy(array, 0, next, 0, 2 * index);
+            System.arraycopy(array, 2 * (index + 1), next, 2 * index, 2 * (count - index - 1));
+            return new BitmapNode(null, bitmap ^ bit, next);
+        }
+
+        @Override
+        Object find(int shift, int hash, String key) {
+            Node node = this;
+            while (node instanceof BitmapNode) {
+                BitmapNode current = (BitmapNode) node;
+                int bit = bitpos(hash, shift);
+                if ((current.bitmap & bit) == 0) {
+                    return NOT_FOUND;
+                }
+                int i = 2 * current.index(bit);
+                Object existingKey = current.array[i];
+                if (existingKey != null) {
+                    return key.equals(existingKey) ? current.array[i + 1] : NOT_FOUND;
+                }
+                node = (Node) current.array[i + 1];
+                shift += BITS;
+            }
+            return node.find(shift, hash, key);
+        }
+    }
+
+    /**
+     * Hojas cuyas claves tienen el mismo hash completo; se buscan linealmente
+     */
+    private static final class CollisionNode extends Node {
+        final int hash;
+
+        CollisionNode(Object edit, int hash, Object[] array) {
+            super(edit, array);
+            this.hash = hash;
+        }
+
+        private int indexOf(String key) {
+            for (int i = 0; i < array.length; i += 2) {
+                if (key.equals(array[i])) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        Node put(Object edit, int shift, int hash, String key, Object value, boolean[] added) {
+            if (hash != this.hash) {
+                // Otra clave llega a esta posición: el nodo pasa a ser hijo de uno nuevo
+                BitmapNode parent = new BitmapNode(edit, bitpos(this.hash, shift), new Object[] {null, this});
+                return parent.put(edit, shift, hash, key, value, added);
+            }
+            int i = indexOf(key);
+            if (i >= 0) {
+                if (array[i + 1] == value) {
+                    return this;
+                }
+                Object[] next = array.clone();
+                next[i + 1] = value;
+                return new CollisionNode(edit, hash, next);
+            }
+            added[0] = true;
+            Object[] next = new Object[array.length + 2];
+            System.arraycopy(array, 0, next, 0, array.length);
+            next[array.length] = key;
+            next[array.length + 1] = value;
+            return new CollisionNode(edit, hash, next);
+        }
+
+        @Override
+        Node remove(int shift, int hash, String key) {
+            int i = hash == this.hash ? indexOf(key) : -1;
+            if (i < 0) {
+                return this;
+            }
+            if (array.length == 2) {
+                return null;
+            }
+            Object[] next = new Object[array.length - 2];
+            System.arraycopy(array, 0, next, 0, i);
+            System.arraycopy(array, i + 2, next, i, array.length - i - 2);
+            return new CollisionNode(null, hash, next);
+        }
+
+        @Override
+        Object find(int shift, int hash, String key) {
+            int i = hash == this.hash ? indexOf(key) : -1;
+            return i < 0 ? NOT_FOUND : array[i + 1];
+        }
+    }
+
+    /**
+     * Recorrido en profundidad con una pila explícita; no copia el mapa
+     */
+    private static final class EntryIterator implements Iterator<Entry<String, Object>> {
+        private final Object[][] arrays = new Object[MAX_DEPTH + 1][];
+        private final int[] positions = new int[MAX_DEPTH + 1];
+        private int depth;
+        private String nextKey;
+        private Object nextValue;
+
+        EntryIterator(Node root) {
+            if (root == null) {
+                depth = -1;
+            } else {
+                arrays[0] = root.array;
+            }
+            advance();
+        }
+
+        private void advance() {
+            while (depth >= 0) {
+                Object[] array = arrays[depth];
+                int i = positions[depth];
+                if (i >= array.length) {
+                    depth--;
+                    continue;
+                }
+                positions[depth] = i + 2;
+                if (array[i] != null) {
+                    nextKey = (String) array[i];
+                    nextValue = array[i + 1];
+                    return;
+                }
+                depth++;
+                arrays[depth] = ((Node) array[i + 1]).array;
+                positions[depth] = 0;
+            }
+            nextKey = null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextKey != null;
+        }
+
+        @Override
+        public Entry<String, Object> next() {
+            if (nextKey == null) {
+                throw new NoSuchElementException();
+            }
+            Entry<String, Object> entry = new SimpleImmutableEntry<>(nextKey, nextValue);
+            advance();
+            return entry;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+/**
+ * Prueba de la replicación en la máquina local: la configuración de este proceso actúa
+ * como líder y varios gestores independientes la siguen por sockets en 127.0.0.1.
+ *
+ * Se publican muchos cambios seguidos (que el líder agrupa según su ventana) y uno de
+ * los seguidores se conecta a mitad de la prueba, de modo que se pone al día con una
+ * copia completa. Al final se comprueba que todos los seguidores tienen exactamente la
+ * configuración del líder y se informa del rendimiento y de la latencia de propagación.
+ * Se ejecuta con {@code java Main --replication-demo [seguidores] [cambios]}.
+ */
+public class ReplicationDemo {
+    static final String COUNTER_KEY = "replicationDemoCounter";
+    static final int DEFAULT_FOLLOWERS = 3;
+    static final int DEFAULT_CHANGES = 10_000;
+
+    // Pausa entre cambios, para que se repartan en varios lotes
+    private static final long INTERVAL_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final long TIMEOUT_SECONDS = 30;
+
+    private final ConfigurationManager configManager;
+    private final long batchNanos;
+
+    /**
+     * @param configManager Configuración que actúa como líder
+     * @param batchNanos Ventana de agrupación del líder
+     */
+    public ReplicationDemo(ConfigurationManager configManager, long batchNanos) {
+        this.configManager = configManager;
+        this.batchNanos = batchNanos;
+    }
+
+    /**
+     * Ejecuta la prueba e imprime una fila por seguidor
+     * @param followers Número de seguidores (el último se conecta a mitad de la prueba)
+     * @param changes Número de cambios a publicar en el líder
+     * @return true si todos los seguidores terminaron con la configuración del líder
+     * @throws IOException Si no se puede abrir el puerto del líder
+     * @throws InterruptedException Si se interrumpe la espera de los seguidores
+     */
+    public boolean run(int followers, int changes) throws IOException, InterruptedException {
+        Path directory = Files.createTempDirectory("config-replication");
+        List<ConfigurationManager> managers = new ArrayList<>();
+        List<ReplicationFollower> nodes = new ArrayList<>();
+        try (ReplicationLeader leader = ReplicationLeader.start(configManager,
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), batchNanos)) {
+            InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), leader.getPort());
+            for (int i = 0; i < followers; i++) {
+                managers.add(followerManager(directory, i));
+            }
+            int lateFollower = followers - 1;
+            for (int i = 0; i < lateFollower; i++) {
+                nodes.add(ReplicationFollower.start(managers.get(i), address));
+            }
+            System.out.printf("Líder en %s con ventana de %.1f ms; %d cambios para %d seguidores...%n",
+                address, batchNanos / 1_000_000.0, changes, followers);
+
+            long start = System.nanoTime();
+            for (int i = 1; i <= changes; i++) {
+                if (i == changes / 2 + 1 && lateFollower >= 0) {
+                    nodes.add(ReplicationFollower.start(managers.get(lateFollower), address));
+                }
+                configManager.setConfiguration(COUNTER_KEY, (long) i);
+                LockSupport.parkNanos(INTERVAL_NANOS);
+            }
+            long target = configManager.getSnapshot().getVersion();
+            boolean passed = true;
+            for (ReplicationFollower node : nodes) {
+                passed &= node.awaitVersion(target, TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            }
+            double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+            System.out.printf("%d cambios replicados en %.2f s (%.0f cambios/s)%n", changes, seconds,
+                changes / seconds);
+            System.out.printf("%-10s %10s %10s %10s %10s %12s%n",
+                "Seguidor", "Versión", "p50 (µs)", "p99 (µs)", "max (µs)", "Consistente");
+            for (int i = 0; i < nodes.size(); i++) {
+                ReplicationFollower node = nodes.get(i);
+                boolean consistent = sameConfiguration(configManager.getAllConfiguration(),
+                    managers.get(i).getAllConfiguration());
+                passed &= consistent;
+                LatencyHistogram latency = node.getPropagationLatency();
+                System.out.printf("%-10s %10d %10d %10d %10d %12s%n", i == lateFollower ? i + " (tarde)" : i,
+                    node.getAppliedVersion(), micros(latency.getValueAtPercentile(50)),
+                    micros(latency.getValueAtPercentile(99)), micros(latency.getMaxValue()),
+                    consistent ? "sí" : "NO");
+            }
+            Metrics metrics = Metrics.get();
+            String group = ReplicationLeader.METRICS_GROUP;
+            System.out.printf("Líder: %s deltas, %s copias completas, %s bytes, %s versiones agrupadas; "
+                    + "seguidores: %s huecos detectados%n",
+                metrics.getValue(group, "deltasSent"), metrics.getValue(group, "snapshotsSent"),
+                metrics.getValue(group, "bytesSent"), metrics.getValue(group, "versionsBatched"),
+                metrics.getValue(group, "gapsDetected"));
+            System.out.println(passed ? "Resultado: todos los seguidores tienen la configuración del líder"
+                : "Resultado: FALLO");
+            return passed;
+        } finally {
+            for (ReplicationFollower node : nodes) {
+                node.close();
+            }
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    Files.deleteIfExists(file);
+                }
+            }
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    /**
+     * Gestor independiente con su propio archivo vacío, como el de otro nodo
+     */
+    private static ConfigurationManager followerManager(Path directory, int index) throws IOException {
+        Path file = directory.resolve("follower-" + index + ".json");
+        Files.write(file, "{}".getBytes(StandardCharsets.UTF_8));
+        return new ConfigurationManager(LayeredConfiguration.forTenant(file, ConfigKey.defaults()), null);
+    }
+
+    private static boolean sameConfiguration(Map<String, Object> expected, Map<String, Object> actual) {
+        if (!expected.keySet().equals(actual.keySet())) {
+            return false;
+        }
+        for (Map.Entry<String, Object> entry : expected.entrySet()) {
+            if (!ConfigurationChangeEvent.sameValue(entry.getValue(), actual.get(entry.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long micros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+}
@@ -0,0 +1,296 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Nodo seguidor de la replicación: recibe del {@link ReplicationLeader} la configuración
+ * y sus cambios y los publica en su {@link ConfigurationManager} con
+ * {@link ConfigurationManager#reload}, de modo que sus listeners se notifican como en
+ * una recarga en caliente.
+ *
+ * Al conectarse recibe una copia completa; después aplica los deltas en orden. Cada delta
+ * indica la versión de la que parte: si no coincide con la última aplicada falta alguno
+ * (hueco), se descartan los siguientes y se pide una copia completa para ponerse al día.
+ * Si se pierde la conexión se reintenta periódicamente.
+ *
+ * El seguidor no debería modificar su configuración ni vigilar su config.json: cada
+ * mensaje del líder reemplaza la configuración completa por la réplica.
+ */
+public final class ReplicationFollower implements AutoCloseable {
+    static final long RECONNECT_DELAY_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+    private static final int INPUT_BUFFER_SIZE = 64 * 1024;
+
+    private static final String METRICS_GROUP = ReplicationLeader.METRICS_GROUP;
+    private static final Metrics.Counter DELTAS_APPLIED = Metrics.get().counter(METRICS_GROUP, "deltasApplied");
+    private static final Metrics.Counter SNAPSHOTS_APPLIED = Metrics.get().counter(METRICS_GROUP, "snapshotsApplied");
+    private static final Metrics.Counter GAPS_DETECTED = Metrics.get().counter(METRICS_GROUP, "gapsDetected");
+    private static final Metrics.Counter BYTES_RECEIVED = Metrics.get().counter(METRICS_GROUP, "bytesReceived");
+    private static final Metrics.Timer PROPAGATION = Metrics.get().timer(METRICS_GROUP, "propagation");
+
+    private final ConfigurationManager manager;
+    private final InetSocketAddress leader;
+    private final Selector selector;
+    private final Thread thread;
+    private final LatencyHistogram propagation = new LatencyHistogram();
+    private volatile boolean running = true;
+    private long appliedVersion = -1;
+
+    // Solo se usan en el hilo del selector
+    private SocketChannel channel;
+    private SelectionKey key;
+    private ByteBuffer input = ByteBuffer.allocate(INPUT_BUFFER_SIZE);
+    private final ArrayDeque<ByteBuffer> outbound = new ArrayDeque<>();
+    private PersistentConfigurationMap replica = PersistentConfigurationMap.empty();
+    private boolean awaitingSnapshot;
+    private long reconnectAt;
+
+    private ReplicationFollower(ConfigurationManager manager, InetSocketAddress leader, Selector selector) {
+        this.manager = manager;
+        this.leader = leader;
+        this.selector = selector;
+        this.reconnectAt = System.nanoTime();
+        this.thread = new Thread(this::run, "config-replication-follower");
+        this.thread.setDaemon(true);
+    }
+
+    /**
+     * Empieza a seguir a un líder; la conexión se establece (y se reintenta) en segundo plano
+     * @param manager Configuración que recibe la réplica
+     * @param leader Dirección del líder
+     * @return Seguidor iniciado
+     * @throws IOException Si no se puede abrir el selector
+     */
+    public static ReplicationFollower start(ConfigurationManager manager, InetSocketAddress leader)
+            throws IOException {
+        ReplicationFollower follower = new ReplicationFollower(manager, leader, Selector.open());
+        follower.thread.start();
+        return follower;
+    }
+
+    private void run() {
+        try {
+            while (running) {
+                if (channel == null && System.nanoTime() - reconnectAt >= 0) {
+                    connect();
+                }
+                long timeout = channel != null ? 0
+                    : Math.max(1, TimeUnit.NANOSECONDS.toMillis(reconnectAt - System.nanoTime()));
+                selector.select(timeout);
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey selected = keys.next();
+                    keys.remove();
+                    try {
+                        if (selected.isValid() && selected.isConnectable() && channel.finishConnect()) {
+                            onConnected();
+                        }
+                        if (selected.isValid() && selected.isReadable()) {
+                            read();
+                        }
+                        if (selected.isValid() && selected.isWritable()) {
+                            write();
+                        }
+                    } catch (IOException e) {
+                        disconnect();
+                    }
+                }
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            if (running) {
+                System.err.println("Error en el seguidor de replicación: " + e.getMessage());
+            }
+        } finally {
+            if (channel != null) {
+                disconnect();
+            }
+        }
+    }
+
+    private void connect() {
+        try {
+            channel = SocketChannel.open();
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            if (channel.connect(leader)) {
+                key = channel.register(selector, SelectionKey.OP_READ);
+                onConnected();
+            } else {
+                key = channel.register(selector, SelectionKey.OP_CONNECT);
+            }
+        } catch (IOException e) {
+            disconnect();
+        }
+    }
+
+    private void onConnected() throws IOException {
+        key.interestOps(SelectionKey.OP_READ);
+        input.clear();
+        outbound.clear();
+        awaitingSnapshot = true;
+        send(ReplicationProtocol.hello());
+    }
+
+    private void disconnect() {
+        if (key != null) {
+            key.cancel();
+            key = null;
+        }
+        try {
+            if (channel != null) {
+                channel.close();
+            }
+        } catch (IOException e) {
+            // Ya estaba cerrada
+        }
+        channel = null;
+        reconnectAt = System.nanoTime() + RECONNECT_DELAY_NANOS;
+    }
+
+    private void read() throws IOException {
+        int read = channel.read(input);
+        if (read < 0) {
+            throw new IOException("El líder cerró la conexión");
+        }
+        BYTES_RECEIVED.add(read);
+        input.flip();
+        ByteBuffer frame;
+        while ((frame = ReplicationProtocol.nextFrame(input)) != null) {
+            byte type = frame.get();
+            if (type == ReplicationProtocol.SNAPSHOT) {
+                applySnapshot(frame);
+            } else if (type == ReplicationProtocol.DELTA) {
+                applyDelta(frame);
+            } else {
+                throw new IOException("Mensaje de replicación inesperado: " + type);
+            }
+        }
+        input = ReplicationProtocol.compact(input);
+    }
+
+    private void applySnapshot(ByteBuffer frame) {
+        long version = frame.getLong();
+        frame.getLong(); // Instante de la versión: la copia completa no cuenta como propagación
+        int count = frame.getInt();
+        ConfigurationBinarySnapshot.Reader reader = new ConfigurationBinarySnapshot.Reader(frame);
+        Map<String, Object> values = new HashMap<>(count * 4 / 3 + 1);
+        for (int i = 0; i < count; i++) {
+            values.put(ConfigurationParser.internKey(reader.readString()), reader.readValue());
+        }
+        replica = PersistentConfigurationMap.copyOf(values);
+        awaitingSnapshot = false;
+        publish(version);
+        SNAPSHOTS_APPLIED.increment();
+    }
+
+    private void applyDelta(ByteBuffer frame) throws IOException {
+        long base = frame.getLong();
+        long version = frame.getLong();
+        long changedMicros = frame.getLong();
+        if (awaitingSnapshot || version <= appliedVersion) {
+            return; // Ya se pidió una copia completa, o es un delta ya incluido en ella
+        }
+        if (base != appliedVersion) {
+            GAPS_DETECTED.increment();
+            awaitingSnapshot = true;
+            send(ReplicationProtocol.snapshotRequest());
+            return;
+        }
+        int count = frame.getInt();
+        ConfigurationBinarySnapshot.Reader reader = new ConfigurationBinarySnapshot.Reader(frame);
+        PersistentConfigurationMap values = replica;
+        for (int i = 0; i < count; i++) {
+            String key = ConfigurationParser.internKey(reader.readString());
+            values = frame.get() != 0 ? values.with(key, reader.readValue()) : values.without(key);
+        }
+        replica = values;
+        publish(version);
+        long latency = TimeUnit.MICROSECONDS.toNanos(SharedConfigurationRegion.currentMicros() - changedMicros);
+        propagation.record(latency);
+        PROPAGATION.record(Math.max(0, latency));
+        DELTAS_APPLIED.increment();
+    }
+
+    private void publish(long version) {
+        manager.replace(replica);
+        synchronized (this) {
+            appliedVersion = version;
+            notifyAll();
+        }
+    }
+
+    private void send(ByteBuffer frame) throws IOException {
+        outbound.add(frame);
+        write();
+    }
+
+    private void write() throws IOException {
+        while (!outbound.isEmpty()) {
+            ByteBuffer head = outbound.peekFirst();
+            channel.write(head);
+            if (head.hasRemaining()) {
+                break;
+            }
+            outbound.pollFirst();
+        }
+        key.interestOps(outbound.isEmpty() ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+    }
+
+    /**
+     * @return Versión del líder aplicada por última vez, o -1 si aún no se recibió ninguna
+     */
+    public synchronized long getAppliedVersion() {
+        return appliedVersion;
+    }
+
+    /**
+     * Espera a que se aplique una versión del líder
+     * @param version Versión esperada (o posterior)
+     * @param timeout Tiempo máximo de espera
+     * @param unit Unidad del tiempo de espera
+     * @return true si se alcanzó la versión
+     * @throws InterruptedException Si se interrumpe la espera
+     */
+    public synchronized boolean awaitVersion(long version, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (appliedVersion < version) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return false;
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+        return true;
+    }
+
+    /**
+     * @return Latencias desde el primer cambio de cada lote en el líder hasta su aplicación
+     *         en este seguidor (requiere relojes sincronizados entre las máquinas)
+     */
+    public LatencyHistogram getPropagationLatency() {
+        return propagation;
+    }
+
+    /**
+     * Deja de seguir al líder y cierra la conexión
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        selector.wakeup();
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        selector.close();
+    }
+}
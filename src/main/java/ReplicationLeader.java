@@ -0,0 +1,356 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Nodo fuente de la replicación: envía a los seguidores ({@link ReplicationFollower})
+ * los cambios de su {@link ConfigurationManager} como deltas por clave y versionados.
+ *
+ * Todo el trabajo de red se hace en un único hilo con un {@link Selector} y sockets no
+ * bloqueantes. Los cambios que llegan dentro de la ventana de agrupación se envían juntos
+ * en un solo mensaje con las claves que difieren entre la última versión enviada y la
+ * vigente (calculadas con {@link ConfigurationChangeEvent}); cada mensaje se codifica una
+ * vez y se comparte entre todas las conexiones.
+ *
+ * Un seguidor nuevo, uno que detecta un hueco o uno tan lento que acumula demasiados
+ * bytes pendientes recibe una copia completa y continúa con los deltas siguientes.
+ * El protocolo no autentica a los seguidores: debe usarse en una red de confianza.
+ */
+public final class ReplicationLeader implements ConfigurationChangeListener, AutoCloseable {
+    static final String METRICS_GROUP = "Replication";
+    static final long DEFAULT_BATCH_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+    // Pendiente por seguidor a partir del cual se descartan sus deltas y se le envía una copia completa
+    static final int MAX_QUEUED_BYTES = 8 << 20;
+
+    private static final Metrics.Counter DELTAS_SENT = Metrics.get().counter(METRICS_GROUP, "deltasSent");
+    private static final Metrics.Counter SNAPSHOTS_SENT = Metrics.get().counter(METRICS_GROUP, "snapshotsSent");
+    private static final Metrics.Counter BYTES_SENT = Metrics.get().counter(METRICS_GROUP, "bytesSent");
+    private static final Metrics.Counter VERSIONS_BATCHED = Metrics.get().counter(METRICS_GROUP, "versionsBatched");
+    private static final Metrics.Counter ERRORS = Metrics.get().counter(METRICS_GROUP, "errors");
+    // Seguidores conectados a todos los líderes del proceso; el indicador no retiene ningún líder
+    private static final LongAdder FOLLOWERS = new LongAdder();
+
+    static {
+        Metrics.get().gauge(METRICS_GROUP, "followers", FOLLOWERS::sum);
+    }
+
+    private final ConfigurationManager manager;
+    private final long batchNanos;
+    private final Selector selector;
+    private final ServerSocketChannel server;
+    private final List<Connection> connections = new CopyOnWriteArrayList<>();
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    // Instante (microsegundos) del primer cambio aún no enviado, o 0; lo escriben los listeners
+    private final AtomicLong pendingSinceMicros = new AtomicLong();
+    private final AtomicLong flushDeadline = new AtomicLong();
+
+    // Solo se usan en el hilo del selector
+    private ConfigurationSnapshot lastSent;
+    private long lastSentMicros;
+    private ByteBuffer lastSnapshotFrame;
+
+    private ReplicationLeader(ConfigurationManager manager, long batchNanos, Selector selector,
+                              ServerSocketChannel server) {
+        this.manager = manager;
+        this.batchNanos = batchNanos;
+        this.selector = selector;
+        this.server = server;
+        this.lastSent = manager.getSnapshot();
+        this.lastSentMicros = SharedConfigurationRegion.currentMicros();
+        this.thread = new Thread(this::run, "config-replication-leader");
+        this.thread.setDaemon(true);
+    }
+
+    /**
+     * Empieza a aceptar seguidores y a enviarles los cambios de la configuración
+     * @param manager Configuración fuente
+     * @param address Dirección en la que escuchar (puerto 0 para elegir uno libre)
+     * @param batchNanos Ventana en la que los cambios se agrupan en un solo mensaje
+     * @return Líder iniciado
+     * @throws IOException Si no se puede abrir el puerto
+     */
+    public static ReplicationLeader start(ConfigurationManager manager, InetSocketAddress address,
+                                          long batchNanos) throws IOException {
+        Selector selector = Selector.open();
+        ServerSocketChannel server = ServerSocketChannel.open();
+        try {
+            server.bind(address);
+            server.configureBlocking(false);
+            server.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            server.close();
+            selector.close();
+            throw e;
+        }
+        ReplicationLeader leader = new ReplicationLeader(manager, Math.max(0, batchNanos), selector, server);
+        manager.addChangeListener(leader);
+        leader.thread.start();
+        return leader;
+    }
+
+    /**
+     * Anota el cambio; se envía al cerrar la ventana de agrupación
+     */
+    @Override
+    public void configurationChanged(ConfigurationChangeEvent event) {
+        if (pendingSinceMicros.compareAndSet(0, SharedConfigurationRegion.currentMicros())) {
+            flushDeadline.set(System.nanoTime() + batchNanos);
+            selector.wakeup();
+        }
+    }
+
+    private void run() {
+        try {
+            while (running) {
+                long timeout = selectTimeoutMillis();
+                if (timeout < 0) {
+                    selector.selectNow();
+                } else {
+                    selector.select(timeout);
+                }
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else {
+                        Connection connection = (Connection) key.attachment();
+                        try {
+                            if (key.isReadable()) {
+                                connection.read();
+                            }
+                            if (key.isValid() && key.isWritable()) {
+                                connection.write();
+                            }
+                        } catch (IOException e) {
+                            connection.close();
+                        }
+                    }
+                }
+                if (pendingSinceMicros.get() != 0 && System.nanoTime() - flushDeadline.get() >= 0) {
+                    try {
+                        flush();
+                    } catch (IOException e) {
+                        // Un lote que no se puede codificar no detiene la replicación de los siguientes
+                        ERRORS.increment();
+                        System.err.println("No se pudieron enviar los cambios a los seguidores: " + e.getMessage());
+                    }
+                }
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            if (running) {
+                System.err.println("Error en el líder de replicación: " + e.getMessage());
+            }
+        } finally {
+            for (Connection connection : connections) {
+                connection.close();
+            }
+        }
+    }
+
+    /**
+     * Espera del selector hasta el cierre de la ventana de agrupación: 0 para esperar sin
+     * límite a la red o a un wakeup, o -1 si la ventana ya se cerró
+     */
+    private long selectTimeoutMillis() {
+        if (pendingSinceMicros.get() == 0) {
+            return 0;
+        }
+        long remaining = flushDeadline.get() - System.nanoTime();
+        return remaining <= 0 ? -1 : (remaining + 999_999) / 1_000_000;
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = server.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+        Connection connection = new Connection(channel);
+        connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+        connections.add(connection);
+        FOLLOWERS.increment();
+    }
+
+    /**
+     * Envía a todos los seguidores la diferencia entre la última versión enviada y la vigente;
+     * las conexiones que fallan al escribir se cierran
+     * @throws IOException Si el lote no se puede codificar (por ejemplo, si excede el tamaño de trama)
+     */
+    private void flush() throws IOException {
+        long since = pendingSinceMicros.getAndSet(0);
+        ConfigurationSnapshot current = manager.getSnapshot();
+        if (current.getVersion() <= lastSent.getVersion()) {
+            return;
+        }
+        ConfigurationChangeEvent event = ConfigurationChangeEvent.between(lastSent, current);
+        ByteBuffer frame = ReplicationProtocol.delta(lastSent, current, event.getChangedKeys(), since);
+        VERSIONS_BATCHED.add(current.getVersion() - lastSent.getVersion());
+        lastSent = current;
+        lastSentMicros = since;
+        lastSnapshotFrame = null;
+        for (Connection connection : connections) {
+            if (connection.synced) {
+                try {
+                    connection.send(frame.duplicate());
+                    DELTAS_SENT.increment();
+                } catch (IOException e) {
+                    connection.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * Copia completa de la última versión enviada, codificada una sola vez por versión
+     */
+    private ByteBuffer snapshotFrame() throws IOException {
+        if (lastSnapshotFrame == null) {
+            lastSnapshotFrame = ReplicationProtocol.snapshot(lastSent, lastSentMicros);
+        }
+        return lastSnapshotFrame.duplicate();
+    }
+
+    /**
+     * @return Número de seguidores conectados
+     */
+    public int getFollowerCount() {
+        return connections.size();
+    }
+
+    /**
+     * @return Puerto en el que escucha
+     */
+    public int getPort() {
+        return server.socket().getLocalPort();
+    }
+
+    /**
+     * Deja de enviar cambios y cierra todas las conexiones
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        manager.removeChangeListener(this);
+        selector.wakeup();
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        server.close();
+        selector.close();
+    }
+
+    /**
+     * Conexión con un seguidor; solo se usa en el hilo del selector
+     */
+    private final class Connection {
+        private final SocketChannel channel;
+        private final ArrayDeque<ByteBuffer> outbound = new ArrayDeque<>();
+        private ByteBuffer input = ByteBuffer.allocate(256);
+        private long queuedBytes;
+        private SelectionKey key;
+        // Si ya recibió una copia completa y puede aplicar los deltas siguientes
+        private boolean synced;
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        void read() throws IOException {
+            if (channel.read(input) < 0) {
+                throw new IOException("El seguidor cerró la conexión");
+            }
+            input.flip();
+            ByteBuffer frame;
+            while ((frame = ReplicationProtocol.nextFrame(input)) != null) {
+                byte type = frame.get();
+                if (type == ReplicationProtocol.HELLO) {
+                    int version = frame.getInt();
+                    if (version != ReplicationProtocol.PROTOCOL_VERSION) {
+                        throw new IOException("Versión del protocolo de replicación no admitida: " + version);
+                    }
+                    sendSnapshot();
+                } else if (type == ReplicationProtocol.SNAPSHOT_REQUEST) {
+                    sendSnapshot();
+                } else {
+                    throw new IOException("Mensaje de replicación inesperado: " + type);
+                }
+            }
+            input = ReplicationProtocol.compact(input);
+        }
+
+        private void sendSnapshot() throws IOException {
+            send(snapshotFrame());
+            synced = true;
+            SNAPSHOTS_SENT.increment();
+        }
+
+        void send(ByteBuffer frame) throws IOException {
+            if (queuedBytes + frame.remaining() > MAX_QUEUED_BYTES) {
+                // Seguidor demasiado lento: se conserva solo la trama a medio escribir y se le
+                // envía una copia completa en lugar de los deltas acumulados
+                ByteBuffer partial = outbound.peekFirst();
+                outbound.clear();
+                queuedBytes = 0;
+                if (partial != null && partial.position() > 0) {
+                    outbound.add(partial);
+                    queuedBytes = partial.remaining();
+                }
+                frame = snapshotFrame();
+                SNAPSHOTS_SENT.increment();
+            }
+            outbound.add(frame);
+            queuedBytes += frame.remaining();
+            write();
+        }
+
+        void write() throws IOException {
+            while (!outbound.isEmpty()) {
+                ByteBuffer head = outbound.peekFirst();
+                int written = channel.write(head);
+                queuedBytes -= written;
+                BYTES_SENT.add(written);
+                if (head.hasRemaining()) {
+                    break;
+                }
+                outbound.pollFirst();
+            }
+            key.interestOps(outbound.isEmpty() ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        }
+
+        void close() {
+            if (connections.remove(this)) {
+                FOLLOWERS.decrement();
+            }
+            if (key != null) {
+                key.cancel();
+            }
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // Ya estaba cerrada
+            }
+        }
+    }
+}
@@ -0,0 +1,161 @@
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Mensajes de la replicación de la configuración entre nodos ({@link ReplicationLeader}
+ * y {@link ReplicationFollower}).
+ *
+ * Cada mensaje es una trama (big-endian) con su longitud, su tipo y su contenido:
+ * <pre>
+ *   int     longitud del tipo más el contenido
+ *   byte    tipo
+ *   ...     contenido
+ * </pre>
+ * Tipos:
+ * <ul>
+ *   <li>HELLO (seguidor): versión del protocolo. El líder responde con una copia completa.</li>
+ *   <li>SNAPSHOT (líder): versión, instante del cambio en microsegundos, número de
+ *       entradas y pares clave-valor.</li>
+ *   <li>DELTA (líder): versión de partida, versión final, instante del primer cambio del
+ *       lote en microsegundos, número de claves y, por clave, si sigue presente y su valor.</li>
+ *   <li>SNAPSHOT_REQUEST (seguidor): pide una copia completa tras detectar un hueco.</li>
+ * </ul>
+ * Los valores se codifican como en {@link ConfigurationBinarySnapshot}.
+ */
+final class ReplicationProtocol {
+    static final int PROTOCOL_VERSION = 1;
+    static final byte HELLO = 1;
+    static final byte SNAPSHOT = 2;
+    static final byte DELTA = 3;
+    static final byte SNAPSHOT_REQUEST = 4;
+
+    static final int LENGTH_SIZE = 4;
+    static final int MAX_FRAME_SIZE = 64 << 20;
+
+    private ReplicationProtocol() {
+    }
+
+    static ByteBuffer hello() {
+        return ByteBuffer.allocate(LENGTH_SIZE + 5).putInt(5).put(HELLO).putInt(PROTOCOL_VERSION).flip();
+    }
+
+    static ByteBuffer snapshotRequest() {
+        return ByteBuffer.allocate(LENGTH_SIZE + 1).putInt(1).put(SNAPSHOT_REQUEST).flip();
+    }
+
+    /**
+     * Codifica una copia completa de la configuración
+     * @param snapshot Versión a enviar
+     * @param changedMicros Instante en que se publicó, en microsegundos desde la época
+     * @return Trama de solo lectura, lista para compartir entre conexiones
+     */
+    static ByteBuffer snapshot(ConfigurationSnapshot snapshot, long changedMicros) throws IOException {
+        Map<String, Object> values = snapshot.asMap();
+        Frame frame = new Frame(SNAPSHOT, 32 + values.size() * 32);
+        frame.out.writeLong(snapshot.getVersion());
+        frame.out.writeLong(changedMicros);
+        frame.out.writeInt(values.size());
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            ConfigurationBinarySnapshot.writeString(frame.out, entry.getKey());
+            ConfigurationBinarySnapshot.writeValue(frame.out, entry.getValue());
+        }
+        return frame.finish();
+    }
+
+    /**
+     * Codifica las claves que cambiaron entre dos versiones
+     * @param base Versión de la que parte el seguidor
+     * @param current Versión a la que llega
+     * @param keys Claves que difieren entre ambas
+     * @param changedMicros Instante del primer cambio del lote, en microsegundos desde la época
+     * @return Trama de solo lectura, lista para compartir entre conexiones
+     */
+    static ByteBuffer delta(ConfigurationSnapshot base, ConfigurationSnapshot current, Collection<String> keys,
+                            long changedMicros) throws IOException {
+        Map<String, Object> values = current.asMap();
+        Frame frame = new Frame(DELTA, 40 + keys.size() * 32);
+        frame.out.writeLong(base.getVersion());
+        frame.out.writeLong(current.getVersion());
+        frame.out.writeLong(changedMicros);
+        frame.out.writeInt(keys.size());
+        for (String key : keys) {
+            ConfigurationBinarySnapshot.writeString(frame.out, key);
+            if (values.containsKey(key)) {
+                frame.out.writeBoolean(true);
+                ConfigurationBinarySnapshot.writeValue(frame.out, values.get(key));
+            } else {
+                frame.out.writeBoolean(false);
+            }
+        }
+        return frame.finish();
+    }
+
+    /**
+     * Extrae la siguiente trama completa del búfer de lectura de una conexión
+     * @param input Búfer en modo lectura; su posición avanza solo si hay una trama completa
+     * @return Tipo y contenido de la trama, o null si todavía falta parte de ella
+     * @throws IOException Si la longitud anunciada no es válida
+     */
+    static ByteBuffer nextFrame(ByteBuffer input) throws IOException {
+        if (input.remaining() < LENGTH_SIZE) {
+            return null;
+        }
+        int length = input.getInt(input.position());
+        if (length < 1 || length > MAX_FRAME_SIZE) {
+            throw new IOException("Trama de replicación inválida (" + length + " bytes)");
+        }
+        if (input.remaining() < LENGTH_SIZE + length) {
+            return null;
+        }
+        ByteBuffer frame = input.duplicate();
+        frame.position(input.position() + LENGTH_SIZE).limit(input.position() + LENGTH_SIZE + length);
+        input.position(input.position() + LENGTH_SIZE + length);
+        return frame;
+    }
+
+    /**
+     * Prepara el búfer de lectura para recibir más datos, ampliándolo si la trama
+     * pendiente no cabe
+     * @param input Búfer en modo lectura con los datos aún no consumidos
+     * @return Búfer en modo escritura con esos datos al principio
+     */
+    static ByteBuffer compact(ByteBuffer input) {
+        if (input.remaining() >= LENGTH_SIZE) {
+            int needed = LENGTH_SIZE + input.getInt(input.position());
+            if (needed > input.capacity() && needed <= LENGTH_SIZE + MAX_FRAME_SIZE) {
+                ByteBuffer larger = ByteBuffer.allocate(Math.max(needed, input.capacity() * 2));
+                return larger.put(input);
+            }
+        }
+        return input.compact();
+    }
+
+    /**
+     * Trama en construcción: reserva el encabezado y lo completa al terminar
+     */
+    private static final class Frame {
+        final ByteArrayOutputStream bytes;
+        final DataOutputStream out;
+
+        Frame(byte type, int sizeHint) throws IOException {
+            bytes = new ByteArrayOutputStream(sizeHint);
+            out = new DataOutputStream(bytes);
+            out.writeInt(0);
+            out.writeByte(type);
+        }
+
+        ByteBuffer finish() throws IOException {
+            out.flush();
+            ByteBuffer frame = ByteBuffer.wrap(bytes.toByteArray());
+            if (frame.capacity() - LENGTH_SIZE > MAX_FRAME_SIZE) {
+                throw new IOException("La configuración excede el tamaño máximo de una trama de replicación");
+            }
+            frame.putInt(0, frame.capacity() - LENGTH_SIZE);
+            return frame.asReadOnlyBuffer();
+        }
+    }
+}
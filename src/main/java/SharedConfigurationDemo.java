@@ -0,0 +1,208 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Prueba de la configuración compartida entre procesos: este proceso publica versiones
+ * en una región temporal ({@link SharedConfigurationPublisher}) mientras varios procesos
+ * lectores ({@link SharedConfigurationRegion}) las leen a la vez.
+ *
+ * Cada versión contiene un contador y un texto que depende de él. Los lectores comprueban
+ * que el texto leído directamente esté bien formado (ninguna lectura a medio escribir) y
+ * que la copia completa sea de una sola versión (contador y texto coinciden), y miden la
+ * latencia desde la publicación hasta que ven la versión nueva.
+ * Se ejecuta con {@code java Main --shared-demo [lectores] [cambios]}.
+ */
+public class SharedConfigurationDemo {
+    static final String COUNTER_KEY = "sharedDemoCounter";
+    static final String TEXT_KEY = "sharedDemoText";
+    static final int DEFAULT_READERS = 3;
+    static final int DEFAULT_CHANGES = 2000;
+
+    private static final String READY = "LISTO";
+    private static final long INTERVAL_NANOS = TimeUnit.MICROSECONDS.toNanos(500);
+    private static final long TIMEOUT_SECONDS = 60;
+
+    private final ConfigurationManager configManager;
+
+    public SharedConfigurationDemo(ConfigurationManager configManager) {
+        this.configManager = configManager;
+    }
+
+    /**
+     * Inicia los lectores, publica las versiones y espera sus resultados
+     * @param readers Número de procesos lectores
+     * @param changes Número de versiones a publicar
+     * @return true si todos los lectores vieron la última versión sin inconsistencias
+     * @throws IOException Si no se puede crear la región o iniciar los lectores
+     * @throws InterruptedException Si se interrumpe la espera de los lectores
+     */
+    public boolean run(int readers, int changes) throws IOException, InterruptedException {
+        Path file = Files.createTempFile("config-shared", ".region");
+        List<Process> processes = new ArrayList<>();
+        try (SharedConfigurationPublisher publisher = SharedConfigurationPublisher.create(file,
+                SharedConfigurationRegion.DEFAULT_CAPACITY)) {
+            ConfigurationSnapshot snapshot = next(configManager.getSnapshot(), 0);
+            publisher.publish(snapshot);
+
+            for (int i = 0; i < readers; i++) {
+                processes.add(startReader(file, changes));
+            }
+            System.out.printf("Publicando %d versiones para %d lectores en %s...%n", changes, readers, file);
+            long start = System.nanoTime();
+            for (int i = 1; i <= changes; i++) {
+                snapshot = next(snapshot, i);
+                publisher.publish(snapshot);
+                LockSupport.parkNanos(INTERVAL_NANOS);
+            }
+            System.out.printf("Escritor: %d versiones publicadas en %.1f ms%n", changes,
+                (System.nanoTime() - start) / 1_000_000.0);
+
+            boolean passed = true;
+            for (Process process : processes) {
+                if (!process.waitFor(TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                    process.destroyForcibly();
+                    System.err.println("Un lector no terminó a tiempo");
+                    passed = false;
+                } else if (process.exitValue() != 0) {
+                    passed = false;
+                }
+            }
+            System.out.println(passed ? "Resultado: todos los lectores vieron versiones consistentes"
+                : "Resultado: FALLO");
+            return passed;
+        } finally {
+            for (Process process : processes) {
+                process.destroyForcibly();
+            }
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static ConfigurationSnapshot next(ConfigurationSnapshot snapshot, long counter) {
+        return snapshot.with(COUNTER_KEY, counter).with(TEXT_KEY, textFor(counter));
+    }
+
+    /**
+     * Texto de una versión; su longitud cambia con el contador para desplazar las
+     * posiciones de las entradas en la región
+     */
+    static String textFor(long counter) {
+        StringBuilder text = new StringBuilder("v").append(counter).append(':');
+        char fill = (char) ('a' + counter % 26);
+        for (long i = counter % 50; i >= 0; i--) {
+            text.append(fill);
+        }
+        return text.toString();
+    }
+
+    /**
+     * Inicia un proceso lector con la misma JVM y classpath, y espera a que tenga la
+     * región mapeada; después su salida se reenvía a la de este proceso
+     */
+    private static Process startReader(Path file, int changes) throws IOException {
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        Process process = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), "Main",
+            "--shared-reader", file.toString(), String.valueOf(changes))
+            .redirectErrorStream(true)
+            .start();
+        BufferedReader output = new BufferedReader(new InputStreamReader(process.getInputStream(),
+            StandardCharsets.UTF_8));
+        String line;
+        while ((line = output.readLine()) != null && !READY.equals(line)) {
+            System.out.println(line);
+        }
+        Thread forwarder = new Thread(() -> {
+            try {
+                String next;
+                while ((next = output.readLine()) != null) {
+                    System.out.println(next);
+                }
+            } catch (IOException e) {
+                // El lector terminó
+            }
+        }, "shared-reader-output");
+        forwarder.setDaemon(true);
+        forwarder.start();
+        return process;
+    }
+
+    /**
+     * Proceso lector: sigue las versiones hasta ver la última y comprueba su consistencia
+     * @param file Archivo de la región
+     * @param changes Contador de la última versión que publicará el escritor
+     * @return Código de salida: 0 si todas las lecturas fueron consistentes
+     * @throws IOException Si no se puede abrir la región
+     * @throws InterruptedException Si se interrumpe la espera
+     */
+    static int runReader(Path file, int changes) throws IOException, InterruptedException {
+        SharedConfigurationRegion region = SharedConfigurationRegion.open(file);
+        System.out.println(READY);
+        System.out.flush();
+
+        LatencyHistogram latency = new LatencyHistogram();
+        long sequence = region.getSequence();
+        long counter = -1;
+        int seen = 0;
+        int inconsistent = 0;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+        while (counter < changes && System.nanoTime() - deadline < 0) {
+            long next = region.awaitUpdate(sequence, 100, TimeUnit.MILLISECONDS);
+            if (next == sequence) {
+                continue;
+            }
+            latency.record(TimeUnit.MICROSECONDS.toNanos(SharedConfigurationRegion.currentMicros()
+                - region.getPublishedMicros()));
+            sequence = next;
+            seen++;
+
+            // Lectura directa: el texto debe ser el de alguna versión completa
+            Object text = region.get(TEXT_KEY);
+            if (!isWellFormed(text)) {
+                inconsistent++;
+            }
+            // Copia completa: contador y texto deben ser de la misma versión
+            Map<String, Object> values = region.read();
+            Object value = values.get(COUNTER_KEY);
+            if (!(value instanceof Long) || !textFor((Long) value).equals(values.get(TEXT_KEY))) {
+                inconsistent++;
+            } else {
+                counter = (Long) value;
+            }
+        }
+
+        System.out.printf("Lector %d: %d de %d versiones vistas (última %d), latencia p50=%d µs, p99=%d µs, "
+                + "max=%d µs, %s lecturas repetidas, %d inconsistencias%n",
+            ProcessHandle.current().pid(), seen, changes, counter,
+            micros(latency.getValueAtPercentile(50)), micros(latency.getValueAtPercentile(99)),
+            micros(latency.getMaxValue()), Metrics.get().getValue(SharedConfigurationRegion.METRICS_GROUP,
+                "readRetries"), inconsistent);
+        return inconsistent == 0 && counter == changes ? 0 : 1;
+    }
+
+    private static boolean isWellFormed(Object value) {
+        if (!(value instanceof String)) {
+            return false;
+        }
+        String text = (String) value;
+        int separator = text.indexOf(':');
+        try {
+            return separator > 1 && textFor(Long.parseLong(text.substring(1, separator))).equals(text);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static long micros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+}
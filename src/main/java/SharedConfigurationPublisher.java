@@ -0,0 +1,202 @@
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Escritor de la región de configuración compartida entre procesos
+ * ({@link SharedConfigurationRegion}).
+ *
+ * Solo un proceso puede publicar en un archivo a la vez: el escritor toma un lock
+ * exclusivo sobre él mientras está abierto. Cada publicación se codifica fuera de la
+ * región y después se copia dentro del seqlock, de modo que los lectores solo reintentan
+ * durante la copia. Registrado como listener de un {@link ConfigurationManager},
+ * publica cada versión nueva de la configuración.
+ *
+ * Un archivo existente conserva su capacidad para no invalidar los mapeos de los lectores
+ * que ya lo tienen abierto.
+ */
+public final class SharedConfigurationPublisher implements ConfigurationChangeListener, AutoCloseable {
+    private static final String METRICS_GROUP = SharedConfigurationRegion.METRICS_GROUP;
+    private static final Metrics.Counter PUBLISHED = Metrics.get().counter(METRICS_GROUP, "published");
+    private static final Metrics.Counter BYTES_PUBLISHED = Metrics.get().counter(METRICS_GROUP, "bytesPublished");
+    private static final Metrics.Counter ERRORS = Metrics.get().counter(METRICS_GROUP, "errors");
+
+    private static final Comparator<Map.Entry<String, Object>> BY_HASH =
+        Comparator.comparingInt(entry -> entry.getKey().hashCode());
+
+    private final Path file;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(4096);
+    private long sequence;
+    private long publishedVersion = -1;
+
+    private SharedConfigurationPublisher(Path file, FileChannel channel, MappedByteBuffer buffer, int capacity) {
+        this.file = file;
+        this.channel = channel;
+        this.buffer = buffer;
+        this.capacity = capacity;
+        this.sequence = (long) SharedConfigurationRegion.LONGS.getAcquire(buffer,
+            SharedConfigurationRegion.SEQUENCE_OFFSET);
+    }
+
+    /**
+     * Abre (o crea) la región compartida para publicar en ella
+     * @param file Archivo de la región
+     * @param capacity Bytes disponibles para el contenido si el archivo es nuevo
+     * @return Escritor con el lock del archivo
+     * @throws IOException Si no se puede abrir o si otro escritor ya publica en él
+     */
+    public static SharedConfigurationPublisher create(Path file, int capacity) throws IOException {
+        if (capacity < 4 || capacity > Integer.MAX_VALUE - SharedConfigurationRegion.HEADER_SIZE) {
+            throw new IllegalArgumentException("Capacidad inválida para la región compartida: " + capacity);
+        }
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+        try {
+            FileLock lock;
+            try {
+                lock = channel.tryLock();
+            } catch (OverlappingFileLockException e) {
+                lock = null;
+            }
+            if (lock == null) {
+                throw new IOException("Otro escritor ya publica en " + file);
+            }
+            int existing = existingCapacity(channel);
+            int size = SharedConfigurationRegion.HEADER_SIZE + (existing > 0 ? existing : capacity);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            if (existing <= 0) {
+                buffer.putInt(SharedConfigurationRegion.CAPACITY_OFFSET, capacity);
+                buffer.putInt(SharedConfigurationRegion.LENGTH_OFFSET, 0);
+                // La magia se escribe al final: hasta entonces los lectores rechazan el archivo
+                buffer.putInt(4, SharedConfigurationRegion.FORMAT_VERSION);
+                buffer.putInt(0, SharedConfigurationRegion.MAGIC);
+            }
+            return new SharedConfigurationPublisher(file, channel, buffer, size - SharedConfigurationRegion.HEADER_SIZE);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Capacidad de una región ya inicializada en el archivo, o 0 si hay que inicializarlo
+     */
+    private static int existingCapacity(FileChannel channel) throws IOException {
+        if (channel.size() < SharedConfigurationRegion.HEADER_SIZE) {
+            return 0;
+        }
+        ByteBuffer header = ByteBuffer.allocate(SharedConfigurationRegion.HEADER_SIZE);
+        while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+            // Se lee el encabezado completo
+        }
+        if (header.getInt(0) != SharedConfigurationRegion.MAGIC
+                || header.getInt(4) != SharedConfigurationRegion.FORMAT_VERSION) {
+            return 0;
+        }
+        int capacity = header.getInt(SharedConfigurationRegion.CAPACITY_OFFSET);
+        return capacity > 0 && capacity == channel.size() - SharedConfigurationRegion.HEADER_SIZE ? capacity : 0;
+    }
+
+    /**
+     * Publica una versión de la configuración. Las versiones anteriores a la última
+     * publicada se ignoran (pueden llegar desordenadas desde varios hilos).
+     * @param snapshot Instantánea a publicar
+     * @return true si se publicó
+     * @throws IOException Si la configuración codificada no cabe en la región
+     */
+    public synchronized boolean publish(ConfigurationSnapshot snapshot) throws IOException {
+        if (snapshot.getVersion() <= publishedVersion) {
+            return false;
+        }
+        byte[] content = encode(snapshot.asMap());
+        if (content.length > capacity) {
+            throw new IOException("La configuración (" + content.length + " bytes) no cabe en la región compartida ("
+                + capacity + " bytes) de " + file);
+        }
+
+        // Secuencia impar: los lectores que empiecen ahora esperan y los que estén leyendo reintentan
+        long writing = (sequence & 1) == 0 ? sequence + 1 : sequence;
+        SharedConfigurationRegion.LONGS.setOpaque(buffer, SharedConfigurationRegion.SEQUENCE_OFFSET, writing);
+        VarHandle.storeStoreFence();
+        ByteBuffer target = buffer.duplicate();
+        target.position(SharedConfigurationRegion.HEADER_SIZE);
+        target.put(content);
+        buffer.putLong(SharedConfigurationRegion.VERSION_OFFSET, snapshot.getVersion());
+        buffer.putLong(SharedConfigurationRegion.PUBLISHED_OFFSET, SharedConfigurationRegion.currentMicros());
+        buffer.putInt(SharedConfigurationRegion.LENGTH_OFFSET, content.length);
+        SharedConfigurationRegion.LONGS.setRelease(buffer, SharedConfigurationRegion.SEQUENCE_OFFSET, writing + 1);
+        sequence = writing + 1;
+
+        publishedVersion = snapshot.getVersion();
+        PUBLISHED.increment();
+        BYTES_PUBLISHED.add(content.length);
+        return true;
+    }
+
+    /**
+     * Codifica el índice ordenado por hash y los pares clave-valor
+     */
+    private byte[] encode(Map<String, Object> values) throws IOException {
+        List<Map.Entry<String, Object>> entries = new ArrayList<>(values.entrySet());
+        entries.sort(BY_HASH);
+        int count = entries.size();
+        bytes.reset();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(count);
+        out.write(new byte[count * SharedConfigurationRegion.INDEX_ENTRY_SIZE]);
+        int[] offsets = new int[count];
+        for (int i = 0; i < count; i++) {
+            offsets[i] = out.size();
+            ConfigurationBinarySnapshot.writeString(out, entries.get(i).getKey());
+            ConfigurationBinarySnapshot.writeValue(out, entries.get(i).getValue());
+        }
+        out.flush();
+        ByteBuffer content = ByteBuffer.wrap(bytes.toByteArray());
+        content.position(4);
+        for (int i = 0; i < count; i++) {
+            content.putInt(entries.get(i).getKey().hashCode()).putInt(offsets[i]);
+        }
+        return content.array();
+    }
+
+    @Override
+    public void configurationChanged(ConfigurationChangeEvent event) {
+        try {
+            publish(event.getCurrent());
+        } catch (IOException | RuntimeException e) {
+            ERRORS.increment();
+            System.err.println("Error al publicar la configuración compartida: " + e.getMessage());
+        }
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Libera el lock del archivo; los lectores conservan la última versión publicada
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
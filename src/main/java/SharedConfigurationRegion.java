@@ -0,0 +1,395 @@
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Vista de solo lectura de la configuración que otro proceso publica en un archivo
+ * mapeado en memoria ({@link SharedConfigurationPublisher}).
+ *
+ * Varias JVM de la misma máquina pueden leer la misma configuración sin interpretar
+ * config.json, sin vigilar archivos y sin copiarla a su heap: {@link #get(String)} busca
+ * la clave directamente en la memoria compartida y solo decodifica su valor.
+ *
+ * Formato (big-endian):
+ * <pre>
+ *   0   int     magia "CFGS"
+ *   4   int     versión del formato
+ *   8   int     capacidad del contenido en bytes
+ *   16  long    secuencia (impar mientras el escritor modifica la región)
+ *   24  long    versión de la configuración publicada
+ *   32  long    instante de publicación en microsegundos desde la época
+ *   40  int     longitud del contenido
+ *   64  ...     contenido: número de entradas, índice de pares (hash de la clave,
+ *               posición) ordenado por hash, y pares clave-valor etiquetados como en
+ *               {@link ConfigurationBinarySnapshot}
+ * </pre>
+ *
+ * La consistencia se obtiene con un seqlock: el escritor deja la secuencia impar antes
+ * de modificar la región y la vuelve a dejar par al terminar. Un lector anota la
+ * secuencia, lee sin locks y repite la lectura si mientras tanto cambió, de modo que
+ * nunca devuelve un valor a medio escribir. Si el escritor termina abruptamente con la
+ * secuencia impar, las lecturas esperan hasta que otro escritor vuelva a publicar.
+ */
+public final class SharedConfigurationRegion {
+    static final int MAGIC = 0x43464753;
+    static final int FORMAT_VERSION = 1;
+    static final int CAPACITY_OFFSET = 8;
+    static final int SEQUENCE_OFFSET = 16;
+    static final int VERSION_OFFSET = 24;
+    static final int PUBLISHED_OFFSET = 32;
+    static final int LENGTH_OFFSET = 40;
+    static final int HEADER_SIZE = 64;
+    static final int INDEX_ENTRY_SIZE = 8;
+    static final int DEFAULT_CAPACITY = 1 << 20;
+
+    // Accesos con semántica de memoria (acquire/release) a los long del encabezado
+    static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    // Vueltas de espera activa antes de dormir mientras el escritor modifica la región
+    private static final int SPIN_LIMIT = 100;
+    private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(20);
+
+    static final String METRICS_GROUP = "SharedConfiguration";
+    private static final Metrics.Counter READ_RETRIES = Metrics.get().counter(METRICS_GROUP, "readRetries");
+
+    private final ByteBuffer buffer;
+    private final int capacity;
+
+    private SharedConfigurationRegion(ByteBuffer buffer, int capacity) {
+        this.buffer = buffer;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Mapea la región publicada en un archivo
+     * @param file Archivo de la región, creado por {@link SharedConfigurationPublisher}
+     * @return Región de solo lectura
+     * @throws IOException Si el archivo no existe o no es una región compartida válida
+     */
+    public static SharedConfigurationRegion open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+                throw new IOException("No es una región de configuración compartida: " + file);
+            }
+            // El mapeo sigue siendo válido después de cerrar el canal
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION) {
+                throw new IOException("No es una región de configuración compartida: " + file);
+            }
+            int capacity = buffer.getInt(CAPACITY_OFFSET);
+            if (capacity != size - HEADER_SIZE) {
+                throw new IOException("Tamaño inválido de la región compartida: " + file);
+            }
+            return new SharedConfigurationRegion(buffer, capacity);
+        }
+    }
+
+    /**
+     * Obtiene un valor leyéndolo directamente de la región
+     * @param key Clave de configuración
+     * @return Valor con los tipos de {@link ConfigurationParser}, o null si no existe o
+     *         aún no se publicó nada
+     */
+    public Object get(String key) {
+        int hash = key.hashCode();
+        while (true) {
+            long sequence = beginRead();
+            Object value;
+            try {
+                value = lookup(key, hash);
+            } catch (RuntimeException e) {
+                // Con una lectura a medio escribir las posiciones pueden ser basura
+                if (!changedSince(sequence)) {
+                    throw new IllegalStateException("Región de configuración compartida dañada", e);
+                }
+                READ_RETRIES.increment();
+                continue;
+            }
+            if (!changedSince(sequence)) {
+                return value;
+            }
+            READ_RETRIES.increment();
+        }
+    }
+
+    public int getInt(ConfigKey<Integer> key) {
+        Object value = get(key.getName());
+        return value instanceof Number ? ((Number) value).intValue() : key.getDefaultValue();
+    }
+
+    public boolean getBoolean(ConfigKey<Boolean> key) {
+        Object value = get(key.getName());
+        return value instanceof Boolean ? (Boolean) value : key.getDefaultValue();
+    }
+
+    public String getString(ConfigKey<String> key) {
+        Object value = get(key.getName());
+        return value instanceof String ? (String) value : key.getDefaultValue();
+    }
+
+    /**
+     * Copia toda la configuración publicada, de una sola versión
+     * @return Configuración con los tipos de {@link ConfigurationParser} (vacía si aún no
+     *         se publicó nada)
+     */
+    public Map<String, Object> read() {
+        while (true) {
+            long sequence = beginRead();
+            byte[] content;
+            try {
+                int length = checkedLength();
+                content = new byte[length];
+                ByteBuffer source = buffer.duplicate();
+                source.position(HEADER_SIZE);
+                source.get(content);
+            } catch (RuntimeException e) {
+                if (!changedSince(sequence)) {
+                    throw new IllegalStateException("Región de configuración compartida dañada", e);
+                }
+                READ_RETRIES.increment();
+                continue;
+            }
+            if (changedSince(sequence)) {
+                READ_RETRIES.increment();
+                continue;
+            }
+            // La copia ya es consistente: se decodifica fuera del seqlock
+            return decode(content);
+        }
+    }
+
+    /**
+     * @return Secuencia actual; cambia (de dos en dos) con cada publicación
+     */
+    public long getSequence() {
+        return (long) LONGS.getAcquire(buffer, SEQUENCE_OFFSET);
+    }
+
+    /**
+     * @return Versión de la configuración publicada ({@link ConfigurationSnapshot#getVersion()})
+     */
+    public long getVersion() {
+        return readHeaderLong(VERSION_OFFSET);
+    }
+
+    /**
+     * @return Instante de la última publicación en microsegundos desde la época, o 0
+     */
+    public long getPublishedMicros() {
+        return readHeaderLong(PUBLISHED_OFFSET);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Espera a que se publique una versión posterior a la secuencia indicada
+     * @param sequence Última secuencia conocida ({@link #getSequence()})
+     * @param timeout Tiempo máximo de espera
+     * @param unit Unidad del tiempo de espera
+     * @return Nueva secuencia, o la indicada si se agotó el tiempo
+     * @throws InterruptedException Si se interrumpe la espera
+     */
+    public long awaitUpdate(long sequence, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        int spins = 0;
+        while (true) {
+            long current = getSequence();
+            if (current != sequence && (current & 1) == 0) {
+                return current;
+            }
+            if (System.nanoTime() - deadline >= 0) {
+                return sequence;
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            if (spins < SPIN_LIMIT) {
+                spins++;
+                Thread.onSpinWait();
+            } else {
+                LockSupport.parkNanos(PARK_NANOS);
+            }
+        }
+    }
+
+    /**
+     * Instante actual en microsegundos desde la época, como se guarda en el encabezado
+     */
+    static long currentMicros() {
+        Instant now = Instant.now();
+        return now.getEpochSecond() * 1_000_000L + now.getNano() / 1_000;
+    }
+
+    private long readHeaderLong(int offset) {
+        while (true) {
+            long sequence = beginRead();
+            long value = buffer.getLong(offset);
+            if (!changedSince(sequence)) {
+                return value;
+            }
+            READ_RETRIES.increment();
+        }
+    }
+
+    /**
+     * Espera a que no haya una escritura en curso y devuelve la secuencia (par)
+     */
+    private long beginRead() {
+        int spins = 0;
+        while (true) {
+            long sequence = getSequence();
+            if ((sequence & 1) == 0) {
+                return sequence;
+            }
+            if (spins < SPIN_LIMIT) {
+                spins++;
+                Thread.onSpinWait();
+            } else {
+                LockSupport.parkNanos(PARK_NANOS);
+            }
+        }
+    }
+
+    /**
+     * Indica si el escritor modificó la región desde que se anotó la secuencia.
+     * La barrera impide que las lecturas anteriores se reordenen después de esta comprobación.
+     */
+    private boolean changedSince(long sequence) {
+        VarHandle.loadLoadFence();
+        return (long) LONGS.getOpaque(buffer, SEQUENCE_OFFSET) != sequence;
+    }
+
+    private int checkedLength() {
+        int length = buffer.getInt(LENGTH_OFFSET);
+        if (length < 0 || length > capacity) {
+            throw new IllegalStateException("Longitud inválida en la región compartida: " + length);
+        }
+        return length;
+    }
+
+    /**
+     * Busca la clave en el índice (búsqueda binaria por hash) y decodifica solo su valor
+     */
+    private Object lookup(String key, int hash) {
+        int length = checkedLength();
+        if (length == 0) {
+            return null;
+        }
+        int count = buffer.getInt(HEADER_SIZE);
+        if (count < 0 || count > (length - 4) / INDEX_ENTRY_SIZE) {
+            throw new IllegalStateException("Número de entradas inválido en la región compartida: " + count);
+        }
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (buffer.getInt(indexAt(middle)) < hash) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        int end = HEADER_SIZE + length;
+        for (int i = low; i < count && buffer.getInt(indexAt(i)) == hash; i++) {
+            int entry = HEADER_SIZE + buffer.getInt(indexAt(i) + 4);
+            int keyLength = buffer.getInt(entry);
+            if (keyLength < 0 || keyLength > end - entry - 4) {
+                throw new IllegalStateException("Longitud de clave inválida en la región compartida");
+            }
+            if (keyMatches(entry + 4, keyLength, key)) {
+                return valueAt(entry + 4 + keyLength, end);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Decodifica el valor etiquetado de una posición; los escalares se leen sin copiar el búfer
+     */
+    private Object valueAt(int offset, int end) {
+        switch (buffer.get(offset)) {
+            case ConfigurationBinarySnapshot.NULL:
+                return null;
+            case ConfigurationBinarySnapshot.TRUE:
+                return Boolean.TRUE;
+            case ConfigurationBinarySnapshot.FALSE:
+                return Boolean.FALSE;
+            case ConfigurationBinarySnapshot.LONG:
+                return buffer.getLong(offset + 1);
+            case ConfigurationBinarySnapshot.DOUBLE:
+                return buffer.getDouble(offset + 1);
+            case ConfigurationBinarySnapshot.STRING:
+                int length = buffer.getInt(offset + 1);
+                if (length < 0 || length > end - offset - 5) {
+                    throw new IllegalStateException("Longitud de cadena inválida en la región compartida");
+                }
+                byte[] encoded = new byte[length];
+                ByteBuffer source = buffer.duplicate();
+                source.position(offset + 5);
+                source.get(encoded);
+                return new String(encoded, StandardCharsets.UTF_8);
+            default:
+                ByteBuffer value = buffer.duplicate();
+                value.limit(end).position(offset);
+                return new ConfigurationBinarySnapshot.Reader(value).readValue();
+        }
+    }
+
+    private static int indexAt(int entry) {
+        return HEADER_SIZE + 4 + entry * INDEX_ENTRY_SIZE;
+    }
+
+    /**
+     * Compara la clave guardada con la buscada sin crear cadenas, salvo que la guardada
+     * tenga caracteres no ASCII
+     */
+    private boolean keyMatches(int offset, int length, String key) {
+        if (length < key.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            byte b = buffer.get(offset + i);
+            if (b < 0) {
+                byte[] encoded = new byte[length];
+                ByteBuffer source = buffer.duplicate();
+                source.position(offset);
+                source.get(encoded);
+                return key.equals(new String(encoded, StandardCharsets.UTF_8));
+            }
+            if (i >= key.length() || b != key.charAt(i)) {
+                return false;
+            }
+        }
+        return length == key.length();
+    }
+
+    private static Map<String, Object> decode(byte[] content) {
+        if (content.length == 0) {
+            return new HashMap<>();
+        }
+        ByteBuffer source = ByteBuffer.wrap(content);
+        int count = source.getInt();
+        source.position(4 + count * INDEX_ENTRY_SIZE);
+        ConfigurationBinarySnapshot.Reader reader = new ConfigurationBinarySnapshot.Reader(source);
+        Map<String, Object> configuration = new HashMap<>(count * 4 / 3 + 1);
+        for (int i = 0; i < count; i++) {
+            configuration.put(ConfigurationParser.internKey(reader.readString()), reader.readValue());
+        }
+        return configuration;
+    }
+}
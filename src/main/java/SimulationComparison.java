@@ -0,0 +1,78 @@
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compara el rendimiento y el uso de memoria del simulador con hilos de plataforma
+ * y con hilos virtuales para distintos números de conexiones.
+ * Se ejecuta con {@code java Main --compare [conexiones...]} (por defecto 10000 y 100000).
+ */
+public class SimulationComparison {
+    private static final int[] DEFAULT_SIZES = {10_000, 100_000};
+
+    private final ConfigurationManager configManager;
+
+    public SimulationComparison(ConfigurationManager configManager) {
+        this.configManager = configManager;
+    }
+
+    /**
+     * Ejecuta la comparación e imprime una fila por modo y tamaño
+     * @param sizes Números de conexiones a simular; si está vacío se usan 10k y 100k
+     * @throws InterruptedException Si se interrumpe la espera de alguna simulación
+     */
+    public void run(int... sizes) throws InterruptedException {
+        if (sizes.length == 0) {
+            sizes = DEFAULT_SIZES;
+        }
+        System.out.printf("%-9s %10s %10s %14s %12s %10s%n",
+            "Modo", "Conexiones", "Tiempo (s)", "Conexiones/s", "Heap pico", "Hilos pico");
+        for (int size : sizes) {
+            measure(SimulationEngine.ExecutionMode.PLATFORM, size);
+            if (SimulationEngine.isVirtualThreadSupported()) {
+                measure(SimulationEngine.ExecutionMode.VIRTUAL, size);
+            } else {
+                System.out.printf("%-9s %10d %s%n", "VIRTUAL", size, "  (requiere Java 21)");
+            }
+        }
+    }
+
+    private void measure(SimulationEngine.ExecutionMode mode, int connections) throws InterruptedException {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        System.gc();
+        long baseline = memory.getHeapMemoryUsage().getUsed();
+        threads.resetPeakThreadCount();
+
+        // Muestrear el heap durante la ejecución para obtener el pico
+        AtomicLong peakHeap = new AtomicLong(baseline);
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread sampler = new Thread(() -> {
+            while (running.get()) {
+                peakHeap.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }, "simulation-memory-sampler");
+        sampler.setDaemon(true);
+        sampler.start();
+
+        SimulationResult result;
+        try {
+            result = SimulationEngine.fromConfiguration(configManager, connections, mode)
+                .run((connectionId, success, completed) -> { });
+        } finally {
+            running.set(false);
+            sampler.interrupt();
+        }
+
+        System.out.printf("%-9s %10d %10.2f %14.1f %9d MB %10d%n", mode, connections,
+            result.getElapsedNanos() / 1_000_000_000.0, result.getThroughput(),
+            Math.max(0, peakHeap.get() - baseline) / (1024 * 1024), threads.getPeakThreadCount());
+    }
+}
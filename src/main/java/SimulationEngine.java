@@ -0,0 +1,497 @@
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Motor de simulación de conexiones sin dependencias de interfaz gráfica.
+ *
+ * Ejecuta las conexiones simuladas de forma concurrente en un pool acotado de hilos y
+ * devuelve un {@link SimulationResult} con los conteos de éxitos y fallos y el rendimiento.
+ * Las conexiones se entregan al pool a medida que hay sitio (como mucho
+ * {@link #QUEUED_PER_WORKER} en espera por trabajador), así que la memoria no crece con el
+ * número total de conexiones.
+ * Con un {@link ConnectionPool} ({@link #withPool}), cada conexión simulada debe obtener
+ * antes un permiso del pool: si hay más clientes que maxConnections se forma una cola,
+ * y las que no obtienen conexión dentro de connectionTimeout se cuentan como rechazadas.
+ *
+ * La duración, el resultado y las llegadas de las conexiones los decide un
+ * {@link WorkloadProfile}. Cada conexión usa su propio {@link SplittableRandom}, derivado
+ * de la semilla del modelo en el orden de creación, así que los hilos no comparten estado
+ * aleatorio y una ejecución con la misma semilla se puede repetir.
+ *
+ * Si el modelo programa las llegadas (arrivalRate mayor que 0) la simulación es de lazo
+ * abierto: cada intento se lanza en su instante programado, sin esperar a que terminen
+ * los anteriores. La latencia se mide entonces desde el instante programado y no desde
+ * que un hilo la atiende, de modo que la espera en cola por una ralentización queda
+ * registrada (corrección de la omisión coordinada); el tiempo de servicio se registra
+ * aparte. El resultado informa la tasa objetivo y la lograda. La ventana {@link ConnectionSimulator}
+ * es solo una vista de este motor; también puede ejecutarse desde consola con
+ * {@code java Main --simulate [conexiones]}.
+ *
+ * En modo {@link ExecutionMode#VIRTUAL} cada conexión se ejecuta en su propio hilo
+ * virtual (requiere Java 21 en tiempo de ejecución). El executor pertenece a una sola
+ * llamada a {@link #run}: ninguna conexión sobrevive a la ejecución que la creó, y
+ * {@link #cancel()} interrumpe todas las que siguen en curso.
+ *
+ * Todas las ejecuciones suman sus conexiones al grupo de métricas "ConnectionSimulator"
+ * (en curso, completadas, fallidas, rechazadas y latencia; ver {@link Metrics}).
+ */
+public class SimulationEngine {
+    static final int MAX_PARALLELISM = 512;
+    // Conexiones en cola por trabajador: las justas para que ninguno espere al lanzador
+    static final int QUEUED_PER_WORKER = 2;
+    // Por debajo de este margen parkNanos no es preciso: se termina la espera activamente
+    private static final long SPIN_THRESHOLD_NANOS = 50_000;
+
+    private static final String METRICS_GROUP = "ConnectionSimulator";
+    private static final LongAdder IN_FLIGHT = new LongAdder();
+    private static final Metrics.Counter STARTED = Metrics.get().counter(METRICS_GROUP, "started");
+    private static final Metrics.Counter COMPLETED = Metrics.get().counter(METRICS_GROUP, "completed");
+    private static final Metrics.Counter FAILED = Metrics.get().counter(METRICS_GROUP, "failed");
+    private static final Metrics.Counter REJECTED = Metrics.get().counter(METRICS_GROUP, "rejected");
+    private static final Metrics.Timer LATENCY = Metrics.get().timer(METRICS_GROUP, "latency");
+
+    static {
+        Metrics.get().gauge(METRICS_GROUP, "inFlight", IN_FLIGHT::sum);
+    }
+
+    /**
+     * Forma de ejecutar las conexiones simuladas
+     */
+    public enum ExecutionMode {
+        /** Pool acotado de hilos de plataforma */
+        PLATFORM,
+        /** Un hilo virtual por conexión (Java 21+) */
+        VIRTUAL
+    }
+
+    private static final Method NEW_VIRTUAL_EXECUTOR = findVirtualExecutorFactory();
+
+    private final int connections;
+    private final int parallelism;
+    private final ExecutionMode mode;
+    private final ConnectionPool pool;
+    private final WorkloadProfile workload;
+    private volatile boolean cancelled;
+    private volatile ExecutorService executor;
+    private volatile Recorders recorders = new Recorders(0);
+
+    /**
+     * @param connections Número total de conexiones a simular
+     * @param parallelism Número de clientes simultáneos (solo en modo PLATFORM)
+     * @param mode Forma de ejecutar las conexiones
+     * @param pool Pool del que cada conexión obtiene un permiso, o null para no limitarlas
+     * @param workload Modelo de carga
+     */
+    public SimulationEngine(int connections, int parallelism, ExecutionMode mode, ConnectionPool pool,
+                            WorkloadProfile workload) {
+        if (connections < 0 || parallelism < 1) {
+            throw new IllegalArgumentException("Parámetros de simulación inválidos");
+        }
+        if (mode == ExecutionMode.VIRTUAL && !isVirtualThreadSupported()) {
+            throw new IllegalStateException("Los hilos virtuales requieren Java 21 o superior");
+        }
+        this.connections = connections;
+        this.parallelism = parallelism;
+        this.mode = mode;
+        this.pool = pool;
+        this.workload = workload;
+    }
+
+    /**
+     * Crea un motor que simula las conexiones indicadas con tantas simultáneas como
+     * maxConnections (acotado a {@link #MAX_PARALLELISM})
+     * @param configManager Configuración global
+     * @param connections Número total de conexiones a simular
+     * @param mode Forma de ejecutar las conexiones
+     * @return Motor configurado
+     */
+    public static SimulationEngine fromConfiguration(ConfigurationManager configManager, int connections,
+                                                     ExecutionMode mode) {
+        int maxConnections = Math.max(1, configManager.getMaxConnections());
+        return new SimulationEngine(connections, Math.min(maxConnections, MAX_PARALLELISM), mode, null,
+            WorkloadProfile.standard(System.nanoTime()));
+    }
+
+    /**
+     * Crea un motor cuyas conexiones pasan por un pool. Por defecto hay el doble de
+     * clientes que conexiones en el pool (acotado a {@link #MAX_PARALLELISM}), de modo
+     * que se observa la cola de espera; en modo VIRTUAL cada conexión es un cliente.
+     * @param pool Pool de conexiones (normalmente {@link ConnectionPool#fromConfiguration})
+     * @param workload Modelo de carga (normalmente {@link WorkloadProfile#fromConfiguration})
+     * @param connections Número total de conexiones a simular
+     * @param clients Clientes simultáneos, o 0 para usar el valor por defecto
+     * @param mode Forma de ejecutar las conexiones
+     * @return Motor configurado
+     */
+    public static SimulationEngine withPool(ConnectionPool pool, WorkloadProfile workload, int connections,
+                                            int clients, ExecutionMode mode) {
+        int parallelism = clients > 0 ? clients : Math.min(pool.getMaxSize() * 2, MAX_PARALLELISM);
+        return new SimulationEngine(connections, parallelism, mode, pool, workload);
+    }
+
+    /**
+     * Indica si la JVM actual permite crear hilos virtuales
+     * @return true en Java 21 o superior
+     */
+    public static boolean isVirtualThreadSupported() {
+        return NEW_VIRTUAL_EXECUTOR != null;
+    }
+
+    // El proyecto compila con Java 11, por lo que la fábrica se obtiene por reflexión
+    private static Method findVirtualExecutorFactory() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private ExecutorService newExecutor() {
+        if (mode == ExecutionMode.VIRTUAL) {
+            try {
+                return (ExecutorService) NEW_VIRTUAL_EXECUTOR.invoke(null);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("No se pudo crear el executor de hilos virtuales", e);
+            }
+        }
+        return Executors.newFixedThreadPool(workerCount(), workerThreadFactory(workerCount()));
+    }
+
+    private int workerCount() {
+        return Math.min(parallelism, Math.max(1, connections));
+    }
+
+    /**
+     * Ejecuta la simulación y espera a que termine (o se cancele)
+     * @param listener Receptor de eventos por conexión
+     * @return Resumen de la ejecución
+     * @throws InterruptedException Si el hilo que espera es interrumpido
+     */
+    public SimulationResult run(SimulationListener listener) throws InterruptedException {
+        AtomicInteger successful = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger started = new AtomicInteger();
+        AtomicLong lastStart = new AtomicLong();
+        // Un par de histogramas por trabajador; en modo VIRTUAL, por hilo portador
+        Recorders histograms = new Recorders(mode == ExecutionMode.VIRTUAL
+            ? Runtime.getRuntime().availableProcessors() * 2 : workerCount());
+        recorders = histograms;
+        boolean openLoop = workload.hasScheduledArrivals();
+        ExecutorService pool = newExecutor();
+        executor = pool;
+        // En modo VIRTUAL cada conexión es su propio hilo y no hay cola que acotar
+        Semaphore queued = mode == ExecutionMode.PLATFORM ? new Semaphore(workerCount() * QUEUED_PER_WORKER) : null;
+        SplittableRandom root = new SplittableRandom(workload.getSeed());
+        long start = System.nanoTime();
+        long arrival = start;
+        try {
+            for (int i = 1; i <= connections && !cancelled; i++) {
+                final int connectionId = i;
+                if (openLoop) {
+                    // Instantes absolutos: un retraso del lanzador no desplaza las llegadas siguientes
+                    arrival += workload.nextArrivalGapNanos(root, arrival - start);
+                    if (!awaitArrival(arrival)) {
+                        break;
+                    }
+                }
+                if (queued != null && !awaitQueueSlot(queued)) {
+                    break;
+                }
+                final SplittableRandom random = root.split();
+                final long intendedStart = openLoop ? arrival : -1;
+                try {
+                    pool.execute(() -> {
+                        if (cancelled) {
+                            return;
+                        }
+                        if (queued != null) {
+                            queued.release(); // Un trabajador la atiende: deja sitio para la siguiente
+                        }
+                        long connectStart = System.nanoTime();
+                        started.incrementAndGet();
+                        lastStart.accumulateAndGet(connectStart, Math::max);
+                        long offset = (openLoop ? intendedStart : connectStart) - start;
+                        STARTED.increment();
+                        IN_FLIGHT.increment();
+                        Boolean success;
+                        try {
+                            success = this.pool != null ? simulatePooledConnection(random, offset, rejected)
+                                : simulateConnection(random, offset);
+                        } finally {
+                            IN_FLIGHT.decrement();
+                        }
+                        if (success == null) {
+                            return; // Interrumpida por cancelación
+                        }
+                        long end = System.nanoTime();
+                        long latency = end - (openLoop ? intendedStart : connectStart);
+                        histograms.record(latency, end - connectStart);
+                        LATENCY.record(latency);
+                        COMPLETED.increment();
+                        if (!success) {
+                            FAILED.increment();
+                        }
+                        (success ? successful : failed).incrementAndGet();
+                        listener.connectionCompleted(connectionId, success, completed.incrementAndGet());
+                    });
+                } catch (RejectedExecutionException e) {
+                    break; // El pool se cerró por una cancelación
+                }
+            }
+            pool.shutdown();
+            while (!pool.awaitTermination(1, TimeUnit.SECONDS)) {
+                // Seguir esperando; cancel() interrumpe a los trabajadores
+            }
+        } catch (InterruptedException e) {
+            cancel();
+            throw e;
+        }
+        long elapsed = System.nanoTime() - start;
+        double achievedRate = 0;
+        if (openLoop && started.get() > 0) {
+            // Al menos el tramo programado (que incluye el intervalo hasta cada llegada): con
+            // una sola conexión lanzada justo al inicio no se dividiría entre casi cero
+            long span = Math.max(Math.max(lastStart.get(), arrival) - start, 1);
+            achievedRate = started.get() / (span / 1_000_000_000.0);
+        }
+        SimulationResult result = new SimulationResult(connections, successful.get(), failed.get(),
+            rejected.get(), elapsed, cancelled, merge(histograms.latency), merge(histograms.service),
+            openLoop ? workload.getMeanArrivalRate() : 0, achievedRate);
+        listener.simulationFinished(result);
+        return result;
+    }
+
+    /**
+     * Espera hasta el instante programado de la siguiente llegada: se duerme con
+     * parkNanos hasta quedar a menos de {@link #SPIN_THRESHOLD_NANOS} y el resto se
+     * espera activamente, para no acumular el retraso de despertar en cada llegada
+     * @return false si la simulación se canceló mientras esperaba
+     */
+    private boolean awaitArrival(long arrivalNanos) {
+        long remaining;
+        while ((remaining = arrivalNanos - System.nanoTime()) > 0) {
+            if (cancelled) {
+                return false;
+            }
+            if (remaining > SPIN_THRESHOLD_NANOS) {
+                LockSupport.parkNanos(remaining - SPIN_THRESHOLD_NANOS);
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+        return !cancelled;
+    }
+
+    /**
+     * Espera a que haya sitio en la cola del pool de hilos
+     * @return false si la simulación se canceló mientras esperaba
+     */
+    private boolean awaitQueueSlot(Semaphore queued) throws InterruptedException {
+        // Espera por tramos: tras cancel() las conexiones descartadas ya no liberan su sitio
+        while (!queued.tryAcquire(100, TimeUnit.MILLISECONDS)) {
+            if (cancelled) {
+                return false;
+            }
+        }
+        return !cancelled;
+    }
+
+    private static LatencyHistogram merge(LatencyHistogram[] stripes) {
+        LatencyHistogram merged = new LatencyHistogram();
+        for (LatencyHistogram stripe : stripes) {
+            merged.merge(stripe);
+        }
+        return merged;
+    }
+
+    /**
+     * Obtiene las latencias registradas hasta el momento en la ejecución en curso
+     * (o en la última), para mostrar percentiles en vivo. En lazo abierto se miden
+     * desde el instante programado de cada conexión.
+     * @return Histograma combinado de todos los trabajadores
+     */
+    public LatencyHistogram getLiveLatency() {
+        return merge(recorders.latency);
+    }
+
+    /**
+     * Obtiene los tiempos de servicio (desde que un hilo atiende la conexión) registrados
+     * hasta el momento
+     * @return Histograma combinado de todos los trabajadores
+     */
+    public LatencyHistogram getLiveServiceTime() {
+        return merge(recorders.service);
+    }
+
+    /**
+     * Simula una conexión: una espera con la latencia del modelo de carga y un resultado
+     * según su tasa de éxito o la ventana de fallos vigente
+     * @param random Generador propio de la conexión
+     * @param offsetNanos Instante de la conexión desde el inicio de la simulación
+     * @return Resultado de la conexión, o null si fue interrumpida
+     */
+    private Boolean simulateConnection(SplittableRandom random, long offsetNanos) {
+        long latency = workload.sampleLatencyNanos(random);
+        boolean success = workload.sampleSuccess(random, offsetNanos);
+        try {
+            TimeUnit.NANOSECONDS.sleep(latency);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        return success;
+    }
+
+    /**
+     * Simula una conexión que primero espera un permiso del pool. Si no lo obtiene
+     * a tiempo, la conexión falla y se cuenta como rechazada.
+     * @return Resultado de la conexión, o null si fue interrumpida
+     */
+    private Boolean simulatePooledConnection(SplittableRandom random, long offsetNanos, AtomicInteger rejected) {
+        ConnectionPool.Connection connection;
+        try {
+            connection = pool.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        if (connection == null) {
+            rejected.incrementAndGet();
+            REJECTED.increment();
+            return false;
+        }
+        try {
+            return simulateConnection(random, offsetNanos);
+        } finally {
+            pool.release(connection);
+        }
+    }
+
+    /**
+     * Cancela la simulación en curso: descarta las conexiones pendientes e
+     * interrumpe las que están en progreso
+     */
+    public void cancel() {
+        cancelled = true;
+        ExecutorService pool = executor;
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Crea los trabajadores del modo PLATFORM numerados de 0 a workers - 1; si el pool
+     * reemplaza uno que terminó con una excepción, el nuevo reutiliza un número
+     */
+    private static ThreadFactory workerThreadFactory(int workers) {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            int index = counter.getAndIncrement();
+            Worker thread = new Worker(r, "simulation-worker-" + (index + 1), index % workers);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Hilo de plataforma que conoce su número dentro del pool de la ejecución
+     */
+    private static final class Worker extends Thread {
+        final int index;
+
+        Worker(Runnable task, String name, int index) {
+            super(task, name);
+            this.index = index;
+        }
+    }
+
+    /**
+     * Histogramas de latencia y de tiempo de servicio de una ejecución, de modo que cada
+     * hilo registra sin competir con los demás y al final se combinan.
+     *
+     * En modo PLATFORM cada trabajador usa el par de su número. Los hilos virtuales son
+     * uno por conexión, así que toman en exclusiva un par libre mientras registran: como
+     * registrar no bloquea, hay como mucho tantos ocupados como hilos portadores.
+     */
+    private static final class Recorders {
+        final LatencyHistogram[] latency;
+        final LatencyHistogram[] service;
+        private final AtomicIntegerArray busy;
+
+        Recorders(int size) {
+            latency = new LatencyHistogram[size];
+            service = new LatencyHistogram[size];
+            busy = new AtomicIntegerArray(size);
+            for (int i = 0; i < size; i++) {
+                latency[i] = new LatencyHistogram();
+                service[i] = new LatencyHistogram();
+            }
+        }
+
+        void record(long latencyNanos, long serviceNanos) {
+            Thread thread = Thread.currentThread();
+            if (thread instanceof Worker) {
+                int index = ((Worker) thread).index;
+                latency[index].record(latencyNanos);
+                service[index].record(serviceNanos);
+                return;
+            }
+            int index = claim();
+            try {
+                latency[index].record(latencyNanos);
+                service[index].record(serviceNanos);
+            } finally {
+                busy.set(index, 0);
+            }
+        }
+
+        private int claim() {
+            int size = busy.length();
+            int index = ThreadLocalRandom.current().nextInt(size);
+            for (int tries = 1; !busy.compareAndSet(index, 0, 1); tries++) {
+                index = index + 1 == size ? 0 : index + 1;
+                if (tries % size == 0) {
+                    Thread.onSpinWait();
+                }
+            }
+            return index;
+        }
+    }
+
+    public int getConnections() {
+        return connections;
+    }
+
+    public int getParallelism() {
+        return mode == ExecutionMode.VIRTUAL ? connections : parallelism;
+    }
+
+    /**
+     * @return Pool de conexiones del motor, o null si las conexiones no están limitadas
+     */
+    public ConnectionPool getPool() {
+        return pool;
+    }
+
+    public WorkloadProfile getWorkload() {
+        return workload;
+    }
+
+    public ExecutionMode getMode() {
+        return mode;
+    }
+}
@@ -0,0 +1,21 @@
+/**
+ * Recibe los eventos de una ejecución de {@link SimulationEngine}.
+ * Los métodos se invocan desde los hilos de trabajo del motor, de forma concurrente.
+ */
+public interface SimulationListener {
+
+    /**
+     * Se invoca al terminar cada conexión simulada
+     * @param connectionId Número de la conexión (desde 1)
+     * @param success true si la conexión fue exitosa
+     * @param completed Conexiones terminadas hasta el momento
+     */
+    void connectionCompleted(int connectionId, boolean success, int completed);
+
+    /**
+     * Se invoca una vez al terminar (o cancelar) la simulación
+     * @param result Resumen de la ejecución
+     */
+    default void simulationFinished(SimulationResult result) {
+    }
+}
@@ -0,0 +1,124 @@
+/**
+ * Resumen inmutable de una ejecución de {@link SimulationEngine}
+ */
+public final class SimulationResult {
+    private final int requested;
+    private final int successful;
+    private final int failed;
+    private final int rejected;
+    private final long elapsedNanos;
+    private final boolean cancelled;
+    private final LatencyHistogram latency;
+    private final LatencyHistogram serviceTime;
+    private final double targetRate;
+    private final double achievedRate;
+
+    /**
+     * @param rejected Fallidas por no obtener una conexión del pool a tiempo (incluidas en failed)
+     * @param latency Latencias medidas desde el instante programado (lazo abierto) o desde el inicio
+     * @param serviceTime Tiempos desde que un hilo atiende cada conexión
+     * @param targetRate Tasa media de llegadas programada (conexiones/s), o 0 en lazo cerrado
+     * @param achievedRate Tasa con la que realmente se iniciaron las conexiones, o 0 en lazo cerrado
+     */
+    public SimulationResult(int requested, int successful, int failed, int rejected, long elapsedNanos,
+                            boolean cancelled, LatencyHistogram latency, LatencyHistogram serviceTime,
+                            double targetRate, double achievedRate) {
+        this.requested = requested;
+        this.successful = successful;
+        this.failed = failed;
+        this.rejected = rejected;
+        this.elapsedNanos = elapsedNanos;
+        this.cancelled = cancelled;
+        this.latency = latency;
+        this.serviceTime = serviceTime;
+        this.targetRate = targetRate;
+        this.achievedRate = achievedRate;
+    }
+
+    public int getRequested() {
+        return requested;
+    }
+
+    public int getSuccessful() {
+        return successful;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    /**
+     * Conexiones que fallaron porque el pool no entregó una conexión a tiempo
+     * @return Rechazos por tiempo de espera (incluidos en {@link #getFailed()})
+     */
+    public int getRejected() {
+        return rejected;
+    }
+
+    public int getCompleted() {
+        return successful + failed;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Latencias de todas las conexiones completadas
+     * @return Histograma combinado de todos los hilos de trabajo
+     */
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    /**
+     * Tiempos de servicio, sin la espera en cola antes de que un hilo atienda la conexión.
+     * En lazo cerrado coinciden con {@link #getLatency()}.
+     * @return Histograma combinado de todos los hilos de trabajo
+     */
+    public LatencyHistogram getServiceTime() {
+        return serviceTime;
+    }
+
+    /**
+     * @return true si las conexiones se lanzaron a una tasa programada (lazo abierto)
+     */
+    public boolean isOpenLoop() {
+        return targetRate > 0;
+    }
+
+    /**
+     * @return Tasa media de llegadas programada en conexiones/s (0 en lazo cerrado)
+     */
+    public double getTargetRate() {
+        return targetRate;
+    }
+
+    /**
+     * @return Tasa con la que se iniciaron las conexiones en conexiones/s (0 en lazo cerrado)
+     */
+    public double getAchievedRate() {
+        return achievedRate;
+    }
+
+    /**
+     * Conexiones completadas por segundo
+     * @return Rendimiento de la ejecución
+     */
+    public double getThroughput() {
+        return elapsedNanos == 0 ? 0 : getCompleted() / (elapsedNanos / 1_000_000_000.0);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d exitosas, %d fallidas%s de %d en %.2f s (%.1f conexiones/s)%s",
+            successful, failed, rejected > 0 ? " (" + rejected + " rechazadas por el pool)" : "",
+            requested, elapsedNanos / 1_000_000_000.0, getThroughput(), cancelled ? " - cancelada" : "")
+            + (isOpenLoop()
+                ? String.format(" - tasa objetivo %.1f/s, lograda %.1f/s", targetRate, achievedRate) : "");
+    }
+}
@@ -3,23 +3,38 @@ import java.awt.*;
 import java.awt.event.*;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.Timer;
-import java.util.TimerTask;
 
 /**
- * Pantalla de bienvenida que muestra información basada en la configuración
+ * Pantalla de bienvenida que muestra información basada en la configuración.
+ * La hora se actualiza con el {@link ClockTicker} compartido, que no envía latidos
+ * mientras la ventana está oculta o minimizada. Los colores del tema, el mensaje y el
+ * formateador de la hora son valores derivados ({@link DerivedValue}) que solo se
+ * recalculan cuando cambian theme, language o timeFormat.
  */
 public class WelcomeScreen extends JFrame {
     private ConfigurationManager configManager;
     private JLabel welcomeLabel;
     private JLabel timeLabel;
     private JLabel themeLabel;
-    private Timer timer;
+    private JLabel regionLabel;
+    private DerivedValue<Theme> theme;
+    private DerivedValue<String> welcomeMessage;
+    private DerivedValue<DateTimeFormatter> timeFormatter;
+    private ClockTicker.Subscription clock;
+    private int lastSecond = -1;
+    private DateTimeFormatter lastFormatter;
+    private final ConfigurationChangeListener configListener = this::onConfigurationChanged;
     
     public WelcomeScreen() {
         this.configManager = ConfigurationManager.getInstance();
+        this.theme = configManager.derive(config -> Theme.named(config.getString(ConfigKey.THEME)), ConfigKey.THEME);
+        this.welcomeMessage = configManager.derive(config -> welcomeMessageFor(config.getString(ConfigKey.LANGUAGE)),
+            ConfigKey.LANGUAGE);
+        this.timeFormatter = configManager.derive(config -> ClockTicker.formatter(config.getString(ConfigKey.TIME_FORMAT),
+            config.getString(ConfigKey.LANGUAGE)), ConfigKey.TIME_FORMAT, ConfigKey.LANGUAGE);
         initializeUI();
         startTimeUpdate();
+        configManager.addChangeListener(configListener);
     }
     
     /**
@@ -43,7 +58,7 @@ public class WelcomeScreen extends JFrame {
         JPanel welcomePanel = new JPanel();
         welcomePanel.setLayout(new BoxLayout(welcomePanel, BoxLayout.Y_AXIS));
         
-        welcomeLabel = new JLabel(getWelcomeMessage());
+        welcomeLabel = new JLabel(welcomeMessage.get());
         welcomeLabel.setFont(new Font("Arial", Font.BOLD, 24));
         welcomeLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
         welcomeLabel.setHorizontalAlignment(SwingConstants.CENTER);
@@ -68,7 +83,7 @@ public class WelcomeScreen extends JFrame {
         timeLabel = new JLabel();
         timeLabel.setFont(new Font("Arial", Font.PLAIN, 20));
         timeLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
-        updateTime();
+        updateTime(LocalDateTime.now());
         
         timePanel.add(timeTitleLabel);
         timePanel.add(Box.createVerticalStrut(10));
@@ -82,7 +97,7 @@ public class WelcomeScreen extends JFrame {
         themeLabel.setFont(new Font("Arial", Font.PLAIN, 14));
         themeLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
         
-        JLabel regionLabel = new JLabel("Región: " + configManager.getRegion());
+        regionLabel = new JLabel("Región: " + configManager.getRegion());
         regionLabel.setFont(new Font("Arial", Font.PLAIN, 14));
         regionLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
         
@@ -112,29 +127,44 @@ public class WelcomeScreen extends JFrame {
      * Aplica el tema de colores según la configuración
      */
     private void applyTheme() {
-        String theme = configManager.getTheme();
-        if ("dark".equals(theme)) {
-            // Tema oscuro
-            UIManager.put("Panel.background", new Color(50, 50, 50));
-            UIManager.put("Label.foreground", Color.WHITE);
-            UIManager.put("Button.background", new Color(70, 70, 70));
-            UIManager.put("Button.foreground", Color.WHITE);
-            getContentPane().setBackground(new Color(50, 50, 50));
-        } else {
+        Theme colors = theme.get();
+        UIManager.put("Panel.background", colors.background);
+        UIManager.put("Label.foreground", colors.foreground);
+        UIManager.put("Button.background", colors.buttonBackground);
+        UIManager.put("Button.foreground", colors.buttonForeground);
+        getContentPane().setBackground(colors.background);
+    }
+    
+    /**
+     * Colores de un tema
+     */
+    private static final class Theme {
+        final Color background;
+        final Color foreground;
+        final Color buttonBackground;
+        final Color buttonForeground;
+        
+        private Theme(Color background, Color foreground, Color buttonBackground, Color buttonForeground) {
+            this.background = background;
+            this.foreground = foreground;
+            this.buttonBackground = buttonBackground;
+            this.buttonForeground = buttonForeground;
+        }
+        
+        static Theme named(String theme) {
+            if ("dark".equals(theme)) {
+                // Tema oscuro
+                return new Theme(new Color(50, 50, 50), Color.WHITE, new Color(70, 70, 70), Color.WHITE);
+            }
             // Tema claro (por defecto)
-            UIManager.put("Panel.background", new Color(240, 240, 240));
-            UIManager.put("Label.foreground", Color.BLACK);
-            UIManager.put("Button.background", new Color(220, 220, 220));
-            UIManager.put("Button.foreground", Color.BLACK);
-            getContentPane().setBackground(new Color(240, 240, 240));
+            return new Theme(new Color(240, 240, 240), Color.BLACK, new Color(220, 220, 220), Color.BLACK);
         }
     }
     
     /**
-     * Obtiene el mensaje de bienvenida según el idioma configurado
+     * Obtiene el mensaje de bienvenida para un idioma
      */
-    private String getWelcomeMessage() {
-        String language = configManager.getLanguage();
+    private static String welcomeMessageFor(String language) {
         switch (language) {
             case "ES":
                 return "¡Bienvenido al Sistema!";
@@ -150,44 +180,71 @@ public class WelcomeScreen extends JFrame {
     }
     
     /**
-     * Actualiza la hora mostrada según el formato configurado
+     * Refleja en pantalla los cambios de configuración (por ejemplo, una recarga en caliente)
+     */
+    private void onConfigurationChanged(ConfigurationChangeEvent event) {
+        SwingUtilities.invokeLater(() -> {
+            if (event.hasChanged(ConfigKey.THEME)) {
+                applyTheme();
+                themeLabel.setText("Tema actual: " + configManager.getTheme());
+                SwingUtilities.updateComponentTreeUI(this);
+            }
+            if (event.hasChanged(ConfigKey.LANGUAGE)) {
+                welcomeLabel.setText(welcomeMessage.get());
+                updateTime(LocalDateTime.now());
+            }
+            if (event.hasChanged(ConfigKey.REGION)) {
+                regionLabel.setText("Región: " + configManager.getRegion());
+            }
+            if (event.hasChanged(ConfigKey.TIME_FORMAT)) {
+                updateTime(LocalDateTime.now());
+            }
+        });
+    }
+    
+    /**
+     * Actualiza la hora mostrada según el formato y el idioma configurados. Si el segundo
+     * y el formateador son los mismos que en la última actualización, el texto visible no
+     * cambia y no se vuelve a formatear.
      */
-    private void updateTime() {
-        LocalDateTime now = LocalDateTime.now();
-        String timeFormat = configManager.getTimeFormat();
-        
-        DateTimeFormatter formatter;
-        if ("24H".equals(timeFormat)) {
-            formatter = DateTimeFormatter.ofPattern("HH:mm:ss");
-        } else {
-            formatter = DateTimeFormatter.ofPattern("hh:mm:ss a");
+    private void updateTime(LocalDateTime now) {
+        DateTimeFormatter formatter = timeFormatter.get();
+        int second = now.toLocalTime().toSecondOfDay();
+        if (second == lastSecond && formatter == lastFormatter) {
+            return;
         }
-        
-        String formattedTime = now.format(formatter);
-        timeLabel.setText(formattedTime);
+        lastSecond = second;
+        lastFormatter = formatter;
+        timeLabel.setText(formatter.format(now));
     }
     
     /**
-     * Inicia la actualización automática del tiempo
+     * Suscribe la hora al reloj compartido y la pausa mientras la ventana está minimizada
      */
     private void startTimeUpdate() {
-        timer = new Timer();
-        timer.scheduleAtFixedRate(new TimerTask() {
+        clock = ClockTicker.get().subscribe(timeLabel, this::updateTime);
+        addWindowListener(new WindowAdapter() {
             @Override
-            public void run() {
-                SwingUtilities.invokeLater(() -> updateTime());
+            public void windowIconified(WindowEvent e) {
+                clock.setPaused(true);
             }
-        }, 0, 1000); // Actualizar cada segundo
+            
+            @Override
+            public void windowDeiconified(WindowEvent e) {
+                clock.setPaused(false);
+            }
+        });
     }
     
     /**
-     * Detiene la actualización del tiempo al cerrar la ventana
+     * Deja de recibir la hora al cerrar la ventana
      */
     @Override
     public void dispose() {
-        if (timer != null) {
-            timer.cancel();
+        if (clock != null) {
+            clock.cancel();
         }
+        configManager.removeChangeListener(configListener);
         super.dispose();
     }
     
@@ -195,6 +252,8 @@ public class WelcomeScreen extends JFrame {
      * Método principal para probar la pantalla de bienvenida
      */
     public static void main(String[] args) {
+        ConfigurationManager.getInstance().startHotReload();
+        ConfigurationManager.getInstance().startAutosave();
         SwingUtilities.invokeLater(() -> {
             WelcomeScreen welcomeScreen = new WelcomeScreen();
             welcomeScreen.setVisible(true);
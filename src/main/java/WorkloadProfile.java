@@ -0,0 +1,398 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Modelo de carga de {@link SimulationEngine}: cómo llegan las conexiones, cuánto tarda
+ * cada una y con qué probabilidad falla. Es inmutable y se puede compartir entre hilos;
+ * el estado aleatorio lo aporta quien lo usa.
+ *
+ * Con la misma semilla una simulación es reproducible: el motor deriva del generador raíz
+ * (con {@link SplittableRandom#split()}) un generador propio para cada conexión, en el
+ * orden en que las crea, de modo que la latencia y el resultado de cada conexión no
+ * dependen de qué hilo la ejecute. Las ventanas de fallos dependen del instante de la
+ * conexión, que solo es reproducible con llegadas programadas (arrivalRate mayor que 0).
+ *
+ * Se configura con las claves latencyDistribution, latencyMinMs, latencyMedianMs,
+ * latencyMaxMs, successRate, arrivalRate, arrivalProcess, burstPattern, failureWindows y
+ * simulationSeed.
+ */
+public final class WorkloadProfile {
+
+    /**
+     * Forma de espaciar las llegadas programadas
+     */
+    public enum ArrivalProcess {
+        /** Esperas exponenciales: llegadas de Poisson con la tasa media indicada */
+        POISSON,
+        /** Esperas fijas de 1/tasa: tasa constante */
+        CONSTANT
+    }
+
+    /**
+     * Distribución de la duración de una conexión. Se puede implementar para probar
+     * otras formas de latencia.
+     */
+    public interface LatencyDistribution {
+        /**
+         * @param random Generador de la conexión
+         * @return Duración en nanosegundos
+         */
+        long sampleNanos(SplittableRandom random);
+    }
+
+    // Cuantil 0.99 de la normal estándar
+    private static final double Z_99 = 2.3263478740408408;
+    // Cociente mínimo entre percentil 99 y mediana de una Lomax (exponente infinito): ln(100) / ln(2)
+    private static final double PARETO_MIN_RATIO = Math.log(100) / Math.log(2);
+    private static final int TAIL_CAP = 100;
+
+    private final LatencyDistribution latency;
+    private final int successRate;
+    private final double arrivalsPerSecond;
+    private final ArrivalProcess arrivalProcess;
+    private final long burstIntervalNanos;
+    private final long burstDurationNanos;
+    private final int burstMultiplier;
+    private final List<FailureWindow> failureWindows;
+    private final long seed;
+
+    /**
+     * @param latency Distribución de la duración de cada conexión
+     * @param successRate Porcentaje de conexiones exitosas fuera de las ventanas de fallos
+     * @param arrivalsPerSecond Tasa media de llegadas, o 0 para que cada cliente inicie la
+     *                          siguiente conexión al terminar la anterior
+     * @param arrivalProcess Forma de espaciar las llegadas
+     * @param burstPattern Ráfagas "intervalo_ms:duración_ms:multiplicador", o vacío
+     * @param failureWindows Ventanas "inicio_ms-fin_ms:porcentaje,..." con el porcentaje de
+     *                       fallos desde el inicio de la simulación, o vacío
+     * @param seed Semilla del generador raíz
+     * @throws IllegalArgumentException Si algún parámetro no es válido
+     */
+    public WorkloadProfile(LatencyDistribution latency, int successRate, double arrivalsPerSecond,
+                           ArrivalProcess arrivalProcess, String burstPattern, String failureWindows, long seed) {
+        if (successRate < 0 || successRate > 100 || arrivalsPerSecond < 0) {
+            throw new IllegalArgumentException("Parámetros del modelo de carga inválidos");
+        }
+        this.latency = latency;
+        this.successRate = successRate;
+        this.arrivalsPerSecond = arrivalsPerSecond;
+        this.arrivalProcess = arrivalProcess;
+        this.failureWindows = parseFailureWindows(failureWindows);
+        this.seed = seed;
+
+        long[] burst = parseBurstPattern(burstPattern);
+        this.burstIntervalNanos = burst[0];
+        this.burstDurationNanos = burst[1];
+        this.burstMultiplier = (int) burst[2];
+    }
+
+    /**
+     * Modelo original del simulador: de 200 a 700 ms y 70% de éxito, sin llegadas programadas
+     * @param seed Semilla del generador raíz
+     * @return Modelo por defecto
+     */
+    public static WorkloadProfile standard(long seed) {
+        return new WorkloadProfile(uniform(200, 700), 70, 0, ArrivalProcess.POISSON, "", "", seed);
+    }
+
+    private WorkloadProfile(WorkloadProfile base, double arrivalsPerSecond) {
+        if (arrivalsPerSecond < 0) {
+            throw new IllegalArgumentException("La tasa de llegadas no puede ser negativa");
+        }
+        this.latency = base.latency;
+        this.successRate = base.successRate;
+        this.arrivalsPerSecond = arrivalsPerSecond;
+        this.arrivalProcess = base.arrivalProcess;
+        this.burstIntervalNanos = base.burstIntervalNanos;
+        this.burstDurationNanos = base.burstDurationNanos;
+        this.burstMultiplier = base.burstMultiplier;
+        this.failureWindows = base.failureWindows;
+        this.seed = base.seed;
+    }
+
+    /**
+     * Copia del modelo con otra tasa de llegadas
+     * @param arrivalsPerSecond Tasa media de llegadas, o 0 para lazo cerrado
+     * @return Nuevo modelo
+     */
+    public WorkloadProfile withArrivalRate(double arrivalsPerSecond) {
+        return new WorkloadProfile(this, arrivalsPerSecond);
+    }
+
+    /**
+     * Crea el modelo a partir de la configuración. Si simulationSeed es 0 se elige una
+     * semilla al azar (ver {@link #getSeed()} para repetir la ejecución).
+     * @param configManager Configuración
+     * @return Modelo configurado
+     * @throws IllegalArgumentException Si la combinación de valores no es válida
+     */
+    public static WorkloadProfile fromConfiguration(ConfigurationManager configManager) {
+        ConfigurationSnapshot config = configManager.getSnapshot();
+        int min = config.getInt(ConfigKey.LATENCY_MIN_MS);
+        int median = config.getInt(ConfigKey.LATENCY_MEDIAN_MS);
+        int max = config.getInt(ConfigKey.LATENCY_MAX_MS);
+        LatencyDistribution latency;
+        switch (config.getString(ConfigKey.LATENCY_DISTRIBUTION)) {
+            case "lognormal":
+                latency = logNormal(min, median, max);
+                break;
+            case "pareto":
+                latency = pareto(min, median, max);
+                break;
+            default:
+                latency = uniform(min, max);
+        }
+        // La semilla elegida al azar también es un int para poder fijarla después en simulationSeed
+        int seed = config.getInt(ConfigKey.SIMULATION_SEED);
+        while (seed == 0) {
+            seed = new SplittableRandom().nextInt();
+        }
+        return new WorkloadProfile(latency, config.getInt(ConfigKey.SUCCESS_RATE),
+            config.getInt(ConfigKey.ARRIVAL_RATE),
+            ArrivalProcess.valueOf(config.getString(ConfigKey.ARRIVAL_PROCESS).toUpperCase()),
+            config.getString(ConfigKey.BURST_PATTERN),
+            config.getString(ConfigKey.FAILURE_WINDOWS), seed);
+    }
+
+    /**
+     * Latencia uniforme entre dos valores
+     * @param minMillis Mínimo en milisegundos
+     * @param maxMillis Máximo en milisegundos
+     * @return Distribución uniforme
+     */
+    public static LatencyDistribution uniform(int minMillis, int maxMillis) {
+        if (minMillis > maxMillis) {
+            throw new IllegalArgumentException("latencyMinMs no puede superar latencyMaxMs");
+        }
+        long min = TimeUnit.MILLISECONDS.toNanos(minMillis);
+        long bound = TimeUnit.MILLISECONDS.toNanos(maxMillis) - min + 1;
+        return random -> min + random.nextLong(bound);
+    }
+
+    /**
+     * Latencia log-normal desplazada: mínimo + una log-normal con la mediana y el
+     * percentil 99 indicados. La cola se acota a {@value #TAIL_CAP} veces el percentil 99.
+     * @param minMillis Mínimo en milisegundos
+     * @param medianMillis Mediana en milisegundos
+     * @param p99Millis Percentil 99 en milisegundos
+     * @return Distribución log-normal
+     */
+    public static LatencyDistribution logNormal(int minMillis, int medianMillis, int p99Millis) {
+        checkOrder(minMillis, medianMillis, p99Millis);
+        long min = TimeUnit.MILLISECONDS.toNanos(minMillis);
+        double mu = Math.log(TimeUnit.MILLISECONDS.toNanos(medianMillis - minMillis));
+        double sigma = Math.log((p99Millis - minMillis) / (double) (medianMillis - minMillis)) / Z_99;
+        double cap = tailCap(minMillis, p99Millis);
+        return random -> min + (long) Math.min(cap, Math.exp(mu + sigma * gaussian(random)));
+    }
+
+    /**
+     * Latencia de Pareto desplazada (Lomax): mínimo + una cola pesada con la mediana y el
+     * percentil 99 indicados. El exponente se obtiene de la relación entre ambos, y la
+     * cola se acota a {@value #TAIL_CAP} veces el percentil 99.
+     * @param minMillis Mínimo en milisegundos
+     * @param medianMillis Mediana en milisegundos
+     * @param p99Millis Percentil 99 en milisegundos
+     * @return Distribución de Pareto
+     */
+    public static LatencyDistribution pareto(int minMillis, int medianMillis, int p99Millis) {
+        checkOrder(minMillis, medianMillis, p99Millis);
+        long min = TimeUnit.MILLISECONDS.toNanos(minMillis);
+        double ratio = (p99Millis - minMillis) / (double) (medianMillis - minMillis);
+        if (ratio <= PARETO_MIN_RATIO) {
+            throw new IllegalArgumentException(String.format("Para pareto, latencyMaxMs - latencyMinMs debe ser más de "
+                + "%.2f veces latencyMedianMs - latencyMinMs", PARETO_MIN_RATIO));
+        }
+        // Cuantil q de la Lomax: scale * ((1 - q)^(-1/alpha) - 1); se busca alpha con el cociente p99/mediana
+        double low = 1e-3;
+        double high = 1e3;
+        for (int i = 0; i < 200; i++) {
+            double alpha = Math.sqrt(low * high);
+            double candidate = (Math.pow(100, 1 / alpha) - 1) / (Math.pow(2, 1 / alpha) - 1);
+            if (candidate > ratio) {
+                low = alpha; // Cola demasiado pesada: aumentar alpha
+            } else {
+                high = alpha;
+            }
+        }
+        double alpha = Math.sqrt(low * high);
+        double scale = TimeUnit.MILLISECONDS.toNanos(medianMillis - minMillis) / (Math.pow(2, 1 / alpha) - 1);
+        double cap = tailCap(minMillis, p99Millis);
+        return random -> min + (long) Math.min(cap, scale * (Math.pow(1 - random.nextDouble(), -1 / alpha) - 1));
+    }
+
+    // Una sola muestra extrema de la cola no debe bloquear la simulación
+    private static double tailCap(int minMillis, int p99Millis) {
+        return TAIL_CAP * (double) TimeUnit.MILLISECONDS.toNanos(p99Millis - minMillis);
+    }
+
+    private static void checkOrder(int min, int median, int p99) {
+        if (!(min < median && median < p99)) {
+            throw new IllegalArgumentException("Se requiere latencyMinMs < latencyMedianMs < latencyMaxMs");
+        }
+    }
+
+    // Box-Muller: no se usa Random.nextGaussian para no depender de java.util.Random
+    private static double gaussian(SplittableRandom random) {
+        double u = 1 - random.nextDouble();
+        return Math.sqrt(-2 * Math.log(u)) * Math.cos(2 * Math.PI * random.nextDouble());
+    }
+
+    /**
+     * Interpreta las ráfagas "intervalo_ms:duración_ms:multiplicador". El esquema la usa
+     * para rechazar burstPattern al asignarlo.
+     * @param spec Ráfagas, o vacío
+     * @return Intervalo y duración en nanosegundos y multiplicador ({0, 0, 1} si está vacío)
+     * @throws IllegalArgumentException Si el texto no es válido
+     */
+    static long[] parseBurstPattern(String spec) {
+        if (spec == null || spec.isEmpty()) {
+            return new long[] {0, 0, 1};
+        }
+        String[] parts = spec.split(":");
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("Ráfaga inválida: " + spec);
+        }
+        long interval;
+        long duration;
+        int multiplier;
+        try {
+            interval = TimeUnit.MILLISECONDS.toNanos(Long.parseLong(parts[0].trim()));
+            duration = TimeUnit.MILLISECONDS.toNanos(Long.parseLong(parts[1].trim()));
+            multiplier = Integer.parseInt(parts[2].trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Ráfaga inválida (número fuera de rango): " + spec);
+        }
+        if (interval <= 0 || duration > interval || multiplier < 1) {
+            throw new IllegalArgumentException("Ráfaga inválida (el intervalo debe ser mayor que 0, la duración "
+                + "no puede superarlo y el multiplicador debe ser al menos 1): " + spec);
+        }
+        return new long[] {interval, duration, multiplier};
+    }
+
+    /**
+     * Interpreta las ventanas "inicio_ms-fin_ms:porcentaje,...". El esquema la usa para
+     * rechazar failureWindows al asignarlo.
+     * @throws IllegalArgumentException Si el texto no es válido
+     */
+    static List<FailureWindow> parseFailureWindows(String spec) {
+        if (spec == null || spec.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<FailureWindow> windows = new ArrayList<>();
+        for (String window : spec.split(",")) {
+            String[] rangeAndRate = window.split(":");
+            String[] range = rangeAndRate.length == 2 ? rangeAndRate[0].split("-") : new String[0];
+            if (range.length != 2) {
+                throw new IllegalArgumentException("Ventana de fallos inválida: " + window);
+            }
+            long start;
+            long end;
+            int failureRate;
+            try {
+                start = TimeUnit.MILLISECONDS.toNanos(Long.parseLong(range[0].trim()));
+                end = TimeUnit.MILLISECONDS.toNanos(Long.parseLong(range[1].trim()));
+                failureRate = Integer.parseInt(rangeAndRate[1].trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Ventana de fallos inválida (número fuera de rango): " + window);
+            }
+            if (end <= start || failureRate > 100) {
+                throw new IllegalArgumentException("Ventana de fallos inválida (el fin debe ser posterior al inicio "
+                    + "y el porcentaje no puede superar 100): " + window);
+            }
+            windows.add(new FailureWindow(start, end, failureRate));
+        }
+        return Collections.unmodifiableList(windows);
+    }
+
+    /**
+     * Indica si las conexiones llegan según una tasa programada en lugar de al ritmo de los clientes
+     */
+    public boolean hasScheduledArrivals() {
+        return arrivalsPerSecond > 0;
+    }
+
+    /**
+     * Tiempo hasta la siguiente llegada (exponencial o fijo según el proceso), con la tasa
+     * multiplicada durante las ráfagas
+     * @param random Generador raíz de la simulación
+     * @param elapsedNanos Tiempo transcurrido desde el inicio hasta la llegada anterior
+     * @return Espera en nanosegundos
+     */
+    public long nextArrivalGapNanos(SplittableRandom random, long elapsedNanos) {
+        double rate = arrivalsPerSecond * (inBurst(elapsedNanos) ? burstMultiplier : 1);
+        double gap = arrivalProcess == ArrivalProcess.POISSON ? -Math.log(1 - random.nextDouble()) : 1;
+        return (long) (gap / rate * 1_000_000_000L);
+    }
+
+    private boolean inBurst(long elapsedNanos) {
+        return burstIntervalNanos > 0 && elapsedNanos % burstIntervalNanos < burstDurationNanos;
+    }
+
+    /**
+     * @param random Generador de la conexión
+     * @return Duración de la conexión en nanosegundos
+     */
+    public long sampleLatencyNanos(SplittableRandom random) {
+        return latency.sampleNanos(random);
+    }
+
+    /**
+     * Decide si una conexión es exitosa según la tasa de éxito o la ventana de fallos vigente
+     * @param random Generador de la conexión
+     * @param elapsedNanos Instante de la conexión desde el inicio de la simulación
+     * @return true si la conexión es exitosa
+     */
+    public boolean sampleSuccess(SplittableRandom random, long elapsedNanos) {
+        int rate = successRate;
+        for (FailureWindow window : failureWindows) {
+            if (elapsedNanos >= window.startNanos && elapsedNanos < window.endNanos) {
+                rate = 100 - window.failureRate;
+                break;
+            }
+        }
+        return random.nextInt(100) < rate;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public double getArrivalsPerSecond() {
+        return arrivalsPerSecond;
+    }
+
+    /**
+     * Tasa media de llegadas teniendo en cuenta las ráfagas
+     * @return Conexiones por segundo (0 en lazo cerrado)
+     */
+    public double getMeanArrivalRate() {
+        if (burstIntervalNanos == 0) {
+            return arrivalsPerSecond;
+        }
+        double burstFraction = burstDurationNanos / (double) burstIntervalNanos;
+        return arrivalsPerSecond * (1 + (burstMultiplier - 1) * burstFraction);
+    }
+
+    public ArrivalProcess getArrivalProcess() {
+        return arrivalProcess;
+    }
+
+    /**
+     * Intervalo en que las conexiones fallan con un porcentaje fijo
+     */
+    private static final class FailureWindow {
+        final long startNanos;
+        final long endNanos;
+        final int failureRate;
+
+        FailureWindow(long startNanos, long endNanos, int failureRate) {
+            this.startNanos = startNanos;
+            this.endNanos = endNanos;
+            this.failureRate = failureRate;
+        }
+    }
+}